@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.benchmark;
+
+import io.gravitee.common.component.Lifecycle;
+import io.gravitee.common.node.Node;
+
+/**
+ * The gateway node the reports come from.
+ *
+ * @author GraviteeSource Team
+ */
+public class BenchmarkNode implements Node {
+
+    @Override
+    public String name() {
+        return "benchmark";
+    }
+
+    @Override
+    public Lifecycle.State lifecycleState() {
+        return Lifecycle.State.STARTED;
+    }
+
+    @Override
+    public Node start() {
+        return this;
+    }
+
+    @Override
+    public Node stop() {
+        return this;
+    }
+}
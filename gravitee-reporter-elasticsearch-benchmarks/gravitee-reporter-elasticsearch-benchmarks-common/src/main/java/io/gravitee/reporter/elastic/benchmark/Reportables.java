@@ -0,0 +1,191 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.benchmark;
+
+import io.gravitee.common.http.HttpHeaders;
+import io.gravitee.common.http.HttpMethod;
+import io.gravitee.reporter.api.Reportable;
+import io.gravitee.reporter.api.common.Request;
+import io.gravitee.reporter.api.common.Response;
+import io.gravitee.reporter.api.health.EndpointStatus;
+import io.gravitee.reporter.api.http.Metrics;
+import io.gravitee.reporter.api.log.Log;
+import io.gravitee.reporter.api.monitor.JvmInfo;
+import io.gravitee.reporter.api.monitor.Monitor;
+import io.gravitee.reporter.api.monitor.OsInfo;
+import io.gravitee.reporter.api.monitor.ProcessInfo;
+
+import java.util.UUID;
+
+/**
+ * Reportables looking like the ones of a gateway in production, shared by the benchmarks of all the engines.
+ *
+ * @author GraviteeSource Team
+ */
+public final class Reportables {
+
+    public static final String REQUEST = "request";
+    public static final String LOG = "log";
+    public static final String MONITOR = "monitor";
+    public static final String HEALTH = "health";
+
+    private Reportables() {
+    }
+
+    /**
+     * @param type one of {@link #REQUEST}, {@link #LOG}, {@link #MONITOR} or {@link #HEALTH}
+     * @return a new reportable of this type
+     */
+    public static Reportable of(String type) {
+        switch (type) {
+            case REQUEST:
+                return metrics();
+            case LOG:
+                return log(1024);
+            case MONITOR:
+                return monitor();
+            case HEALTH:
+                return endpointStatus();
+            default:
+                throw new IllegalArgumentException("Unknown reportable type " + type);
+        }
+    }
+
+    public static Metrics metrics() {
+        final Metrics metrics = Metrics.on(System.currentTimeMillis()).build();
+        metrics.setRequestId(UUID.randomUUID().toString());
+        metrics.setTransactionId(UUID.randomUUID().toString());
+        metrics.setHttpMethod(HttpMethod.GET);
+        metrics.setUri("/echo/v1/products?category=books&sort=price");
+        metrics.setStatus(200);
+        metrics.setProxyResponseTimeMs(42);
+        metrics.setApiResponseTimeMs(37);
+        metrics.setProxyLatencyMs(5);
+        metrics.setRequestContentLength(0);
+        metrics.setResponseContentLength(2_048);
+        metrics.setApi("5b4b7e8a-8f62-4b1e-8b7e-8a8f624b1e8b");
+        metrics.setApplication("0c1f1b3e-2d4a-4f6b-9c8d-7e6f5a4b3c2d");
+        metrics.setPlan("9d8c7b6a-5f4e-4d3c-2b1a-0f9e8d7c6b5a");
+        metrics.setApiKey("b7e6d5c4-b3a2-4918-8f7e-6d5c4b3a2918");
+        metrics.setLocalAddress("10.0.0.12");
+        metrics.setRemoteAddress("172.16.4.31");
+        metrics.setEndpoint("http://backend.internal:8080/products");
+        metrics.setTenant("europe");
+        return metrics;
+    }
+
+    /**
+     * @param bodySize the size of the request and response bodies
+     */
+    public static Log log(int bodySize) {
+        final StringBuilder body = new StringBuilder(bodySize);
+        while (body.length() < bodySize) {
+            body.append("{\"id\":").append(body.length()).append(",\"name\":\"product \\\"").append(body.length()).append("\\\"\"}\n");
+        }
+        body.setLength(bodySize);
+
+        final Log log = new Log(System.currentTimeMillis());
+        log.setRequestId(UUID.randomUUID().toString());
+
+        final Request request = new Request();
+        request.setMethod(HttpMethod.POST);
+        request.setUri("/echo/v1/products");
+        request.setHeaders(headers());
+        request.setBody(body.toString());
+        log.setClientRequest(request);
+        log.setProxyRequest(request);
+
+        final Response response = new Response(200);
+        response.setHeaders(headers());
+        response.setBody(body.toString());
+        log.setClientResponse(response);
+        log.setProxyResponse(response);
+
+        return log;
+    }
+
+    private static HttpHeaders headers() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.CONTENT_TYPE, "application/json");
+        headers.add(HttpHeaders.ACCEPT, "application/json");
+        headers.add(HttpHeaders.USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36");
+        headers.add("X-Gravitee-Transaction-Id", UUID.randomUUID().toString());
+        return headers;
+    }
+
+    public static Monitor monitor() {
+        final long now = System.currentTimeMillis();
+
+        final OsInfo os = new OsInfo();
+        os.timestamp = now;
+        os.cpu = new OsInfo.Cpu();
+        os.cpu.percent = 12;
+        os.cpu.loadAverage = new double[] { 1.25, 0.98, 0.5 };
+        os.mem = new OsInfo.Mem();
+        os.mem.total = 16_777_216_000L;
+        os.mem.free = 4_194_304_000L;
+
+        final ProcessInfo process = new ProcessInfo();
+        process.timestamp = now;
+        process.openFileDescriptors = 312;
+        process.maxFileDescriptors = 1_048_576;
+
+        final JvmInfo jvm = new JvmInfo(now, 3_600_000);
+        jvm.mem = new JvmInfo.Mem();
+        jvm.mem.heapCommitted = 536_870_912;
+        jvm.mem.heapUsed = 201_326_592;
+        jvm.mem.heapMax = 1_073_741_824;
+        jvm.mem.nonHeapCommitted = 100_663_296;
+        jvm.mem.nonHeapUsed = 98_566_144;
+        jvm.mem.pools = new JvmInfo.MemoryPool[] {
+                new JvmInfo.MemoryPool("young", 50_331_648, 348_127_232, 134_217_728, 348_127_232),
+                new JvmInfo.MemoryPool("survivor", 1_048_576, 11_010_048, 11_010_048, 11_010_048),
+                new JvmInfo.MemoryPool("old", 150_994_944, 715_653_120, 150_994_944, 715_653_120)
+        };
+        jvm.threads = new JvmInfo.Threads();
+        jvm.threads.count = 48;
+        jvm.threads.peakCount = 52;
+        jvm.gc = new JvmInfo.GarbageCollectors();
+        jvm.gc.collectors = new JvmInfo.GarbageCollector[] { collector("young", 1_204, 8_734), collector("old", 3, 412) };
+
+        return Monitor.on("gateway").at(now).os(os).process(process).jvm(jvm).build();
+    }
+
+    private static JvmInfo.GarbageCollector collector(String name, long count, long time) {
+        final JvmInfo.GarbageCollector collector = new JvmInfo.GarbageCollector();
+        collector.name = name;
+        collector.collectionCount = count;
+        collector.collectionTime = time;
+        return collector;
+    }
+
+    public static EndpointStatus endpointStatus() {
+        final Request request = new Request();
+        request.setMethod(HttpMethod.GET);
+        request.setUri("http://backend.internal:8080/health");
+
+        final Response response = new Response(200);
+        response.setBody("{\"status\":\"UP\"}");
+
+        final EndpointStatus status = EndpointStatus
+                .forEndpoint("5b4b7e8a-8f62-4b1e-8b7e-8a8f624b1e8b", "default")
+                .on(System.currentTimeMillis())
+                .step(EndpointStatus.forStep("default-step").success().responseTime(12).request(request).response(response).build())
+                .build();
+        status.setResponseTime(12);
+        return status;
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.engine.impl;
+
+import io.gravitee.common.node.Node;
+import io.gravitee.reporter.api.Reportable;
+import io.gravitee.reporter.elastic.benchmark.BenchmarkNode;
+import io.gravitee.reporter.elastic.benchmark.Reportables;
+import io.gravitee.reporter.elastic.config.ElasticConfiguration;
+import io.gravitee.reporter.elastic.engine.ReportEngine;
+import io.gravitee.reporter.elastic.indexer.ElasticsearchBulkIndexer;
+import io.gravitee.reporter.elastic.model.Serializer;
+import io.gravitee.reporter.elastic.spring.ReporterConfiguration;
+import io.vertx.core.Vertx;
+import io.vertx.reactivex.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-to-end cost of <code>ElasticReportEngine.report()</code>: encoding of the reportable, with the FreeMarker
+ * templates or the serializers, and hand-off to the indexer. The indexer only counts the bytes it receives.
+ *
+ * <pre>java -jar target/benchmarks.jar ReportBenchmark -prof gc</pre>
+ *
+ * @author GraviteeSource Team
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+
+    @Param({"JACKSON", "TEMPLATE"})
+    public Serializer serializer;
+
+    @Param({Reportables.REQUEST, Reportables.LOG, Reportables.MONITOR, Reportables.HEALTH})
+    public String type;
+
+    private AnnotationConfigApplicationContext context;
+
+    private ReportEngine engine;
+
+    private Reportable reportable;
+
+    @Setup
+    public void setup() throws Exception {
+        context = new AnnotationConfigApplicationContext(BenchmarkConfiguration.class);
+
+        final ElasticConfiguration configuration = context.getBean(ElasticConfiguration.class);
+        configuration.setSerializer(serializer);
+        // Encode on the benchmark thread
+        configuration.setEncoderWorkers(0);
+
+        engine = context.getBean(ReportEngine.class);
+        engine.start();
+
+        reportable = Reportables.of(type);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.stop();
+        context.getBean(Vertx.class).close();
+        context.close();
+    }
+
+    @Benchmark
+    public void report() {
+        engine.report(reportable);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void reportConcurrently() {
+        engine.report(reportable);
+    }
+
+    /**
+     * Indexer counting the bytes of the bulk lines instead of sending them.
+     */
+    public static class CountingIndexer extends ElasticsearchBulkIndexer {
+
+        private final LongAdder bytes = new LongAdder();
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void index(String type, Buffer data) {
+            bytes.add(data.length());
+        }
+
+        public long getBytes() {
+            return bytes.sum();
+        }
+    }
+
+    @Configuration
+    @Import(ReporterConfiguration.class)
+    public static class BenchmarkConfiguration {
+
+        @Bean
+        public Vertx vertx() {
+            return Vertx.vertx();
+        }
+
+        @Bean
+        public ElasticsearchBulkIndexer elasticsearchComponent() {
+            return new CountingIndexer();
+        }
+
+        @Bean
+        public Node node() {
+            return new BenchmarkNode();
+        }
+    }
+}
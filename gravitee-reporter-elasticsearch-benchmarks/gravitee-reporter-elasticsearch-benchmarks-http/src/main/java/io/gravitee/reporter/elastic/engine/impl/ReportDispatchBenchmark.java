@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.engine.impl;
+
+import io.gravitee.reporter.api.Reportable;
+import io.gravitee.reporter.api.health.EndpointStatus;
+import io.gravitee.reporter.api.http.Metrics;
+import io.gravitee.reporter.api.log.Log;
+import io.gravitee.reporter.api.monitor.Monitor;
+import io.reactivex.Flowable;
+import io.vertx.reactivex.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of dispatching a reportable to its encoder, without the encoding itself.
+ *
+ * <code>flowable</code> is the dispatch done by <code>ElasticReportEngine.report()</code> before the
+ * {@link DocumentEncoders}, <code>documentEncoders</code> is the current one. Run with <code>-prof gc</code>
+ * to compare the allocation per report:
+ *
+ * <pre>java -jar target/benchmarks.jar ReportDispatchBenchmark -prof gc</pre>
+ *
+ * @author GraviteeSource Team
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportDispatchBenchmark {
+
+    private final Buffer document = Buffer.buffer("{\"index\":{}}\n{}\n");
+
+    private DocumentEncoders documentEncoders;
+
+    private Reportable[] reportables;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        documentEncoders = new DocumentEncoders()
+                .register(Metrics.class, metrics -> document)
+                .register(EndpointStatus.class, endpointStatus -> document)
+                .register(Monitor.class, monitor -> document)
+                .register(Log.class, log -> document);
+
+        final long now = System.currentTimeMillis();
+        reportables = new Reportable[] {
+                Metrics.on(now).build(),
+                new Log(now),
+                Monitor.on("gateway").at(now).build(),
+                EndpointStatus.forEndpoint("api", "endpoint").on(now).build()
+        };
+    }
+
+    private Reportable nextReportable() {
+        next = (next + 1) & 3;
+        return reportables[next];
+    }
+
+    @Benchmark
+    public void flowable(Blackhole blackhole) {
+        Flowable
+                .just(nextReportable())
+                .flatMap(reportable -> {
+                    if (reportable instanceof Metrics) {
+                        return Flowable.just(document);
+                    } else if (reportable instanceof EndpointStatus) {
+                        return Flowable.just(document);
+                    } else if (reportable instanceof Monitor) {
+                        return Flowable.just(document);
+                    } else if (reportable instanceof Log) {
+                        return Flowable.just(document);
+                    }
+
+                    return Flowable.<Buffer>never();
+                })
+                .forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void documentEncoders(Blackhole blackhole) {
+        final Buffer data = documentEncoders.encode(nextReportable());
+        if (data != null) {
+            blackhole.consume(data);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import io.vertx.reactivex.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of assembling the body of a bulk request from the bulk lines of its documents.
+ *
+ * <ul>
+ *     <li><code>join</code>: the lines joined in a single string, as the indexer did with the templates</li>
+ *     <li><code>compose</code>: the lines aggregated without copy, as the indexer does now</li>
+ *     <li><code>compress</code>: the lines gzipped, when <code>reporters.elasticsearch.http.compression</code> is enabled</li>
+ * </ul>
+ *
+ * @author GraviteeSource Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkAssemblyBenchmark {
+
+    @Param({"500", "5000"})
+    public int documents;
+
+    private List<Buffer> buffers;
+
+    private List<String> lines;
+
+    private BulkCompressor compressor;
+
+    @Setup
+    public void setup() {
+        buffers = new ArrayList<>(documents);
+        lines = new ArrayList<>(documents);
+        compressor = new BulkCompressor();
+
+        for (int i = 0; i < documents; i++) {
+            final String line = "{\"index\":{\"_index\":\"gravitee-2017.11.02\",\"_type\":\"request\",\"_id\":\""
+                    + UUID.randomUUID() + "\"}}\n"
+                    + "{\"gateway\":\"gateway\",\"@timestamp\":\"2017-11-02T10:15:30.000+01:00\",\"transaction\":\""
+                    + UUID.randomUUID() + "\",\"method\":3,\"uri\":\"/echo/v1/products\",\"status\":200,"
+                    + "\"response-time\":" + (i % 500) + ",\"api\":\"5b4b7e8a-8f62-4b1e-8b7e-8a8f624b1e8b\"}\n";
+            lines.add(line);
+            buffers.add(Buffer.buffer(line));
+        }
+    }
+
+    @Benchmark
+    public Buffer join() {
+        final StringBuilder body = new StringBuilder();
+        for (String line : lines) {
+            body.append(line);
+        }
+        return Buffer.buffer(body.toString());
+    }
+
+    @Benchmark
+    public Buffer compose() {
+        return ElasticsearchBulkIndexer.compose(buffers);
+    }
+
+    @Benchmark
+    public Buffer compress() throws IOException {
+        return compressor.compress(buffers);
+    }
+}
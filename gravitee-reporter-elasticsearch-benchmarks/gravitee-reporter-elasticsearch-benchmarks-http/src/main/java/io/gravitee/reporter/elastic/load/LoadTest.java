@@ -0,0 +1,238 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.load;
+
+import io.gravitee.common.node.Node;
+import io.gravitee.reporter.api.Reportable;
+import io.gravitee.reporter.elastic.ElasticsearchReporter;
+import io.gravitee.reporter.elastic.benchmark.BenchmarkNode;
+import io.gravitee.reporter.elastic.benchmark.Reportables;
+import io.gravitee.reporter.elastic.metrics.ReporterMetrics;
+import io.gravitee.reporter.elastic.spring.ReporterConfiguration;
+import io.vertx.core.Vertx;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drive the HTTP reporter at a fixed rate against a {@link StubElasticsearch}, and report the sustained
+ * throughput, the latency of <code>report()</code>, the heap usage and the dropped documents.
+ *
+ * <pre>java -Dload.rate=20000 -Dload.duration=60 -cp target/benchmarks.jar io.gravitee.reporter.elastic.load.LoadTest</pre>
+ *
+ * <ul>
+ *     <li><code>load.rate</code>: reports per second (default 10000)</li>
+ *     <li><code>load.duration</code>: duration of the load in seconds (default 30)</li>
+ *     <li><code>load.threads</code>: threads calling <code>report()</code> (default 4)</li>
+ *     <li><code>load.mix</code>: share of each type of report (default <code>request:90,log:5,monitor:3,health:2</code>)</li>
+ *     <li><code>stub.latency</code>: time taken by the stub to answer a bulk request, in milliseconds (default 10)</li>
+ *     <li><code>stub.too_many_requests</code>: share of bulk requests rejected with a 429 (default 0)</li>
+ *     <li><code>stub.server_errors</code>: share of bulk requests rejected with a 503 (default 0)</li>
+ * </ul>
+ *
+ * The <code>reporters.elasticsearch.*</code> system properties configure the reporter as in <code>gravitee.yml</code>.
+ * The latency of <code>report()</code> is measured from the time the call was scheduled, so that a stalled
+ * reporter does not hide the calls it delayed.
+ *
+ * @author GraviteeSource Team
+ */
+public class LoadTest {
+
+    private static final long DRAIN_TIMEOUT = TimeUnit.SECONDS.toNanos(30);
+
+    public static void main(String[] args) throws Exception {
+        final int rate = Integer.getInteger("load.rate", 10_000);
+        final int duration = Integer.getInteger("load.duration", 30);
+        final int threads = Integer.getInteger("load.threads", 4);
+        final String[] mix = mix(System.getProperty("load.mix", "request:90,log:5,monitor:3,health:2"));
+
+        final Vertx vertx = Vertx.vertx();
+        final StubElasticsearch stub = new StubElasticsearch(vertx,
+                Long.getLong("stub.latency", 10),
+                Double.parseDouble(System.getProperty("stub.too_many_requests", "0")),
+                Double.parseDouble(System.getProperty("stub.server_errors", "0")));
+        final int port = stub.start();
+        System.setProperty("reporters.elasticsearch.endpoints[0]", "http://localhost:" + port);
+        // The documents of the reporter metrics would be counted as reported documents
+        System.getProperties().putIfAbsent("reporters.elasticsearch.metrics.report_interval", "0");
+
+        final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getBeanFactory().registerSingleton("vertx", vertx);
+        context.register(LoadTestConfiguration.class);
+        context.refresh();
+
+        final ElasticsearchReporter reporter = context.getBean(ElasticsearchReporter.class);
+        reporter.start();
+
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        final AtomicLong maxHeapUsed = new AtomicLong();
+        final long heapSampler = vertx.setPeriodic(100, timerId ->
+                maxHeapUsed.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max));
+
+        final long start = System.nanoTime();
+        final List<Generator> generators = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            final Generator generator = new Generator(reporter, mix, (double) rate / threads, start, duration);
+            generators.add(generator);
+            generator.start();
+        }
+        for (Generator generator : generators) {
+            generator.join();
+        }
+        final long loadTime = System.nanoTime() - start;
+
+        // Wait for the reporter to send what it buffered
+        final long reported = generators.stream().mapToLong(generator -> generator.count).sum();
+        long indexed = stub.getDocuments();
+        final long drainStart = System.nanoTime();
+        while (indexed < reported && System.nanoTime() - drainStart < DRAIN_TIMEOUT) {
+            TimeUnit.MILLISECONDS.sleep(500);
+            indexed = stub.getDocuments();
+        }
+        final long totalTime = System.nanoTime() - start;
+
+        vertx.cancelTimer(heapSampler);
+
+        final long[] latencies = generators.stream()
+                .flatMapToLong(generator -> Arrays.stream(generator.latencies, 0, generator.count))
+                .sorted()
+                .toArray();
+
+        System.out.println();
+        System.out.println("Engine                 : HTTP");
+        System.out.printf("Target rate            : %d reports/s for %d s on %d threads%n", rate, duration, threads);
+        System.out.printf("Reported               : %d (%.0f reports/s)%n", reported, reported / seconds(loadTime));
+        System.out.printf("Indexed                : %d (%.0f docs/s)%n", indexed, indexed / seconds(totalTime));
+        System.out.printf("Dropped                : %d%n", reported - indexed);
+        System.out.printf("Bulk requests          : %d (%d rejected), %d MB%n", stub.getBulkRequests(),
+                stub.getRejectedRequests(), stub.getBytes() / (1024 * 1024));
+        System.out.printf("report() latency (us)  : p50=%d p99=%d p99.9=%d max=%d%n",
+                percentile(latencies, 0.5), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                percentile(latencies, 1));
+        System.out.printf("Max heap used          : %d MB%n", maxHeapUsed.get() / (1024 * 1024));
+
+        System.out.println();
+        System.out.println("Reporter metrics");
+        context.getBean(ReporterMetrics.class).snapshot().forEach((name, value) ->
+                System.out.printf("  %-35s: %s%n", name, value));
+
+        reporter.stop();
+        stub.stop();
+        context.close();
+        vertx.close();
+    }
+
+    private static String[] mix(String mix) {
+        final List<String> types = new ArrayList<>();
+        for (String share : mix.split(",")) {
+            final String[] typeAndWeight = share.trim().split(":");
+            for (int i = 0; i < Integer.parseInt(typeAndWeight[1]); i++) {
+                types.add(typeAndWeight[0]);
+            }
+        }
+        return types.toArray(new String[types.size()]);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        final int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(0, index)]);
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    /**
+     * Call <code>report()</code> at a fixed rate.
+     */
+    private static class Generator extends Thread {
+
+        private final ElasticsearchReporter reporter;
+
+        private final Reportable[][] reportables;
+
+        private final long interval;
+
+        private final long start;
+
+        private final long end;
+
+        private final long[] latencies;
+
+        private int count;
+
+        Generator(ElasticsearchReporter reporter, String[] mix, double rate, long start, int duration) {
+            this.reporter = reporter;
+            this.interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+            this.start = start;
+            this.end = start + TimeUnit.SECONDS.toNanos(duration);
+            this.latencies = new long[(int) Math.min(Integer.MAX_VALUE - 8, (long) Math.ceil(rate * duration) + 1)];
+
+            // Reportables are created up front so that their allocation is not measured
+            this.reportables = new Reportable[mix.length][];
+            for (int i = 0; i < mix.length; i++) {
+                this.reportables[i] = new Reportable[] { Reportables.of(mix[i]) };
+            }
+        }
+
+        @Override
+        public void run() {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            long intended = start;
+
+            while (intended < end && count < latencies.length) {
+                final long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                reporter.report(reportables[random.nextInt(reportables.length)][0]);
+                latencies[count++] = System.nanoTime() - intended;
+
+                intended += interval;
+            }
+        }
+    }
+
+    @Configuration
+    @Import(ReporterConfiguration.class)
+    public static class LoadTestConfiguration {
+
+        @Bean
+        public Node node() {
+            return new BenchmarkNode();
+        }
+
+        @Bean
+        public ElasticsearchReporter reporter() {
+            return new ElasticsearchReporter();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.load;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpServerRequest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A local HTTP server answering like Elasticsearch, just enough for the HTTP reporter.
+ *
+ * The bulk requests are answered after a fixed latency, and a share of them may be rejected with a
+ * <code>429 Too Many Requests</code> or a <code>503 Service Unavailable</code>.
+ *
+ * @author GraviteeSource Team
+ */
+public class StubElasticsearch {
+
+    private static final String VERSION = "{\"name\":\"stub\",\"cluster_name\":\"stub\",\"version\":{\"number\":\"5.6.3\"}}";
+
+    private static final String HEALTH = "{\"cluster_name\":\"stub\",\"status\":\"green\",\"number_of_nodes\":1}";
+
+    private static final String ACKNOWLEDGED = "{\"acknowledged\":true}";
+
+    private static final String BULK_OK = "{\"took\":1,\"errors\":false,\"items\":[]}";
+
+    private final Vertx vertx;
+
+    private final long latency;
+
+    private final double tooManyRequests;
+
+    private final double serverErrors;
+
+    private final LongAdder documents = new LongAdder();
+
+    private final LongAdder bulkRequests = new LongAdder();
+
+    private final LongAdder rejectedRequests = new LongAdder();
+
+    private final LongAdder bytes = new LongAdder();
+
+    private HttpServer server;
+
+    /**
+     * @param latency the time taken to answer a bulk request, in milliseconds
+     * @param tooManyRequests the share of bulk requests rejected with a 429, between 0 and 1
+     * @param serverErrors the share of bulk requests rejected with a 503, between 0 and 1
+     */
+    public StubElasticsearch(Vertx vertx, long latency, double tooManyRequests, double serverErrors) {
+        this.vertx = vertx;
+        this.latency = latency;
+        this.tooManyRequests = tooManyRequests;
+        this.serverErrors = serverErrors;
+    }
+
+    /**
+     * @return the port the server listens to
+     */
+    public int start() throws Exception {
+        final CompletableFuture<HttpServer> started = new CompletableFuture<>();
+
+        vertx.createHttpServer(new HttpServerOptions().setDecompressionSupported(true))
+                .requestHandler(request -> request.bodyHandler(body -> handle(request, body)))
+                .listen(0, "localhost", result -> {
+                    if (result.succeeded()) {
+                        started.complete(result.result());
+                    } else {
+                        started.completeExceptionally(result.cause());
+                    }
+                });
+
+        server = started.get(10, TimeUnit.SECONDS);
+        return server.actualPort();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    private void handle(HttpServerRequest request, Buffer body) {
+        final String path = request.path();
+
+        if (request.method() == HttpMethod.POST && path.endsWith("/_bulk")) {
+            bulk(request, body);
+        } else if (request.method() == HttpMethod.PUT) {
+            end(request, 200, ACKNOWLEDGED);
+        } else if (path.startsWith("/_cluster/health")) {
+            end(request, 200, HEALTH);
+        } else if ("/".equals(path)) {
+            end(request, 200, VERSION);
+        } else {
+            end(request, 404, "{}");
+        }
+    }
+
+    private void bulk(HttpServerRequest request, Buffer body) {
+        bulkRequests.increment();
+        bytes.add(body.length());
+
+        final double draw = ThreadLocalRandom.current().nextDouble();
+        final int status;
+        if (draw < tooManyRequests) {
+            status = 429;
+        } else if (draw < tooManyRequests + serverErrors) {
+            status = 503;
+        } else {
+            status = 200;
+        }
+
+        if (status == 200) {
+            documents.add(lines(body) / 2);
+        } else {
+            rejectedRequests.increment();
+        }
+
+        final String response = status == 200 ? BULK_OK : "{\"error\":\"stub rejection\",\"status\":" + status + "}";
+        if (latency > 0) {
+            vertx.setTimer(latency, timerId -> end(request, status, response));
+        } else {
+            end(request, status, response);
+        }
+    }
+
+    private static long lines(Buffer body) {
+        long lines = 0;
+        for (int i = 0; i < body.length(); i++) {
+            if (body.getByte(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    private static void end(HttpServerRequest request, int status, String body) {
+        request.response()
+                .setStatusCode(status)
+                .putHeader("Content-Type", "application/json; charset=UTF-8")
+                .end(body);
+    }
+
+    public long getDocuments() {
+        return documents.sum();
+    }
+
+    public long getBulkRequests() {
+        return bulkRequests.sum();
+    }
+
+    public long getRejectedRequests() {
+        return rejectedRequests.sum();
+    }
+
+    public long getBytes() {
+        return bytes.sum();
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.templating.freemarker;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import io.gravitee.reporter.elastic.benchmark.Reportables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rendering a document from its FreeMarker template.
+ *
+ * <ul>
+ *     <li><code>lookup</code>: the template looked up in the template cache and rendered into a new
+ *     <code>StringWriter</code>, as the component did</li>
+ *     <li><code>resolved</code>: the template pre-resolved at startup and rendered into a new
+ *     <code>StringWriter</code></li>
+ *     <li><code>render</code>: the template pre-resolved at startup and rendered into the buffer of the thread,
+ *     as the component does now</li>
+ * </ul>
+ *
+ * The time is dominated by the rendering itself, the allocations tell the variants apart:
+ *
+ * <pre>java -jar target/benchmarks.jar TemplateRenderingBenchmark -prof gc</pre>
+ *
+ * @author GraviteeSource Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateRenderingBenchmark {
+
+    @Param({Reportables.HEALTH, Reportables.LOG})
+    public String type;
+
+    private AnnotationConfigApplicationContext context;
+
+    private FreeMarkerComponent freeMarkerComponent;
+
+    private Configuration configuration;
+
+    private String templateName;
+
+    private Template template;
+
+    private Map<String, Object> data;
+
+    @Setup
+    public void setup() throws IOException {
+        context = new AnnotationConfigApplicationContext(FreeMarkerComponent.class);
+        freeMarkerComponent = context.getBean(FreeMarkerComponent.class);
+
+        configuration = new Configuration(Configuration.VERSION_2_3_23);
+        configuration.setDefaultEncoding(StandardCharsets.UTF_8.name());
+        configuration.setDateFormat("iso_utc");
+        configuration.setLocale(Locale.ENGLISH);
+        configuration.setNumberFormat("computer");
+        configuration.setClassLoaderForTemplateLoading(Thread.currentThread().getContextClassLoader(), "/freemarker");
+
+        templateName = type + ".ftl";
+        template = configuration.getTemplate(templateName);
+        data = new HashMap<>();
+        data.put("index", "gravitee-2017.11.02");
+        data.put("documentType", type);
+        data.put("gateway", "b187fe8f-98fa-4aa9-87fe-8f98facaa956");
+        data.put("@timestamp", "2017-11-02T10:15:30.000+01:00");
+        if (Reportables.HEALTH.equals(type)) {
+            data.put("status", Reportables.endpointStatus());
+        } else {
+            data.put("log", Reportables.log(1024));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String lookup() throws Exception {
+        try (final StringWriter output = new StringWriter()) {
+            final Template template = configuration.getTemplate(templateName);
+            template.process(data, output);
+            return output.getBuffer().toString();
+        }
+    }
+
+    @Benchmark
+    public String resolved() throws Exception {
+        try (final StringWriter output = new StringWriter()) {
+            template.process(data, output);
+            return output.getBuffer().toString();
+        }
+    }
+
+    @Benchmark
+    public String render() {
+        return freeMarkerComponent.generateFromTemplate(templateName, data);
+    }
+}
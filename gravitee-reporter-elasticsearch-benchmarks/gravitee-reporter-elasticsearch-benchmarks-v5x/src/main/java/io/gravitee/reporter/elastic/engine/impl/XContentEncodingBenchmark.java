@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.engine.impl;
+
+import io.gravitee.reporter.api.Reportable;
+import io.gravitee.reporter.api.health.EndpointStatus;
+import io.gravitee.reporter.api.http.Metrics;
+import io.gravitee.reporter.api.log.Log;
+import io.gravitee.reporter.api.monitor.Monitor;
+import io.gravitee.reporter.elastic.benchmark.BenchmarkNode;
+import io.gravitee.reporter.elastic.benchmark.Reportables;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of encoding a reportable into an Elasticsearch 5.x document with <code>AbstractElasticReportEngine.getSource()</code>.
+ *
+ * <pre>java -jar target/benchmarks.jar XContentEncodingBenchmark -prof gc</pre>
+ *
+ * @author GraviteeSource Team
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XContentEncodingBenchmark {
+
+    @Param({Reportables.REQUEST, Reportables.LOG, Reportables.MONITOR, Reportables.HEALTH})
+    public String type;
+
+    private AbstractElasticReportEngine engine;
+
+    private Reportable reportable;
+
+    @Setup
+    public void setup() throws Exception {
+        engine = new AbstractElasticReportEngine() {
+            @Override
+            public void report(Reportable reportable) {
+            }
+
+            @Override
+            public void start() {
+            }
+
+            @Override
+            public void stop() {
+            }
+        };
+
+        final Field node = AbstractElasticReportEngine.class.getDeclaredField("node");
+        node.setAccessible(true);
+        node.set(engine, new BenchmarkNode());
+
+        reportable = Reportables.of(type);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        final XContentBuilder builder;
+
+        if (reportable instanceof Metrics) {
+            builder = engine.getSource((Metrics) reportable);
+        } else if (reportable instanceof Log) {
+            builder = engine.getSource((Log) reportable);
+        } else if (reportable instanceof Monitor) {
+            builder = engine.getSource((Monitor) reportable);
+        } else {
+            builder = engine.getSource((EndpointStatus) reportable);
+        }
+
+        return DocumentOutput.toBytes(builder);
+    }
+}
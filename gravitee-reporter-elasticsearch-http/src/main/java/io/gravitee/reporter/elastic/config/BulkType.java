@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.config;
+
+/**
+ * Bulk settings of a document type. Each document type has its own bulk requests, so that a type producing
+ * large or frequent documents does not delay the others.
+ *
+ * @author GraviteeSource Team
+ */
+public class BulkType {
+
+    private final String type;
+
+    private final int actions;
+
+    private final int size;
+
+    private final long flushInterval;
+
+    private final int concurrentRequests;
+
+    private final int queueSize;
+
+    private final int priority;
+
+    public BulkType(String type, int actions, int size, long flushInterval, int concurrentRequests,
+                    int queueSize, int priority) {
+        this.type = type;
+        this.actions = actions;
+        this.size = size;
+        this.flushInterval = flushInterval;
+        this.concurrentRequests = concurrentRequests;
+        this.queueSize = queueSize;
+        this.priority = priority;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return request actions max by bulk
+     */
+    public int getActions() {
+        return actions;
+    }
+
+    /**
+     * @return bulk max size in megabytes, a negative or zero value disables the limit
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return bulk flush interval in seconds
+     */
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    /**
+     * @return bulk requests of this type sent concurrently, within the limit shared by all the types
+     */
+    public int getConcurrentRequests() {
+        return concurrentRequests;
+    }
+
+    /**
+     * @return bulk requests of this type waiting to be sent
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * @return the bulk requests of the type with the highest priority are sent first
+     */
+    public int getPriority() {
+        return priority;
+    }
+}
@@ -15,12 +15,16 @@
  */
 package io.gravitee.reporter.elastic.config;
 
+import io.gravitee.reporter.elastic.model.OverflowPolicy;
+import io.gravitee.reporter.elastic.model.Serializer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -37,6 +41,32 @@ public class ElasticConfiguration {
 
 	private final static String DEFAULT_ELASTICSEARCH_ENDPOINT = "http://localhost:9200";
 
+	/**
+	 * Default priority of the bulk requests of each document type: request analytics first, logs last.
+	 */
+	private final static Map<String, Integer> DEFAULT_BULK_PRIORITIES = new HashMap<>();
+
+	static {
+		DEFAULT_BULK_PRIORITIES.put("request", 3);
+		DEFAULT_BULK_PRIORITIES.put("rollup", 3);
+		DEFAULT_BULK_PRIORITIES.put("health", 2);
+		DEFAULT_BULK_PRIORITIES.put("monitor", 1);
+		DEFAULT_BULK_PRIORITIES.put("reporter", 1);
+		DEFAULT_BULK_PRIORITIES.put("log", 0);
+	}
+
+	/**
+	 * Default load above which the documents of each type are shed: logs first, health checks last.
+	 */
+	private final static Map<String, Double> DEFAULT_OVERLOAD_WATERMARKS = new HashMap<>();
+
+	static {
+		DEFAULT_OVERLOAD_WATERMARKS.put("log", 0.5);
+		DEFAULT_OVERLOAD_WATERMARKS.put("request", 0.75);
+		DEFAULT_OVERLOAD_WATERMARKS.put("monitor", 0.9);
+		DEFAULT_OVERLOAD_WATERMARKS.put("health", 1.0);
+	}
+
 	@Autowired
 	private Environment environment;
 	
@@ -58,6 +88,188 @@ public class ElasticConfiguration {
 	@Value("${reporters.elasticsearch.bulk.flush_interval:1}")
 	private Long flushInterval;
 
+	/**
+	 * Bulk max size in megabytes, a negative or zero value disables the limit
+	 */
+	@Value("${reporters.elasticsearch.bulk.size:5}")
+	private Integer bulkSize;
+
+	/**
+	 * Bulk requests sent concurrently
+	 */
+	@Value("${reporters.elasticsearch.bulk.concurrent_requests:5}")
+	private Integer concurrentRequests;
+
+	/**
+	 * Bulk requests waiting for one of the concurrent requests to complete
+	 */
+	@Value("${reporters.elasticsearch.bulk.queue_size:10}")
+	private Integer queueSize;
+
+	/**
+	 * Policy applied once the queue of bulk requests is full
+	 */
+	@Value("${reporters.elasticsearch.bulk.overflow_policy:BLOCK}")
+	private OverflowPolicy overflowPolicy;
+
+	/**
+	 * Adapt the number of actions and the flush interval of the bulk requests to the latency and the rejections
+	 * of Elasticsearch
+	 */
+	@Value("${reporters.elasticsearch.bulk.adaptive.enabled:false}")
+	private boolean bulkAdaptive;
+
+	/**
+	 * Minimum number of actions of an adaptive bulk request, also the step by which it grows
+	 */
+	@Value("${reporters.elasticsearch.bulk.adaptive.min_actions:100}")
+	private Integer bulkAdaptiveMinActions;
+
+	/**
+	 * Maximum number of actions of an adaptive bulk request
+	 */
+	@Value("${reporters.elasticsearch.bulk.adaptive.max_actions:10000}")
+	private Integer bulkAdaptiveMaxActions;
+
+	/**
+	 * Maximum flush interval of the adaptive bulk requests in seconds
+	 */
+	@Value("${reporters.elasticsearch.bulk.adaptive.max_flush_interval:30}")
+	private Long bulkAdaptiveMaxFlushInterval;
+
+	/**
+	 * Round-trip time of a bulk request above which the bulk requests are shrunk, in milliseconds
+	 */
+	@Value("${reporters.elasticsearch.bulk.adaptive.target_latency:1000}")
+	private Long bulkAdaptiveTargetLatency;
+
+	/**
+	 * Number of threads encoding the reportables, 0 to encode them on the calling thread
+	 */
+	@Value("${reporters.elasticsearch.encoder.workers:0}")
+	private Integer encoderWorkers;
+
+	/**
+	 * Maximum number of reportables waiting to be encoded
+	 */
+	@Value("${reporters.elasticsearch.encoder.queue_size:10000}")
+	private Integer encoderQueueSize;
+
+	/**
+	 * Timeout of the bulk requests in milliseconds
+	 */
+	@Value("${reporters.elasticsearch.http.timeout:10000}")
+	private Long requestTimeout;
+
+	/**
+	 * Gzip the body of the bulk requests
+	 */
+	@Value("${reporters.elasticsearch.http.compression:false}")
+	private boolean compression;
+
+	/**
+	 * Delay between two calls to an unavailable endpoint in milliseconds
+	 */
+	@Value("${reporters.elasticsearch.http.probe_interval:5000}")
+	private Long probeInterval;
+
+	/**
+	 * Directory of the documents spooled when the overflow policy is SPILL, required with this policy since each
+	 * gateway needs its own directory
+	 */
+	@Value("${reporters.elasticsearch.spool.path:#{null}}")
+	private String spoolPath;
+
+	/**
+	 * Size of a spool segment file in MB
+	 */
+	@Value("${reporters.elasticsearch.spool.segment_size:16}")
+	private Integer spoolSegmentSize;
+
+	/**
+	 * Maximum size of the spool in MB
+	 */
+	@Value("${reporters.elasticsearch.spool.max_size:1024}")
+	private Long spoolMaxSize;
+
+	/**
+	 * Number of times a document rejected by Elasticsearch is sent again
+	 */
+	@Value("${reporters.elasticsearch.bulk.retry.max_retries:3}")
+	private Integer retryMaxRetries;
+
+	/**
+	 * Delay before the first retry in milliseconds
+	 */
+	@Value("${reporters.elasticsearch.bulk.retry.initial_backoff:500}")
+	private Long retryInitialBackoff;
+
+	/**
+	 * Maximum delay between two retries in milliseconds
+	 */
+	@Value("${reporters.elasticsearch.bulk.retry.max_backoff:30000}")
+	private Long retryMaxBackoff;
+
+	/**
+	 * Discover the Elasticsearch nodes from the cluster
+	 */
+	@Value("${reporters.elasticsearch.sniffer.enabled:false}")
+	private boolean snifferEnabled;
+
+	/**
+	 * Delay between two discoveries of the Elasticsearch nodes in milliseconds
+	 */
+	@Value("${reporters.elasticsearch.sniffer.interval:60000}")
+	private Long snifferInterval;
+
+	/**
+	 * Expose the metrics of the reporter over JMX
+	 */
+	@Value("${reporters.elasticsearch.metrics.jmx:true}")
+	private boolean metricsJmx;
+
+	/**
+	 * Delay between two documents reporting the metrics of the reporter in milliseconds, 0 to disable them
+	 */
+	@Value("${reporters.elasticsearch.metrics.report_interval:0}")
+	private Long metricsReportInterval;
+
+	/**
+	 * Shed the documents by type when the reporter is overloaded
+	 */
+	@Value("${reporters.elasticsearch.overload.enabled:false}")
+	private boolean overloadEnabled;
+
+	/**
+	 * Delay between two samples of the load of the reporter in milliseconds
+	 */
+	@Value("${reporters.elasticsearch.overload.check_interval:500}")
+	private Long overloadCheckInterval;
+
+	/**
+	 * Sample the request metrics above their watermark instead of shedding them all
+	 */
+	@Value("${reporters.elasticsearch.overload.sampling:true}")
+	private boolean overloadSampling;
+
+	/**
+	 * Aggregate the request metrics into rollup documents
+	 */
+	@Value("${reporters.elasticsearch.rollup.enabled:false}")
+	private boolean rollupEnabled;
+
+	/**
+	 * Window of the rollup documents in seconds
+	 */
+	@Value("${reporters.elasticsearch.rollup.interval:10}")
+	private Long rollupInterval;
+
+	/**
+	 * Index the request metrics as well as their rollup documents
+	 */
+	@Value("${reporters.elasticsearch.rollup.raw:true}")
+	private boolean rollupRaw;
+
 	/**
 	 * Elasticsearch basic oauth login.
 	 */
@@ -87,6 +299,12 @@ public class ElasticConfiguration {
 	@Value("${reporters.elasticsearch.settings.number_of_replicas:1}")
 	private int numberOfReplicas;
 
+	/**
+	 * Serializer used to build the bulk lines
+	 */
+	@Value("${reporters.elasticsearch.serializer:JACKSON}")
+	private Serializer serializer;
+
 	/**
 	 * Elasticsearch endpoints
 	 */
@@ -100,6 +318,37 @@ public class ElasticConfiguration {
 		return endpoints;
 	}
 
+	/**
+	 * Bulk settings of a document type, read from <code>reporters.elasticsearch.bulk.types.&lt;type&gt;</code>.
+	 * The settings which are not defined for the type are the ones of <code>reporters.elasticsearch.bulk</code>.
+	 *
+	 * @param type the document type
+	 * @return the bulk settings of the type
+	 */
+	public BulkType getBulkType(String type) {
+		final String prefix = "reporters.elasticsearch.bulk.types." + type + '.';
+
+		return new BulkType(type,
+				environment.getProperty(prefix + "actions", Integer.class, bulkActions),
+				environment.getProperty(prefix + "size", Integer.class, bulkSize),
+				environment.getProperty(prefix + "flush_interval", Long.class, flushInterval),
+				environment.getProperty(prefix + "concurrent_requests", Integer.class, concurrentRequests),
+				environment.getProperty(prefix + "queue_size", Integer.class, queueSize),
+				environment.getProperty(prefix + "priority", Integer.class, DEFAULT_BULK_PRIORITIES.getOrDefault(type, 0)));
+	}
+
+	/**
+	 * Load above which the documents of a type are shed, read from
+	 * <code>reporters.elasticsearch.overload.watermarks.&lt;type&gt;</code>.
+	 *
+	 * @param type the document type
+	 * @return the watermark, between 0 and 1
+	 */
+	public double getOverloadWatermark(String type) {
+		return environment.getProperty("reporters.elasticsearch.overload.watermarks." + type, Double.class,
+				DEFAULT_OVERLOAD_WATERMARKS.getOrDefault(type, 1.0));
+	}
+
     public void setEndpoints(List<Endpoint> endpoints) {
         this.endpoints = endpoints;
     }
@@ -116,6 +365,308 @@ public class ElasticConfiguration {
 		return flushInterval;
 	}
 
+	public Integer getBulkSize() {
+		return bulkSize;
+	}
+
+	public void setBulkSize(Integer bulkSize) {
+		this.bulkSize = bulkSize;
+	}
+
+	public Integer getConcurrentRequests() {
+		return concurrentRequests;
+	}
+
+	public void setConcurrentRequests(Integer concurrentRequests) {
+		this.concurrentRequests = concurrentRequests;
+	}
+
+	public Integer getQueueSize() {
+		return queueSize;
+	}
+
+	public void setQueueSize(Integer queueSize) {
+		this.queueSize = queueSize;
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	public String getSpoolPath() {
+		return spoolPath;
+	}
+
+	public void setSpoolPath(String spoolPath) {
+		this.spoolPath = spoolPath;
+	}
+
+	public Integer getSpoolSegmentSize() {
+		return spoolSegmentSize;
+	}
+
+	public void setSpoolSegmentSize(Integer spoolSegmentSize) {
+		this.spoolSegmentSize = spoolSegmentSize;
+	}
+
+	public Long getSpoolMaxSize() {
+		return spoolMaxSize;
+	}
+
+	public void setSpoolMaxSize(Long spoolMaxSize) {
+		this.spoolMaxSize = spoolMaxSize;
+	}
+
+	public Integer getEncoderWorkers() {
+		return encoderWorkers;
+	}
+
+	public void setEncoderWorkers(Integer encoderWorkers) {
+		this.encoderWorkers = encoderWorkers;
+	}
+
+	public Integer getEncoderQueueSize() {
+		return encoderQueueSize;
+	}
+
+	public void setEncoderQueueSize(Integer encoderQueueSize) {
+		this.encoderQueueSize = encoderQueueSize;
+	}
+
+	public Long getRequestTimeout() {
+		return requestTimeout;
+	}
+
+	public void setRequestTimeout(Long requestTimeout) {
+		this.requestTimeout = requestTimeout;
+	}
+
+	public boolean isCompression() {
+		return compression;
+	}
+
+	public void setCompression(boolean compression) {
+		this.compression = compression;
+	}
+
+	public Long getProbeInterval() {
+		return probeInterval;
+	}
+
+	public void setProbeInterval(Long probeInterval) {
+		this.probeInterval = probeInterval;
+	}
+
+	public boolean isSnifferEnabled() {
+		return snifferEnabled;
+	}
+
+	public void setSnifferEnabled(boolean snifferEnabled) {
+		this.snifferEnabled = snifferEnabled;
+	}
+
+	public Long getSnifferInterval() {
+		return snifferInterval;
+	}
+
+	public void setSnifferInterval(Long snifferInterval) {
+		this.snifferInterval = snifferInterval;
+	}
+
+	public boolean isMetricsJmx() {
+		return metricsJmx;
+	}
+
+	public void setMetricsJmx(boolean metricsJmx) {
+		this.metricsJmx = metricsJmx;
+	}
+
+	public Long getMetricsReportInterval() {
+		return metricsReportInterval;
+	}
+
+	public void setMetricsReportInterval(Long metricsReportInterval) {
+		this.metricsReportInterval = metricsReportInterval;
+	}
+
+	public boolean isBulkAdaptive() {
+		return bulkAdaptive;
+	}
+
+	public Integer getBulkAdaptiveMinActions() {
+		return bulkAdaptiveMinActions;
+	}
+
+	public Integer getBulkAdaptiveMaxActions() {
+		return bulkAdaptiveMaxActions;
+	}
+
+	public Long getBulkAdaptiveMaxFlushInterval() {
+		return bulkAdaptiveMaxFlushInterval;
+	}
+
+	public Long getBulkAdaptiveTargetLatency() {
+		return bulkAdaptiveTargetLatency;
+	}
+
+	public void setBulkAdaptive(boolean bulkAdaptive) {
+		this.bulkAdaptive = bulkAdaptive;
+	}
+
+	public void setBulkAdaptiveMinActions(Integer bulkAdaptiveMinActions) {
+		this.bulkAdaptiveMinActions = bulkAdaptiveMinActions;
+	}
+
+	public void setBulkAdaptiveMaxActions(Integer bulkAdaptiveMaxActions) {
+		this.bulkAdaptiveMaxActions = bulkAdaptiveMaxActions;
+	}
+
+	public void setBulkAdaptiveMaxFlushInterval(Long bulkAdaptiveMaxFlushInterval) {
+		this.bulkAdaptiveMaxFlushInterval = bulkAdaptiveMaxFlushInterval;
+	}
+
+	public void setBulkAdaptiveTargetLatency(Long bulkAdaptiveTargetLatency) {
+		this.bulkAdaptiveTargetLatency = bulkAdaptiveTargetLatency;
+	}
+
+	public boolean isOverloadEnabled() {
+		return overloadEnabled;
+	}
+
+	public void setOverloadEnabled(boolean overloadEnabled) {
+		this.overloadEnabled = overloadEnabled;
+	}
+
+	public Long getOverloadCheckInterval() {
+		return overloadCheckInterval;
+	}
+
+	public void setOverloadCheckInterval(Long overloadCheckInterval) {
+		this.overloadCheckInterval = overloadCheckInterval;
+	}
+
+	public boolean isOverloadSampling() {
+		return overloadSampling;
+	}
+
+	public void setOverloadSampling(boolean overloadSampling) {
+		this.overloadSampling = overloadSampling;
+	}
+
+	public boolean isRollupEnabled() {
+		return rollupEnabled;
+	}
+
+	public void setRollupEnabled(boolean rollupEnabled) {
+		this.rollupEnabled = rollupEnabled;
+	}
+
+	public Long getRollupInterval() {
+		return rollupInterval;
+	}
+
+	public void setRollupInterval(Long rollupInterval) {
+		this.rollupInterval = rollupInterval;
+	}
+
+	public boolean isRollupRaw() {
+		return rollupRaw;
+	}
+
+	public void setRollupRaw(boolean rollupRaw) {
+		this.rollupRaw = rollupRaw;
+	}
+
+	public Integer getRetryMaxRetries() {
+		return retryMaxRetries;
+	}
+
+	public void setRetryMaxRetries(Integer retryMaxRetries) {
+		this.retryMaxRetries = retryMaxRetries;
+	}
+
+	public Long getRetryInitialBackoff() {
+		return retryInitialBackoff;
+	}
+
+	public void setRetryInitialBackoff(Long retryInitialBackoff) {
+		this.retryInitialBackoff = retryInitialBackoff;
+	}
+
+	public Long getRetryMaxBackoff() {
+		return retryMaxBackoff;
+	}
+
+	public void setRetryMaxBackoff(Long retryMaxBackoff) {
+		this.retryMaxBackoff = retryMaxBackoff;
+	}
+
+	/**
+	 * Get the fields of the documents of a type, read from
+	 * <code>reporters.elasticsearch.fields.&lt;type&gt;.{include,exclude,omit_nulls}</code>.
+	 *
+	 * @param type the document type
+	 * @return the fields of the documents of this type
+	 */
+	public FieldProfile getFieldProfile(String type) {
+		final String prefix = "reporters.elasticsearch.fields." + type + ".";
+
+		return new FieldProfile(
+				getList(prefix + "include"),
+				getList(prefix + "exclude"),
+				environment.getProperty(prefix + "omit_nulls", Boolean.class,
+						environment.getProperty("reporters.elasticsearch.fields.omit_nulls", Boolean.class, false)));
+	}
+
+	/**
+	 * Get the maximum size of the bodies of a section of the logs, read from
+	 * <code>reporters.elasticsearch.log.&lt;section&gt;.max_body_size</code>, or else from
+	 * <code>reporters.elasticsearch.log.max_body_size</code>.
+	 *
+	 * @param section the section of the logs, <code>client-request</code> for example
+	 * @return the maximum size in bytes, unlimited if zero or negative
+	 */
+	public int getLogMaxBodySize(String section) {
+		return getLogSize(section, "max_body_size");
+	}
+
+	/**
+	 * Get the maximum size of the headers of a section of the logs, read from
+	 * <code>reporters.elasticsearch.log.&lt;section&gt;.max_headers_size</code>, or else from
+	 * <code>reporters.elasticsearch.log.max_headers_size</code>.
+	 *
+	 * @param section the section of the logs, <code>client-request</code> for example
+	 * @return the maximum size in bytes, unlimited if zero or negative
+	 */
+	public int getLogMaxHeadersSize(String section) {
+		return getLogSize(section, "max_headers_size");
+	}
+
+	public boolean isLogHashTruncated() {
+		return environment.getProperty("reporters.elasticsearch.log.hash_truncated", Boolean.class, false);
+	}
+
+	private int getLogSize(String section, String size) {
+		return environment.getProperty("reporters.elasticsearch.log." + section + "." + size, Integer.class,
+				environment.getProperty("reporters.elasticsearch.log." + size, Integer.class, 0));
+	}
+
+	private List<String> getList(String property) {
+		final List<String> values = new ArrayList<>();
+
+		String key = String.format("%s[%s]", property, 0);
+		while (environment.containsProperty(key)) {
+			values.add(environment.getProperty(key));
+			key = String.format("%s[%s]", property, values.size());
+		}
+
+		return values;
+	}
+
 	public String getIndexName() {
 		return indexName;
 	}
@@ -170,4 +721,12 @@ public class ElasticConfiguration {
 	public void setNumberOfReplicas(int numberOfReplicas) {
 		this.numberOfReplicas = numberOfReplicas;
 	}
+
+	public Serializer getSerializer() {
+		return serializer;
+	}
+
+	public void setSerializer(Serializer serializer) {
+		this.serializer = serializer;
+	}
 }
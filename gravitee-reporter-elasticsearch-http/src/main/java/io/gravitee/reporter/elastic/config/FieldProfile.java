@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.config;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Fields written in the documents of a type. Documents can be slimmed down by only writing the fields which are
+ * actually queried, and by omitting the fields without value.
+ *
+ * The <code>gateway</code> and <code>@timestamp</code> fields are always written.
+ *
+ * @author GraviteeSource Team
+ */
+public class FieldProfile {
+
+    private static final Set<String> MANDATORY_FIELDS = new HashSet<>(Arrays.asList("gateway", "@timestamp"));
+
+    /**
+     * Profile writing all the fields, and keeping the <code>null</code> values.
+     */
+    public static final FieldProfile ALL = new FieldProfile(Collections.emptyList(), Collections.emptyList(), false);
+
+    private final Set<String> includes;
+
+    private final Set<String> excludes;
+
+    private final boolean omitNulls;
+
+    /**
+     * @param includes the fields to write, all of them when empty
+     * @param excludes the fields not to write
+     * @param omitNulls omit the fields without value instead of writing <code>null</code>
+     */
+    public FieldProfile(Collection<String> includes, Collection<String> excludes, boolean omitNulls) {
+        this.includes = new HashSet<>(includes);
+        this.excludes = new HashSet<>(excludes);
+        this.omitNulls = omitNulls;
+    }
+
+    /**
+     * @param field the name of a top-level field of the document
+     * @return <code>true</code> if the field is written
+     */
+    public boolean accepts(String field) {
+        if (MANDATORY_FIELDS.contains(field)) {
+            return true;
+        }
+
+        return (includes.isEmpty() || includes.contains(field)) && !excludes.contains(field);
+    }
+
+    /**
+     * @param field the name of a top-level field of the document
+     * @param value the value of the field
+     * @return <code>true</code> if the field is written with this value
+     */
+    public boolean accepts(String field, Object value) {
+        return (value != null || !omitNulls) && accepts(field);
+    }
+
+    public boolean isOmitNulls() {
+        return omitNulls;
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.engine.impl;
+
+import io.gravitee.reporter.api.Reportable;
+import io.vertx.reactivex.core.buffer.Buffer;
+
+/**
+ * Convert a reportable into an ES bulk line.
+ *
+ * @author GraviteeSource Team
+ */
+@FunctionalInterface
+interface DocumentEncoder<T extends Reportable> {
+
+    /**
+     * @param reportable the reportable to index
+     * @return the action line and the source line of the document
+     */
+    Buffer encode(T reportable);
+}
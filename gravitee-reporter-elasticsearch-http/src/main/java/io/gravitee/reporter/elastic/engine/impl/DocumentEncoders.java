@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.engine.impl;
+
+import io.gravitee.reporter.api.Reportable;
+import io.vertx.reactivex.core.buffer.Buffer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link DocumentEncoder} of each type of reportable, looked up by the class of the reportable.
+ *
+ * The encoders are registered before the engine starts. The encoder of a subclass of a registered type is
+ * resolved on its first report, and then read from the map like the others.
+ *
+ * @author GraviteeSource Team
+ */
+class DocumentEncoders {
+
+    /**
+     * Encoder of the reportables which are not indexed.
+     */
+    private static final DocumentEncoder<Reportable> NONE = reportable -> null;
+
+    private final Map<Class<?>, DocumentEncoder<Reportable>> registered = new HashMap<>();
+
+    /**
+     * Encoders by class of reportable, registered or resolved.
+     */
+    private final Map<Class<?>, DocumentEncoder<Reportable>> encoders = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    <T extends Reportable> DocumentEncoders register(Class<T> type, DocumentEncoder<? super T> encoder) {
+        registered.put(type, (DocumentEncoder<Reportable>) encoder);
+        encoders.clear();
+        encoders.putAll(registered);
+        return this;
+    }
+
+    /**
+     * @param reportable the reportable to index
+     * @return the ES bulk line, or <code>null</code> if this type of reportable is not indexed
+     */
+    Buffer encode(Reportable reportable) {
+        DocumentEncoder<Reportable> encoder = encoders.get(reportable.getClass());
+
+        if (encoder == null) {
+            encoder = encoders.computeIfAbsent(reportable.getClass(), this::lookup);
+        }
+
+        return encoder.encode(reportable);
+    }
+
+    /**
+     * Find the encoder of a subclass of a registered type.
+     */
+    private DocumentEncoder<Reportable> lookup(Class<?> type) {
+        for (Map.Entry<Class<?>, DocumentEncoder<Reportable>> entry : registered.entrySet()) {
+            if (entry.getKey().isAssignableFrom(type)) {
+                return entry.getValue();
+            }
+        }
+        return NONE;
+    }
+}
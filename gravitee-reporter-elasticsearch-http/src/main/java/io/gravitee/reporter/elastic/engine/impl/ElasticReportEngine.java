@@ -22,22 +22,43 @@ import io.gravitee.reporter.api.http.Metrics;
 import io.gravitee.reporter.api.log.Log;
 import io.gravitee.reporter.api.monitor.Monitor;
 import io.gravitee.reporter.elastic.config.ElasticConfiguration;
+import io.gravitee.reporter.elastic.config.FieldProfile;
 import io.gravitee.reporter.elastic.config.PipelineConfiguration;
 import io.gravitee.reporter.elastic.engine.ReportEngine;
+import io.gravitee.reporter.elastic.indexer.DocumentBuffers;
 import io.gravitee.reporter.elastic.indexer.ElasticsearchBulkIndexer;
+import io.gravitee.reporter.elastic.metrics.HistogramMetric;
+import io.gravitee.reporter.elastic.metrics.JmxMetricsExporter;
+import io.gravitee.reporter.elastic.metrics.ReporterMetrics;
+import io.gravitee.reporter.elastic.model.Serializer;
+import io.gravitee.reporter.elastic.rollup.MetricsRollup;
+import io.gravitee.reporter.elastic.rollup.RequestRollup;
+import io.gravitee.reporter.elastic.serializer.LogSerializer;
+import io.gravitee.reporter.elastic.serializer.MetricsSerializer;
+import io.gravitee.reporter.elastic.serializer.MonitorSerializer;
+import io.gravitee.reporter.elastic.serializer.ReporterMetricsSerializer;
+import io.gravitee.reporter.elastic.serializer.RollupSerializer;
 import io.gravitee.reporter.elastic.templating.freemarker.FreeMarkerComponent;
-import io.reactivex.Flowable;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.buffer.Buffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Elasticsearch report engine. 
@@ -57,6 +78,8 @@ public final class ElasticReportEngine implements ReportEngine {
 	private final static String TYPE_HEALTH = "health";
 	private final static String TYPE_MONITOR = "monitor";
 	private final static String TYPE_LOG = "log";
+	private final static String TYPE_REPORTER = "reporter";
+	private final static String TYPE_ROLLUP = "rollup";
 
 	/**
 	 * Component that aggregate lines into bulk request.
@@ -85,10 +108,76 @@ public final class ElasticReportEngine implements ReportEngine {
 	@Autowired
 	private Node node;
 
+	/**
+	 * Metrics of the reporter.
+	 */
+	@Autowired
+	private ReporterMetrics reporterMetrics;
+
+	private JmxMetricsExporter jmxExporter;
+
+	private LongAdder reportedDocuments;
+
+	@Autowired
+	private Vertx vertx;
+
+	private ReporterMetricsSerializer reporterMetricsSerializer;
+
+	private long metricsReportTimer = -1;
+
 	/** Index simple date format **/
 	private DateTimeFormatter sdf;
 	private DateTimeFormatter dtf;
 
+	private MetricsSerializer metricsSerializer;
+	private MonitorSerializer monitorSerializer;
+	private LogSerializer logSerializer;
+
+	/**
+	 * Fields written in the documents of each type.
+	 */
+	private FieldProfile requestProfile = FieldProfile.ALL;
+	private FieldProfile logProfile = FieldProfile.ALL;
+	private FieldProfile healthProfile = FieldProfile.ALL;
+
+	/**
+	 * Caps of the bodies and of the headers of the logs.
+	 */
+	private LogTruncator logTruncator = LogTruncator.NONE;
+
+	/**
+	 * Encoder of each type of reportable.
+	 */
+	private DocumentEncoders documentEncoders;
+
+	/**
+	 * Threads encoding the reportables, if enabled.
+	 */
+	private EncoderWorkers encoderWorkers;
+
+	/**
+	 * Shedding of the reportables when the reporter is overloaded, if enabled.
+	 */
+	private OverloadController overloadController;
+
+	private long overloadTimer = -1;
+
+	/**
+	 * Aggregation of the request metrics into rollup documents, if enabled.
+	 */
+	private MetricsRollup metricsRollup;
+
+	private RollupSerializer rollupSerializer;
+
+	private LongAdder rollupDocuments;
+
+	private long rollupTimer = -1;
+
+	/**
+	 * Output buffer reused by the serializers of the calling thread.
+	 */
+	private final ThreadLocal<ByteBuf> outputBuffers = ThreadLocal.withInitial(() -> Unpooled.buffer(1024));
+
 	private static String hostname;
 
 	static {
@@ -109,22 +198,123 @@ public final class ElasticReportEngine implements ReportEngine {
 	 */
 	@Override
 	public void report(Reportable reportable) {
-		Flowable
-				.just(reportable)
-				.flatMap(reportable1 -> {
-                    if (reportable1 instanceof Metrics) {
-						return Flowable.just(getSource((Metrics) reportable1, pipelineConfiguration.getPipeline()));
-                    } else if (reportable1 instanceof EndpointStatus) {
-                        return Flowable.just(getSource((EndpointStatus) reportable1));
-                    } else if (reportable1 instanceof Monitor) {
-                        return Flowable.just(getSource((Monitor) reportable1));
-                    } else if (reportable1 instanceof Log) {
-						return Flowable.just(getSource((Log) reportable1));
-					}
+		// Rollups are never shed: they stay exact even when the request metrics are shed by the overload controller
+		if (metricsRollup != null && reportable instanceof Metrics) {
+			metricsRollup.record((Metrics) reportable);
+			if (!configuration.isRollupRaw()) {
+				return;
+			}
+		}
+
+		if (overloadController != null && !overloadController.admit(reportable)) {
+			return;
+		}
+
+		if (encoderWorkers != null) {
+			encoderWorkers.submit(reportable);
+		} else {
+			encode(reportable);
+		}
+	}
+
+	/**
+	 * Convert a reportable into an ES bulk line, and give it to the indexer.
+	 *
+	 * @param reportable the reportable to index
+	 */
+	private void encode(Reportable reportable) {
+		documentEncoders.encode(reportable);
+	}
+
+	/**
+	 * @return the occupancy of the queues of the reporter, between 0 and 1
+	 */
+	private double getLoad() {
+		double load = elasticsearch.getLoad();
+
+		if (encoderWorkers != null && configuration.getEncoderQueueSize() > 0) {
+			load = Math.max(load, (double) encoderWorkers.getPending() / configuration.getEncoderQueueSize());
+		}
 
-                    return Flowable.never();
-                })
-				.forEach(data -> elasticsearch.index(data));
+		return Math.min(1, load);
+	}
+
+	/**
+	 * Index the metrics of the reporter, so that the lag of the reporter can be followed next to the load of
+	 * the gateways.
+	 */
+	private void reportMetrics() {
+		final Instant now = Instant.now();
+		final ByteBuf output = DocumentBuffers.allocate(4096);
+
+		try {
+			reporterMetricsSerializer.write(reporterMetrics.reportSnapshot(), getIndexName(now), now,
+					new ByteBufOutputStream(output));
+		} catch (IOException ioe) {
+			LOGGER.error("Unexpected error while serializing reporter metrics", ioe);
+			output.release();
+			return;
+		}
+
+		elasticsearch.index(TYPE_REPORTER, DocumentBuffers.wrap(output));
+	}
+
+	/**
+	 * Index the rollups of the window which just ended.
+	 */
+	private void reportRollups() {
+		for (RequestRollup rollup : metricsRollup.drain(Instant.now())) {
+			final ByteBuf output = DocumentBuffers.allocate(1024);
+
+			try {
+				rollupSerializer.write(rollup, getIndexName(rollup.getStart()), new ByteBufOutputStream(output));
+			} catch (IOException ioe) {
+				LOGGER.error("Unexpected error while serializing a rollup of request metrics", ioe);
+				output.release();
+				continue;
+			}
+
+			rollupDocuments.increment();
+			elasticsearch.index(TYPE_ROLLUP, DocumentBuffers.wrap(output));
+		}
+	}
+
+	/**
+	 * Give the ES bulk lines of a type of reportable to the bulk requests of this type.
+	 *
+	 * @param type the document type
+	 * @param encoder the encoder of the reportables of this type
+	 * @return the encoder indexing the bulk lines
+	 */
+	private <T extends Reportable> DocumentEncoder<T> indexed(String type, DocumentEncoder<T> encoder) {
+		return reportable -> {
+			final Buffer data = encoder.encode(reportable);
+			if (data != null) {
+				reportedDocuments.increment();
+				elasticsearch.index(type, data);
+			}
+			return data;
+		};
+	}
+
+	/**
+	 * Record the time taken to encode each type of reportable, in microseconds.
+	 *
+	 * @param type the document type
+	 * @param encoder the encoder of the reportables of this type
+	 * @return the timed encoder
+	 */
+	private <T extends Reportable> DocumentEncoder<T> timed(String type, DocumentEncoder<T> encoder) {
+		final HistogramMetric encodingTime = reporterMetrics.histogram("encoder." + type + ".time_us");
+
+		return reportable -> {
+			final long start = System.nanoTime();
+			try {
+				return encoder.encode(reportable);
+			} finally {
+				encodingTime.record((System.nanoTime() - start) / 1000);
+			}
+		};
 	}
 
 	/**
@@ -133,12 +323,24 @@ public final class ElasticReportEngine implements ReportEngine {
 	 * @param metrics A request metrics
 	 * @return ES bulk line
 	 */
-	private String getSource(final Metrics metrics, String pipeline) {
+	private Buffer getSource(final Metrics metrics, String pipeline) {
+		if (configuration.getSerializer() == Serializer.JACKSON) {
+			final ByteBuf output = outputBuffers.get().clear();
+			try {
+				metricsSerializer.write(metrics, this.getIndexName(metrics), pipeline, new ByteBufOutputStream(output));
+			} catch (IOException ioe) {
+				LOGGER.error("Unexpected error while serializing request metrics", ioe);
+				throw new IllegalArgumentException(ioe);
+			}
+			return DocumentBuffers.copyOf(output);
+		}
+
 		final Map<String, Object> data = new HashMap<>();
 
 		data.put("index", this.getIndexName(metrics));
 		data.put("documentType", TYPE_REQUEST);
 		data.put("metrics", metrics);
+		data.put("profile", requestProfile);
 		if (pipeline != null) {
 			data.put("pipeline", pipeline);
 		}
@@ -150,22 +352,38 @@ public final class ElasticReportEngine implements ReportEngine {
 		data.put("requestContentLength", metrics.getRequestContentLength() >= 0 ? metrics.getRequestContentLength() : null);
 		data.put("responseContentLength", metrics.getResponseContentLength() >= 0 ? metrics.getResponseContentLength() : null);
 
-		return freeMarkerComponent.generateFromTemplate("request.ftl", data);
+		return DocumentBuffers.of(freeMarkerComponent.generateFromTemplate("request.ftl", data));
 	}
 
 	/**
 	 * Convert a {@link io.gravitee.reporter.api.log.Log} into an ES bulk line.
 	 *
-	 * @param log A request log
+	 * @param original A request log
 	 * @return ES bulk line
 	 */
-	private String getSource(final Log log) {
+	private Buffer getSource(final Log original) {
+		final LogTruncator.TruncatedLog truncated = logTruncator.truncate(original);
+		final Log log = truncated.getLog();
+
+		if (configuration.getSerializer() == Serializer.JACKSON) {
+			// Written straight into the buffer of the document: a log may be too large to go through a copy
+			final ByteBuf output = DocumentBuffers.allocate(LogSerializer.estimateSize(log));
+			try {
+				logSerializer.write(truncated, this.getIndexName(log), output);
+			} catch (RuntimeException re) {
+				output.release();
+				throw re;
+			}
+			return DocumentBuffers.wrap(output);
+		}
+
 		final Map<String, Object> data = new HashMap<>();
 
 		data.put("index", this.getIndexName(log));
 		data.put("documentType", TYPE_LOG);
 
 		data.put("log", log);
+		data.put("profile", logProfile);
 		data.put(Fields.SPECIAL_TIMESTAMP, dtf.format(log.timestamp()));
 		data.put(Fields.GATEWAY, node.id());
 
@@ -173,8 +391,9 @@ public final class ElasticReportEngine implements ReportEngine {
 		data.put("clientResponse", log.getClientResponse());
 		data.put("proxyRequest", log.getProxyRequest());
 		data.put("proxyResponse", log.getProxyResponse());
+		data.put("truncated", truncated);
 
-		return freeMarkerComponent.generateFromTemplate("log.ftl", data);
+		return DocumentBuffers.of(freeMarkerComponent.generateFromTemplate("log.ftl", data));
 	}
 
 	/**
@@ -182,16 +401,17 @@ public final class ElasticReportEngine implements ReportEngine {
 	 * @param endpointStatus the healthStatus
 	 * @return ES bulk line
 	 */
-	private String getSource(final EndpointStatus endpointStatus) {
+	private Buffer getSource(final EndpointStatus endpointStatus) {
 		final Map<String, Object> data = new HashMap<>();
 
 		data.put("index", this.getIndexName(endpointStatus));
 		data.put("documentType", TYPE_HEALTH);
 		data.put("status", endpointStatus);
+		data.put("profile", healthProfile);
 		data.put(Fields.GATEWAY, this.node.id());
 		data.put(Fields.SPECIAL_TIMESTAMP, dtf.format(endpointStatus.timestamp()));
 
-		return freeMarkerComponent.generateFromTemplate("health.ftl", data);
+		return DocumentBuffers.of(freeMarkerComponent.generateFromTemplate("health.ftl", data));
 	}
 
 	/**
@@ -199,7 +419,13 @@ public final class ElasticReportEngine implements ReportEngine {
 	 * @param monitor the monitor metric
 	 * @return ES bulk line
 	 */
-	private String getSource(final Monitor monitor) {
+	private Buffer getSource(final Monitor monitor) {
+		if (configuration.getSerializer() == Serializer.JACKSON) {
+			final ByteBuf output = outputBuffers.get().clear();
+			monitorSerializer.write(monitor, this.getIndexName(monitor), output);
+			return DocumentBuffers.copyOf(output);
+		}
+
 		final Map<String, Object> data = new HashMap<>();
 
 		data.put("index", this.getIndexName(monitor));
@@ -272,7 +498,7 @@ public final class ElasticReportEngine implements ReportEngine {
 			}
 		}
 
-		return freeMarkerComponent.generateFromTemplate("monitor.ftl", data);
+		return DocumentBuffers.of(freeMarkerComponent.generateFromTemplate("monitor.ftl", data));
 	}
 
 	static final class Fields {
@@ -321,7 +547,11 @@ public final class ElasticReportEngine implements ReportEngine {
 	 * @return the ES index name
 	 */
 	private String getIndexName(Reportable reportable){
-		return String.format("%s-%s", configuration.getIndexName(), sdf.format(reportable.timestamp()));
+		return getIndexName(reportable.timestamp());
+	}
+
+	private String getIndexName(Instant timestamp){
+		return String.format("%s-%s", configuration.getIndexName(), sdf.format(timestamp));
 	}
 	
 	/**
@@ -330,8 +560,85 @@ public final class ElasticReportEngine implements ReportEngine {
 	@Override
 	public void start() throws Exception {
 		LOGGER.info("Starting Elastic reporter engine...");
-		
+
+		this.requestProfile = configuration.getFieldProfile(TYPE_REQUEST);
+		this.logProfile = configuration.getFieldProfile(TYPE_LOG);
+		this.healthProfile = configuration.getFieldProfile(TYPE_HEALTH);
+		this.logTruncator = new LogTruncator(configuration::getLogMaxBodySize, configuration::getLogMaxHeadersSize,
+				configuration.isLogHashTruncated());
+
+		this.metricsSerializer = new MetricsSerializer(node.id(), dtf, requestProfile);
+		this.monitorSerializer = new MonitorSerializer(node.id(), hostname, dtf);
+		this.logSerializer = new LogSerializer(logProfile);
+
+		this.documentEncoders = new DocumentEncoders()
+				.register(Metrics.class, indexed(TYPE_REQUEST,
+						timed(TYPE_REQUEST, metrics -> getSource(metrics, pipelineConfiguration.getPipeline()))))
+				.register(EndpointStatus.class, indexed(TYPE_HEALTH, timed(TYPE_HEALTH, this::getSource)))
+				.register(Monitor.class, indexed(TYPE_MONITOR, timed(TYPE_MONITOR, this::getSource)))
+				.register(Log.class, indexed(TYPE_LOG, timed(TYPE_LOG, this::getSource)));
+
+		this.reportedDocuments = reporterMetrics.counter("documents.reported");
+
 		this.elasticsearch.start();
+
+		if (configuration.getEncoderWorkers() > 0) {
+			this.encoderWorkers = new EncoderWorkers(
+					configuration.getEncoderWorkers(),
+					configuration.getEncoderQueueSize(),
+					this::encode);
+
+			reporterMetrics.gauge("encoder.pending", encoderWorkers::getPending);
+			reporterMetrics.gauge("encoder.dropped", encoderWorkers::getDroppedReportables);
+		}
+
+		if (configuration.isOverloadEnabled()) {
+			this.overloadController = new OverloadController(this::getLoad)
+					.register(Log.class, configuration.getOverloadWatermark(TYPE_LOG), false,
+							reporterMetrics.counter("documents.shed." + TYPE_LOG))
+					.register(Metrics.class, configuration.getOverloadWatermark(TYPE_REQUEST),
+							configuration.isOverloadSampling(), reporterMetrics.counter("documents.shed." + TYPE_REQUEST))
+					.register(Monitor.class, configuration.getOverloadWatermark(TYPE_MONITOR), false,
+							reporterMetrics.counter("documents.shed." + TYPE_MONITOR))
+					.register(EndpointStatus.class, configuration.getOverloadWatermark(TYPE_HEALTH), false,
+							reporterMetrics.counter("documents.shed." + TYPE_HEALTH));
+
+			reporterMetrics.gauge("overload.load_percent", overloadController::getLoadPercent);
+
+			this.overloadTimer = vertx.setPeriodic(configuration.getOverloadCheckInterval(),
+					timerId -> overloadController.update());
+		}
+
+		if (configuration.isRollupEnabled()) {
+			this.rollupSerializer = new RollupSerializer(node.id(), dtf);
+			this.rollupDocuments = reporterMetrics.counter("rollup.documents");
+			this.metricsRollup = new MetricsRollup(Instant.now());
+
+			reporterMetrics.gauge("rollup.keys", metricsRollup::getSize);
+
+			// Indexing may block, depending on the overflow policy
+			this.rollupTimer = vertx.setPeriodic(TimeUnit.SECONDS.toMillis(configuration.getRollupInterval()), timerId ->
+					vertx.executeBlocking(future -> {
+						reportRollups();
+						future.complete();
+					}, false, ar -> {}));
+		}
+
+		if (configuration.isMetricsJmx()) {
+			this.jmxExporter = new JmxMetricsExporter(reporterMetrics, "http");
+			this.jmxExporter.register();
+		}
+
+		if (configuration.getMetricsReportInterval() > 0) {
+			this.reporterMetricsSerializer = new ReporterMetricsSerializer(node.id(), hostname, dtf);
+
+			// Indexing may block, depending on the overflow policy
+			this.metricsReportTimer = vertx.setPeriodic(configuration.getMetricsReportInterval(), timerId ->
+					vertx.executeBlocking(future -> {
+						reportMetrics();
+						future.complete();
+					}, false, ar -> {}));
+		}
 		
 		LOGGER.info("Starting Elastic reporter engine... DONE");
 	}
@@ -343,7 +650,29 @@ public final class ElasticReportEngine implements ReportEngine {
 	public void stop() {
 		LOGGER.info("Stopping Elastic reporter engine...");
 
-		//this.elasticsearch.stop();
+		if (encoderWorkers != null) {
+			encoderWorkers.stop();
+		}
+
+		if (jmxExporter != null) {
+			jmxExporter.unregister();
+		}
+
+		if (metricsReportTimer != -1) {
+			vertx.cancelTimer(metricsReportTimer);
+		}
+
+		if (overloadTimer != -1) {
+			vertx.cancelTimer(overloadTimer);
+		}
+
+		if (rollupTimer != -1) {
+			vertx.cancelTimer(rollupTimer);
+			reportRollups();
+		}
+
+		// Once nothing is encoded anymore
+		this.elasticsearch.stop();
 
 		LOGGER.info("Stopping Elastic reporter engine... DONE");
 	}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.engine.impl;
+
+import io.gravitee.reporter.api.Reportable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Encode the reportables on dedicated threads, so that the threads of the gateway only pay for enqueuing them.
+ *
+ * The reportables are handed over through a lock-free queue, bounded by a counter: when it is full, the new
+ * reportables are dropped instead of growing the heap. Idle workers park until a reportable is enqueued.
+ *
+ * @author GraviteeSource Team
+ */
+class EncoderWorkers {
+
+    private final Logger logger = LoggerFactory.getLogger(EncoderWorkers.class);
+
+    private static final long PARK_TIMEOUT = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Queue<Reportable> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final int capacity;
+
+    private final Consumer<Reportable> encoder;
+
+    private final Worker[] workers;
+
+    private volatile boolean running = true;
+
+    private final AtomicLong droppedReportables = new AtomicLong();
+
+    /**
+     * @param workers the number of encoding threads
+     * @param capacity the maximum number of reportables waiting to be encoded
+     * @param encoder encode a reportable and give it to the indexer
+     */
+    EncoderWorkers(int workers, int capacity, Consumer<Reportable> encoder) {
+        this.capacity = Math.max(1, capacity);
+        this.encoder = encoder;
+        this.workers = new Worker[Math.max(1, workers)];
+
+        for (int i = 0; i < this.workers.length; i++) {
+            this.workers[i] = new Worker("gravitee-reporter-encoder-" + i);
+            this.workers[i].start();
+        }
+    }
+
+    /**
+     * Enqueue a reportable to encode.
+     *
+     * @return <code>false</code> if the queue is full and the reportable is dropped
+     */
+    boolean submit(Reportable reportable) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            if (droppedReportables.getAndIncrement() % capacity == 0) {
+                logger.warn("Too many reportables waiting to be encoded, {} dropped so far", droppedReportables.get());
+            }
+            return false;
+        }
+
+        queue.offer(reportable);
+
+        for (Worker worker : workers) {
+            if (worker.parked.compareAndSet(true, false)) {
+                LockSupport.unpark(worker);
+                break;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Stop the workers once the reportables already enqueued are encoded.
+     */
+    void stop() {
+        running = false;
+
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker);
+        }
+
+        for (Worker worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    int getPending() {
+        return size.get();
+    }
+
+    long getDroppedReportables() {
+        return droppedReportables.get();
+    }
+
+    private class Worker extends Thread {
+
+        private final AtomicBoolean parked = new AtomicBoolean();
+
+        Worker(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                final Reportable reportable = queue.poll();
+
+                if (reportable != null) {
+                    size.decrementAndGet();
+                    encode(reportable);
+                } else if (!running) {
+                    return;
+                } else {
+                    parked.set(true);
+                    // A reportable may have been enqueued before the flag was set
+                    if (queue.isEmpty() && running) {
+                        LockSupport.parkNanos(this, PARK_TIMEOUT);
+                    }
+                    parked.set(false);
+                }
+            }
+        }
+
+        private void encode(Reportable reportable) {
+            try {
+                encoder.accept(reportable);
+            } catch (Exception ex) {
+                logger.error("Unexpected error while encoding {}", reportable.getClass().getSimpleName(), ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.engine.impl;
+
+import io.gravitee.reporter.api.Reportable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Shed the reportables when the reporter is overloaded, the least valuable types first.
+ *
+ * The load is the occupancy of the queues of the reporter, from 0 when they are empty to 1 when the next
+ * document is dropped. It is sampled periodically so that the reporting threads only read a volatile field.
+ * Each type of reportable has a watermark: above it, its reportables are shed, or sampled at a rate
+ * decreasing from 1 at the watermark to 0 once the queues are full.
+ *
+ * @author GraviteeSource Team
+ */
+class OverloadController {
+
+    private final Logger logger = LoggerFactory.getLogger(OverloadController.class);
+
+    private final DoubleSupplier load;
+
+    private final Map<Class<?>, Policy> policies = new HashMap<>();
+
+    private double lowestWatermark = Double.MAX_VALUE;
+
+    private volatile double currentLoad;
+
+    private volatile boolean overloaded;
+
+    /**
+     * @param load the current load of the reporter, between 0 and 1
+     */
+    OverloadController(DoubleSupplier load) {
+        this.load = load;
+    }
+
+    /**
+     * Register the shedding policy of a type of reportable. Must be done before the controller is used.
+     *
+     * @param type the type of reportable
+     * @param watermark the load above which the reportables of this type are shed
+     * @param sampling sample the reportables above the watermark instead of shedding them all
+     * @param shed the counter of the shed reportables
+     */
+    OverloadController register(Class<? extends Reportable> type, double watermark, boolean sampling, LongAdder shed) {
+        policies.put(type, new Policy(watermark, sampling, shed));
+        lowestWatermark = Math.min(lowestWatermark, watermark);
+        return this;
+    }
+
+    /**
+     * Sample the load of the reporter.
+     */
+    void update() {
+        final double load = this.load.getAsDouble();
+        currentLoad = load;
+
+        if (load >= lowestWatermark != overloaded) {
+            overloaded = !overloaded;
+            if (overloaded) {
+                logger.warn("Reporter is overloaded, load is {}%: reports are shed", Math.round(load * 100));
+            } else {
+                logger.info("Reporter is not overloaded anymore, load is {}%", Math.round(load * 100));
+            }
+        }
+    }
+
+    /**
+     * @param reportable the reportable to index
+     * @return <code>false</code> if the reportable must be shed
+     */
+    boolean admit(Reportable reportable) {
+        final double load = currentLoad;
+        if (load < lowestWatermark) {
+            return true;
+        }
+
+        final Policy policy = lookup(reportable.getClass());
+        if (policy == null || load < policy.watermark) {
+            return true;
+        }
+
+        if (policy.sampling && load < 1
+                && ThreadLocalRandom.current().nextDouble() < (1 - load) / (1 - policy.watermark)) {
+            return true;
+        }
+
+        policy.shed.increment();
+        return false;
+    }
+
+    /**
+     * @return the load of the reporter in percent, as last sampled
+     */
+    long getLoadPercent() {
+        return Math.round(currentLoad * 100);
+    }
+
+    private Policy lookup(Class<?> type) {
+        final Policy policy = policies.get(type);
+        if (policy != null) {
+            return policy;
+        }
+
+        for (Map.Entry<Class<?>, Policy> entry : policies.entrySet()) {
+            if (entry.getKey().isAssignableFrom(type)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static class Policy {
+
+        private final double watermark;
+
+        private final boolean sampling;
+
+        private final LongAdder shed;
+
+        private Policy(double watermark, boolean sampling, LongAdder shed) {
+            this.watermark = watermark;
+            this.sampling = sampling && watermark < 1;
+            this.shed = shed;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import io.vertx.reactivex.core.buffer.Buffer;
+
+import java.util.List;
+
+/**
+ * The documents of a bulk request. Each buffer holds the action line and the source line of one document.
+ *
+ * @author GraviteeSource Team
+ */
+class Bulk {
+
+    /**
+     * Document type of the bulk, <code>null</code> for documents of any type.
+     */
+    private final String type;
+
+    private final List<Buffer> documents;
+
+    /**
+     * Number of times the documents have already been sent.
+     */
+    private final int attempt;
+
+    /**
+     * Called once the bulk request is done, or once the bulk is dropped, unless handed over to another bulk.
+     */
+    private Runnable acknowledgement;
+
+    Bulk(List<Buffer> documents) {
+        this(documents, 0);
+    }
+
+    Bulk(List<Buffer> documents, int attempt) {
+        this(documents, attempt, null);
+    }
+
+    Bulk(List<Buffer> documents, int attempt, Runnable acknowledgement) {
+        this(null, documents, attempt, acknowledgement);
+    }
+
+    Bulk(String type, List<Buffer> documents, int attempt) {
+        this(type, documents, attempt, null);
+    }
+
+    Bulk(String type, List<Buffer> documents, int attempt, Runnable acknowledgement) {
+        this.type = type;
+        this.documents = documents;
+        this.attempt = attempt;
+        this.acknowledgement = acknowledgement;
+    }
+
+    String getType() {
+        return type;
+    }
+
+    List<Buffer> getDocuments() {
+        return documents;
+    }
+
+    int getAttempt() {
+        return attempt;
+    }
+
+    /**
+     * The bulk request is done, or the bulk is dropped: the documents go back to the pool, unless another bulk
+     * retained them to send them again.
+     */
+    void acknowledge() {
+        DocumentBuffers.release(documents);
+
+        if (acknowledgement != null) {
+            acknowledgement.run();
+        }
+    }
+
+    /**
+     * Hand the acknowledgement over to the bulk sending some of the documents again: the documents are only done
+     * once that bulk is, the spooled ones for example must not be deleted in the meantime.
+     *
+     * @return the acknowledgement of this bulk, which is not run anymore when this bulk is acknowledged
+     */
+    Runnable handOver() {
+        final Runnable handedOver = acknowledgement;
+        acknowledgement = null;
+        return handedOver;
+    }
+
+    int size() {
+        return documents.size();
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import io.vertx.reactivex.core.buffer.Buffer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Accumulate bulk lines until the number of actions or the encoded size of the bulk reaches its limit.
+ *
+ * When adding lines would make the bulk larger than the size limit, the pending lines are flushed first
+ * so that a bulk request stays under the limit unless a single document is larger than it.
+ *
+ * @author GraviteeSource Team
+ */
+class BulkBuffer {
+
+    private int maxActions;
+
+    private final long maxBytes;
+
+    private final Consumer<List<Buffer>> flusher;
+
+    private List<Buffer> pending = new ArrayList<>();
+
+    private long pendingBytes;
+
+    /**
+     * @param maxActions the maximum number of bulk lines in a bulk request
+     * @param maxBytes the maximum size of a bulk request in bytes, disabled if negative or zero
+     * @param flusher the consumer of the bulk requests
+     */
+    BulkBuffer(int maxActions, long maxBytes, Consumer<List<Buffer>> flusher) {
+        this.maxActions = maxActions;
+        this.maxBytes = maxBytes;
+        this.flusher = flusher;
+    }
+
+    /**
+     * Change the maximum number of bulk lines of the next bulk requests.
+     */
+    synchronized void setMaxActions(int maxActions) {
+        this.maxActions = maxActions;
+    }
+
+    /**
+     * Add the bulk lines of a document, and flush when a limit is reached.
+     */
+    void add(Buffer lines) {
+        List<Buffer> overflow = null;
+        List<Buffer> full = null;
+
+        synchronized (this) {
+            if (maxBytes > 0 && !pending.isEmpty() && pendingBytes + lines.length() > maxBytes) {
+                overflow = drain();
+            }
+
+            pending.add(lines);
+            pendingBytes += lines.length();
+
+            if (pending.size() >= maxActions || (maxBytes > 0 && pendingBytes >= maxBytes)) {
+                full = drain();
+            }
+        }
+
+        // Bulk requests are sent outside of the lock
+        if (overflow != null) {
+            flusher.accept(overflow);
+        }
+        if (full != null) {
+            flusher.accept(full);
+        }
+    }
+
+    /**
+     * Flush the pending bulk lines, if any.
+     */
+    void flush() {
+        final List<Buffer> lines;
+
+        synchronized (this) {
+            lines = drain();
+        }
+
+        if (!lines.isEmpty()) {
+            flusher.accept(lines);
+        }
+    }
+
+    /**
+     * @return the number of documents waiting for the next bulk request
+     */
+    synchronized int getPending() {
+        return pending.size();
+    }
+
+    private List<Buffer> drain() {
+        if (pending.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<Buffer> lines = pending;
+        pending = new ArrayList<>(Math.min(maxActions, lines.size()));
+        pendingBytes = 0;
+        return lines;
+    }
+}
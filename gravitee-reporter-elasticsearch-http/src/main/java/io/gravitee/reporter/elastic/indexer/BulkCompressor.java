@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.vertx.reactivex.core.buffer.Buffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip the body of the bulk requests.
+ *
+ * The documents are compressed one after the other, while the body is assembled, so that the uncompressed
+ * body is never built. The bulk lines being very repetitive, the body is usually several times smaller.
+ *
+ * @author GraviteeSource Team
+ */
+class BulkCompressor {
+
+    static final String GZIP = "gzip";
+
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+
+    private final AtomicLong compressedBytes = new AtomicLong();
+
+    /**
+     * @param documents the bulk lines
+     * @return the gzipped body of the bulk request
+     */
+    Buffer compress(List<Buffer> documents) throws IOException {
+        int size = 0;
+        for (Buffer document : documents) {
+            size += document.length();
+        }
+
+        final ByteBuf output = Unpooled.buffer(Math.max(64, size / 4));
+        try (OutputStream gzip = new GZIPOutputStream(new ByteBufOutputStream(output), 8192)) {
+            for (Buffer document : documents) {
+                final ByteBuf input = document.getDelegate().getByteBuf();
+                input.readBytes(gzip, input.readableBytes());
+            }
+        }
+
+        uncompressedBytes.addAndGet(size);
+        compressedBytes.addAndGet(output.readableBytes());
+
+        return Buffer.newInstance(io.vertx.core.buffer.Buffer.buffer(output));
+    }
+
+    long getUncompressedBytes() {
+        return uncompressedBytes.get();
+    }
+
+    long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+    /**
+     * @return the uncompressed size divided by the compressed size of all the bulk bodies sent so far
+     */
+    double getCompressionRatio() {
+        final long compressed = compressedBytes.get();
+        return compressed == 0 ? 1 : (double) uncompressedBytes.get() / compressed;
+    }
+}
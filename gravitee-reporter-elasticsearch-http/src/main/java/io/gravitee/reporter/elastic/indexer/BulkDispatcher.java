@@ -0,0 +1,359 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import io.gravitee.reporter.elastic.model.OverflowPolicy;
+import io.reactivex.Completable;
+import io.vertx.core.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Send the bulk requests with a bounded number of requests in flight.
+ *
+ * Bulk requests which can not be sent immediately wait in a bounded queue. When the queue is full, the
+ * {@link OverflowPolicy} decides whether the caller is blocked or which bulk request is dropped. An event loop
+ * can not be blocked: a bulk overflowing the queue from an event loop waits on a worker thread instead.
+ *
+ * Each document type may have its own lane, with its own queue and its own limit of requests in flight
+ * within the limit shared by all the lanes. When a request is done, the next one is taken from the lane with
+ * the highest priority, so that a type producing many documents can not delay the others. The bulks without
+ * a lane of their type go to the default lane, which has the lowest priority.
+ *
+ * @author GraviteeSource Team
+ */
+class BulkDispatcher {
+
+    private final Logger logger = LoggerFactory.getLogger(BulkDispatcher.class);
+
+    private final int maxConcurrentRequests;
+
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * Send a bulk request, the completable must complete (even on error) once the request is done.
+     */
+    private final Function<Bulk, Completable> sender;
+
+    /**
+     * Keep the bulks overflowing the queue when the policy is {@link OverflowPolicy#SPILL}.
+     */
+    private final Predicate<Bulk> spill;
+
+    /**
+     * Wait for room in the queue on behalf of an event loop when the policy is {@link OverflowPolicy#BLOCK}.
+     */
+    private final Executor worker;
+
+    private final Lane defaultLane;
+
+    private final Map<String, Lane> lanes = new HashMap<>();
+
+    /**
+     * The lanes, from the highest priority to the lowest one.
+     */
+    private final List<Lane> lanesByPriority = new ArrayList<>();
+
+    private int inFlight;
+
+    private final AtomicLong droppedDocuments = new AtomicLong();
+
+    BulkDispatcher(int maxConcurrentRequests, int queueSize, OverflowPolicy overflowPolicy,
+                   Function<Bulk, Completable> sender) {
+        this(maxConcurrentRequests, queueSize, overflowPolicy, sender, null, null);
+    }
+
+    /**
+     * @param queueSize the size of the queue of the default lane
+     * @param spill keep a bulk overflowing the queue, returns <code>false</code> if the bulk is dropped anyway
+     * @param worker run the dispatch of a bulk overflowing the queue from an event loop, so that it waits for
+     *               room in the queue; without worker, the bulk is dropped
+     */
+    BulkDispatcher(int maxConcurrentRequests, int queueSize, OverflowPolicy overflowPolicy,
+                   Function<Bulk, Completable> sender, Predicate<Bulk> spill, Executor worker) {
+        this.maxConcurrentRequests = Math.max(1, maxConcurrentRequests);
+        this.overflowPolicy = overflowPolicy;
+        this.sender = sender;
+        this.spill = spill;
+        this.worker = worker;
+        this.defaultLane = new Lane(Integer.MIN_VALUE, maxConcurrentRequests, queueSize);
+        this.lanesByPriority.add(defaultLane);
+    }
+
+    /**
+     * Add the lane of the bulks of a document type.
+     *
+     * @param type the document type
+     * @param priority the pending bulks of the lanes with a higher priority are sent first
+     * @param maxConcurrentRequests the maximum number of requests of this lane in flight
+     * @param queueSize the maximum number of bulks of this lane waiting to be sent
+     */
+    synchronized void addLane(String type, int priority, int maxConcurrentRequests, int queueSize) {
+        final Lane lane = new Lane(priority, maxConcurrentRequests, queueSize);
+        final Lane previous = lanes.put(type, lane);
+        if (previous != null) {
+            lanesByPriority.remove(previous);
+        }
+
+        lanesByPriority.add(lane);
+        lanesByPriority.sort(Comparator.comparingInt((Lane l) -> l.priority).reversed());
+    }
+
+    /**
+     * Send a bulk request, or queue it if too many requests are already in flight.
+     */
+    void dispatch(Bulk bulk) {
+        Bulk toSend = null;
+        Bulk dropped = null;
+        Bulk waiting = null;
+        final Lane lane;
+        final boolean onEventLoop = Context.isOnEventLoopThread();
+
+        synchronized (this) {
+            lane = laneOf(bulk);
+
+            if (overflowPolicy == OverflowPolicy.BLOCK && isFull(lane) && !onEventLoop) {
+                awaitQueueSpace(lane);
+            }
+
+            if (canSend(lane)) {
+                start(lane);
+                toSend = bulk;
+            } else if (lane.pending.size() < lane.queueSize) {
+                lane.pending.add(bulk);
+            } else if (overflowPolicy == OverflowPolicy.BLOCK && onEventLoop && worker != null) {
+                waiting = bulk;
+            } else if (overflowPolicy == OverflowPolicy.DROP_OLDEST && lane.queueSize > 0) {
+                dropped = lane.pending.poll();
+                lane.pending.add(bulk);
+            } else {
+                dropped = bulk;
+            }
+        }
+
+        if (waiting != null) {
+            final Bulk overflowing = waiting;
+            worker.execute(() -> dispatch(overflowing));
+        }
+
+        if (dropped != null) {
+            if (overflowPolicy != OverflowPolicy.SPILL || spill == null || !spill.test(dropped)) {
+                droppedDocuments.addAndGet(dropped.size());
+                logger.warn("Too many bulk requests pending, {} documents are dropped", dropped.size());
+            }
+            dropped.acknowledge();
+        }
+
+        if (toSend != null) {
+            send(toSend, lane);
+        }
+    }
+
+    /**
+     * Send the documents of a bulk request again, or queue them ahead of the other bulks of their lane. They went
+     * through the queue once already, so the overflow policy does not apply to them: retries are dispatched from
+     * the event loop, where a full lane would drop them, and a full lane is precisely when they are rejected.
+     */
+    void redispatch(Bulk bulk) {
+        final Lane lane;
+
+        synchronized (this) {
+            lane = laneOf(bulk);
+
+            if (!canSend(lane)) {
+                lane.pending.addFirst(bulk);
+                return;
+            }
+
+            start(lane);
+        }
+
+        send(bulk, lane);
+    }
+
+    /**
+     * Take the bulks waiting to be sent out of the queues, for example to keep them elsewhere when stopping.
+     *
+     * @return the pending bulks, from the lane with the highest priority to the lowest one
+     */
+    synchronized List<Bulk> drain() {
+        final List<Bulk> pending = new ArrayList<>();
+        for (Lane lane : lanesByPriority) {
+            pending.addAll(lane.pending);
+            lane.pending.clear();
+        }
+        notifyAll();
+        return pending;
+    }
+
+    /**
+     * @return <code>true</code> if a bulk can be dispatched to the default lane without overflowing its queue
+     */
+    synchronized boolean hasCapacity() {
+        return !isFull(defaultLane);
+    }
+
+    private Lane laneOf(Bulk bulk) {
+        if (bulk.getType() == null) {
+            return defaultLane;
+        }
+
+        return lanes.getOrDefault(bulk.getType(), defaultLane);
+    }
+
+    private boolean canSend(Lane lane) {
+        return inFlight < maxConcurrentRequests && lane.inFlight < lane.maxConcurrentRequests;
+    }
+
+    private boolean isFull(Lane lane) {
+        return !canSend(lane) && lane.pending.size() >= lane.queueSize;
+    }
+
+    private void start(Lane lane) {
+        inFlight++;
+        lane.inFlight++;
+    }
+
+    /**
+     * Wait until a pending bulk request of the lane is sent. Must be called with the lock held.
+     */
+    private void awaitQueueSpace(Lane lane) {
+        try {
+            while (isFull(lane)) {
+                wait();
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void send(Bulk bulk, Lane lane) {
+        Completable.defer(() -> sender.apply(bulk))
+                .doOnError(throwable -> logger.error("Unexpected error while sending bulk request", throwable))
+                .onErrorComplete()
+                .subscribe(() -> {
+                    release(lane);
+                    bulk.acknowledge();
+                });
+    }
+
+    /**
+     * A bulk request is done: send the next pending one of the lane with the highest priority, if any.
+     */
+    private void release(Lane done) {
+        Bulk next = null;
+        Lane lane = null;
+
+        synchronized (this) {
+            inFlight--;
+            done.inFlight--;
+
+            for (Lane candidate : lanesByPriority) {
+                if (!candidate.pending.isEmpty() && canSend(candidate)) {
+                    lane = candidate;
+                    next = candidate.pending.poll();
+                    start(lane);
+                    break;
+                }
+            }
+            notifyAll();
+        }
+
+        if (next != null) {
+            send(next, lane);
+        }
+    }
+
+    /**
+     * The load is the occupancy of the fullest lane, since all the lanes share the same requests in flight.
+     * The default lane is ignored as soon as there are other lanes: it is kept full by the replay of the spool.
+     *
+     * @return the occupancy of the requests in flight and of the queue of the fullest lane, 1 when its next
+     * bulk overflows
+     */
+    synchronized double getLoad() {
+        if (lanes.isEmpty()) {
+            return defaultLane.getLoad(maxConcurrentRequests);
+        }
+
+        double load = 0;
+        for (Lane lane : lanes.values()) {
+            load = Math.max(load, lane.getLoad(maxConcurrentRequests));
+        }
+        return load;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    synchronized int getInFlight(String type) {
+        final Lane lane = lanes.get(type);
+        return lane == null ? 0 : lane.inFlight;
+    }
+
+    synchronized int getPending() {
+        return lanesByPriority.stream().mapToInt(lane -> lane.pending.size()).sum();
+    }
+
+    synchronized int getPending(String type) {
+        final Lane lane = lanes.get(type);
+        return lane == null ? 0 : lane.pending.size();
+    }
+
+    long getDroppedDocuments() {
+        return droppedDocuments.get();
+    }
+
+    /**
+     * Bulks of a document type. The state of a lane is guarded by the lock of the dispatcher.
+     */
+    private static class Lane {
+
+        private final int priority;
+
+        private final int maxConcurrentRequests;
+
+        private final int queueSize;
+
+        private final Deque<Bulk> pending = new ArrayDeque<>();
+
+        private int inFlight;
+
+        private Lane(int priority, int maxConcurrentRequests, int queueSize) {
+            this.priority = priority;
+            this.maxConcurrentRequests = Math.max(1, maxConcurrentRequests);
+            this.queueSize = Math.max(0, queueSize);
+        }
+
+        private double getLoad(int sharedConcurrentRequests) {
+            final int capacity = Math.min(maxConcurrentRequests, sharedConcurrentRequests) + queueSize;
+            return Math.min(1, (double) (inFlight + pending.size()) / capacity);
+        }
+    }
+}
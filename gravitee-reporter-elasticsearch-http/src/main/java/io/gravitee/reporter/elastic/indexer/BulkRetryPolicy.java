@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import io.gravitee.common.http.HttpStatusCode;
+import io.gravitee.reporter.elastic.model.elasticsearch.bulk.Failure;
+import io.gravitee.reporter.elastic.model.elasticsearch.bulk.Index;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decide which bulk items are sent again, and when.
+ *
+ * Only the items rejected because Elasticsearch is overloaded (<code>429 Too Many Requests</code>, write
+ * thread pool rejection) are retried: other failures, such as mapping errors, would fail again.
+ * The delay between two attempts grows exponentially, with a random jitter so that all the gateways
+ * do not retry at the same time.
+ *
+ * @author GraviteeSource Team
+ */
+class BulkRetryPolicy {
+
+    static final String REJECTED_EXECUTION_EXCEPTION = "es_rejected_execution_exception";
+
+    private final int maxRetries;
+
+    private final long initialBackoff;
+
+    private final long maxBackoff;
+
+    /**
+     * @param maxRetries the number of times a document may be sent again
+     * @param initialBackoff the delay before the first retry, in milliseconds
+     * @param maxBackoff the maximum delay between two attempts, in milliseconds
+     */
+    BulkRetryPolicy(int maxRetries, long initialBackoff, long maxBackoff) {
+        this.maxRetries = maxRetries;
+        this.initialBackoff = Math.max(1, initialBackoff);
+        this.maxBackoff = Math.max(this.initialBackoff, maxBackoff);
+    }
+
+    /**
+     * @param attempt the number of times the documents have already been sent
+     * @return <code>true</code> if the documents may be sent once more
+     */
+    boolean canRetry(int attempt) {
+        return attempt <= maxRetries;
+    }
+
+    /**
+     * Compute the delay before sending the documents again: half of the exponential backoff, plus a random
+     * part of the other half.
+     *
+     * @param attempt the number of times the documents have already been sent
+     * @return the delay in milliseconds
+     */
+    long delay(int attempt) {
+        final int shift = Math.min(Math.max(0, attempt - 1), 30);
+        final long backoff = Math.min(maxBackoff, initialBackoff << shift);
+        final long half = backoff / 2;
+        return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+    }
+
+    /**
+     * @param status the HTTP status of the whole bulk request
+     * @return <code>true</code> if Elasticsearch rejected the whole bulk request because it is overloaded
+     */
+    static boolean isRetryable(int status) {
+        return status == HttpStatusCode.TOO_MANY_REQUESTS_429;
+    }
+
+    /**
+     * @param item the response of a bulk item
+     * @return <code>true</code> if Elasticsearch rejected the item because it is overloaded
+     */
+    static boolean isRetryable(Index item) {
+        if (item == null || item.getError() == null) {
+            return false;
+        }
+
+        if (item.getStatus() != null && isRetryable(item.getStatus())) {
+            return true;
+        }
+
+        final Failure error = item.getError();
+        return REJECTED_EXECUTION_EXCEPTION.equals(error.getType()) ||
+                (error.getCausedBy() != null && REJECTED_EXECUTION_EXCEPTION.equals(error.getCausedBy().getType()));
+    }
+}
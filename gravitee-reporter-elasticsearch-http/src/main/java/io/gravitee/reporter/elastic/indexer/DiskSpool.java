@@ -0,0 +1,310 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import io.netty.buffer.ByteBuf;
+import io.vertx.reactivex.core.buffer.Buffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keep on disk the documents which can not be sent to Elasticsearch, until they can be replayed.
+ *
+ * The documents are appended to memory-mapped segment files, each record being the length of the document
+ * followed by its bytes. The length is written after the bytes, so that a record interrupted by a crash
+ * reads as the end of the segment. Segments are replayed in the order they were written, and deleted once
+ * their documents are sent: a crash during the replay of a segment sends its documents again.
+ *
+ * The directory is locked while the spool is open, so that two gateways never share the same segments.
+ *
+ * @author GraviteeSource Team
+ */
+class DiskSpool {
+
+    private final Logger logger = LoggerFactory.getLogger(DiskSpool.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".spool";
+
+    private static final String LOCK_FILE = "spool.lock";
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final long maxSize;
+
+    private final FileChannel lockChannel;
+
+    /**
+     * Segments fully written, waiting to be replayed.
+     */
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    /**
+     * Segment the documents are currently appended to.
+     */
+    private Segment active;
+
+    private long sequence;
+
+    private long size;
+
+    private boolean closed;
+
+    private final AtomicLong droppedDocuments = new AtomicLong();
+
+    /**
+     * @param directory the directory of the segment files, the segments left by a previous run are replayed
+     * @param segmentSize the size of a segment file, in bytes
+     * @param maxSize the maximum size of all the segment files, in bytes
+     * @throws IOException if the directory can not be used, or is already used by another spool
+     */
+    DiskSpool(Path directory, int segmentSize, long maxSize) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.maxSize = maxSize;
+        this.lockChannel = lock(directory);
+
+        final List<Path> existing = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            files.forEach(existing::add);
+        }
+        existing.sort((path1, path2) -> Long.compare(sequenceOf(path1), sequenceOf(path2)));
+
+        for (Path path : existing) {
+            segments.add(new Segment(path, Files.size(path)));
+            size += Files.size(path);
+            sequence = Math.max(sequence, sequenceOf(path));
+        }
+
+        if (!segments.isEmpty()) {
+            logger.info("{} spooled segments found in {}, they will be sent to Elasticsearch", segments.size(), directory);
+        }
+    }
+
+    private static FileChannel lock(Path directory) throws IOException {
+        final FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (channel.tryLock() != null) {
+                return channel;
+            }
+        } catch (OverlappingFileLockException ofle) {
+            // Locked by another spool of this JVM
+        }
+
+        channel.close();
+        throw new IOException("The spool directory " + directory + " is already used by another gateway");
+    }
+
+    /**
+     * Append documents to the spool. The documents of a bulk are all written to the same segment, or none of
+     * them is: a bulk is never kept in part.
+     *
+     * @param documents the documents to keep
+     * @return <code>false</code> if the spool is full or closed, and the documents are dropped
+     */
+    synchronized boolean write(List<Buffer> documents) {
+        if (closed) {
+            droppedDocuments.addAndGet(documents.size());
+            logger.warn("The spool is closed, {} documents are dropped", documents.size());
+            return false;
+        }
+
+        // Room for the length and the bytes of each record, and for the length ending the segment
+        int required = Integer.BYTES;
+        for (Buffer document : documents) {
+            required += document.length() + Integer.BYTES;
+        }
+
+        try {
+            if ((active == null || active.mapped.remaining() < required) && !roll(required)) {
+                droppedDocuments.addAndGet(documents.size());
+                logger.warn("The spool is full, {} documents are dropped", documents.size());
+                return false;
+            }
+        } catch (IOException ioe) {
+            droppedDocuments.addAndGet(documents.size());
+            logger.error("Unable to spool {} documents, they are dropped", documents.size(), ioe);
+            return false;
+        }
+
+        final MappedByteBuffer mapped = active.mapped;
+        for (Buffer document : documents) {
+            final ByteBuf data = document.getDelegate().getByteBuf();
+            final int position = mapped.position();
+            mapped.position(position + Integer.BYTES);
+            mapped.put(data.nioBuffer());
+            mapped.putInt(position, data.readableBytes());
+            active.documents++;
+        }
+        return true;
+    }
+
+    /**
+     * Seal the active segment and create a new one, if the maximum size of the spool allows it.
+     */
+    private boolean roll(int minSize) throws IOException {
+        final int newSegmentSize = Math.max(segmentSize, minSize);
+        if (size + newSegmentSize > maxSize) {
+            return false;
+        }
+
+        seal();
+
+        final Path path = directory.resolve(SEGMENT_PREFIX + (++sequence) + SEGMENT_SUFFIX);
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            active = new Segment(path, newSegmentSize);
+            active.mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSegmentSize);
+        }
+        size += newSegmentSize;
+
+        return true;
+    }
+
+    private void seal() {
+        if (active != null) {
+            active.mapped.force();
+            active.mapped = null;
+            segments.add(active);
+            active = null;
+        }
+    }
+
+    /**
+     * @return the oldest segment to replay, or <code>null</code> if the spool is empty
+     */
+    synchronized Segment poll() {
+        if (segments.isEmpty() && active != null && active.documents > 0) {
+            seal();
+        }
+        return segments.poll();
+    }
+
+    synchronized boolean isEmpty() {
+        return segments.isEmpty() && (active == null || active.documents == 0);
+    }
+
+    /**
+     * Delete a replayed segment.
+     */
+    synchronized void delete(Segment segment) {
+        try {
+            Files.deleteIfExists(segment.path);
+            size -= segment.size;
+        } catch (IOException ioe) {
+            logger.error("Unable to delete the spooled segment {}", segment.path, ioe);
+        }
+    }
+
+    /**
+     * Seal the active segment, so that its documents are on disk, and release the directory. The segments are
+     * replayed by the next spool opened on the directory.
+     */
+    synchronized void close() {
+        closed = true;
+        seal();
+
+        try {
+            lockChannel.close();
+        } catch (IOException ioe) {
+            logger.error("Unable to release the spool directory {}", directory, ioe);
+        }
+    }
+
+    synchronized long getSize() {
+        return size;
+    }
+
+    long getDroppedDocuments() {
+        return droppedDocuments.get();
+    }
+
+    private static long sequenceOf(Path path) {
+        final String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException nfe) {
+            return 0;
+        }
+    }
+
+    /**
+     * A segment file of the spool.
+     */
+    static class Segment {
+
+        private final Path path;
+
+        private final long size;
+
+        private MappedByteBuffer mapped;
+
+        private int documents;
+
+        private Segment(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+
+        /**
+         * @return the documents of the segment, in the order they were written
+         */
+        List<Buffer> read() throws IOException {
+            final List<Buffer> records = new ArrayList<>();
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                final ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+                while (data.remaining() >= Integer.BYTES) {
+                    final int length = data.getInt();
+                    if (length <= 0 || length > data.remaining()) {
+                        break;
+                    }
+
+                    final byte[] document = new byte[length];
+                    data.get(document);
+                    records.add(Buffer.newInstance(io.vertx.core.buffer.Buffer.buffer(document)));
+                }
+            }
+
+            return records;
+        }
+
+        @Override
+        public String toString() {
+            return path.toString();
+        }
+    }
+}
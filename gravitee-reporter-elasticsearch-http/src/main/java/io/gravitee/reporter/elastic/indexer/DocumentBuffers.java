@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.vertx.reactivex.core.buffer.Buffer;
+
+import java.util.List;
+
+/**
+ * Buffers of the encoded documents, taken from a pool and given back to it once the documents are sent.
+ *
+ * A document belongs to the bulk holding it: the bulk releases its documents once acknowledged, and a bulk sending
+ * documents again retains them first. Documents which do not come from the pool, the ones read back from the spool
+ * for example, are left to the garbage collector.
+ *
+ * @author GraviteeSource Team
+ */
+public final class DocumentBuffers {
+
+    private static final ByteBufAllocator ALLOCATOR = PooledByteBufAllocator.DEFAULT;
+
+    private DocumentBuffers() {
+    }
+
+    /**
+     * @param initialCapacity the expected size of the document
+     * @return an empty buffer of the pool, to encode a document into
+     */
+    public static ByteBuf allocate(int initialCapacity) {
+        return ALLOCATOR.heapBuffer(initialCapacity);
+    }
+
+    /**
+     * Turn a buffer of the pool into a document, which owns it from now on.
+     */
+    public static Buffer wrap(ByteBuf buffer) {
+        return Buffer.newInstance(io.vertx.core.buffer.Buffer.buffer(buffer));
+    }
+
+    /**
+     * @return a document with a copy of the readable bytes of a buffer
+     */
+    public static Buffer copyOf(ByteBuf buffer) {
+        final ByteBuf document = allocate(buffer.readableBytes());
+        document.writeBytes(buffer, buffer.readerIndex(), buffer.readableBytes());
+        return wrap(document);
+    }
+
+    /**
+     * @return a document with the UTF-8 bytes of a string
+     */
+    public static Buffer of(String document) {
+        return wrap(ByteBufUtil.writeUtf8(ALLOCATOR, document));
+    }
+
+    static void retain(List<Buffer> documents) {
+        for (Buffer document : documents) {
+            final ByteBuf buffer = pooled(document);
+            if (buffer != null) {
+                buffer.retain();
+            }
+        }
+    }
+
+    static void release(List<Buffer> documents) {
+        for (Buffer document : documents) {
+            final ByteBuf buffer = pooled(document);
+            if (buffer != null) {
+                buffer.release();
+            }
+        }
+    }
+
+    /**
+     * Vert.x wraps the buffers of its documents into unreleasable ones, which share the reference count of the
+     * buffer of the pool once unwrapped.
+     *
+     * @return the buffer of a document sharing the reference count of the buffer of the pool, <code>null</code> if
+     * the document does not come from the pool
+     */
+    private static ByteBuf pooled(Buffer document) {
+        final ByteBuf buffer = document.getDelegate().getByteBuf().unwrap();
+        return buffer != null && buffer.alloc() == ALLOCATOR && buffer.refCnt() > 0 ? buffer : null;
+    }
+}
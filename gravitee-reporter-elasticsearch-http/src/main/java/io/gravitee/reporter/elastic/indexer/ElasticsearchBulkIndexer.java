@@ -19,21 +19,30 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.gravitee.common.http.HttpHeaders;
 import io.gravitee.common.http.HttpStatusCode;
 import io.gravitee.common.http.MediaType;
+import io.gravitee.reporter.elastic.bulk.AdaptiveBulkSizer;
+import io.gravitee.reporter.elastic.config.BulkType;
 import io.gravitee.reporter.elastic.config.ElasticConfiguration;
-import io.gravitee.reporter.elastic.config.Endpoint;
 import io.gravitee.reporter.elastic.config.PipelineConfiguration;
+import io.gravitee.reporter.elastic.metrics.HistogramMetric;
+import io.gravitee.reporter.elastic.metrics.ReporterMetrics;
+import io.gravitee.reporter.elastic.model.OverflowPolicy;
 import io.gravitee.reporter.elastic.model.elasticsearch.Health;
+import io.gravitee.reporter.elastic.model.elasticsearch.bulk.BulkItemResponse;
+import io.gravitee.reporter.elastic.model.elasticsearch.bulk.ESBulkResponse;
+import io.gravitee.reporter.elastic.model.elasticsearch.bulk.Failure;
+import io.gravitee.reporter.elastic.model.elasticsearch.bulk.Index;
 import io.gravitee.reporter.elastic.model.exception.TechnicalException;
 import io.gravitee.reporter.elastic.templating.freemarker.FreeMarkerComponent;
+import io.reactivex.Completable;
+import io.reactivex.Scheduler;
 import io.reactivex.Single;
-import io.reactivex.SingleObserver;
-import io.reactivex.disposables.Disposable;
 import io.reactivex.functions.Function;
-import io.reactivex.processors.PublishProcessor;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.http.HttpClientOptions;
+import io.vertx.reactivex.core.RxHelper;
 import io.vertx.reactivex.core.Vertx;
 import io.vertx.reactivex.core.buffer.Buffer;
-import io.vertx.reactivex.core.http.HttpClient;
 import io.vertx.reactivex.core.http.HttpClientRequest;
 import io.vertx.reactivex.core.http.HttpClientResponse;
 import org.slf4j.Logger;
@@ -43,12 +52,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 /**
@@ -75,6 +88,8 @@ public class ElasticsearchBulkIndexer {
 
 	private static final String HTTPS_SCHEME = "https";
 
+	private static final String BULK_ERRORS = "\"errors\":true";
+
     /**
 	 * Configuration of Elasticsearch (cluster name, addresses, ...)
 	 */
@@ -97,16 +112,81 @@ public class ElasticsearchBulkIndexer {
 	private Vertx vertx;
 
 	/**
-	 * HTTP client.
+	 * Metrics of the reporter.
+	 */
+	@Autowired
+	private ReporterMetrics metrics;
+
+	private HistogramMetric bulkRoundTrip;
+
+	private HistogramMetric bulkDocuments;
+
+	private HistogramMetric bulkBytes;
+
+	/**
+	 * Event loop sending the HTTP requests, whatever the thread flushing the documents: the HTTP client
+	 * deadlocks when its pooled connections are used from several event loops.
+	 */
+	private Scheduler scheduler;
+
+	/**
+	 * Elasticsearch endpoints, with their HTTP client.
 	 */
-	private HttpClient httpClient;
+	private EndpointPool endpoints;
+
+	/**
+	 * Compression of the bulk requests, if enabled.
+	 */
+	private BulkCompressor compressor;
+
+	/**
+	 * Discovery of the Elasticsearch nodes, if enabled.
+	 */
+	private NodeSniffer sniffer;
 
 	/**
 	 * JSON mapper.
 	 */
 	private ObjectMapper mapper;
 
-	private final PublishProcessor<String> bulkProcessor = PublishProcessor.create();
+	/**
+	 * Bulk lines waiting to be sent, by document type.
+	 */
+	private final Map<String, BulkBuffer> bulkBuffers = new ConcurrentHashMap<>();
+
+	/**
+	 * Size of the bulk requests of each document type, if adaptive.
+	 */
+	private final Map<String, AdaptiveBulkSizer> bulkSizers = new ConcurrentHashMap<>();
+
+	/**
+	 * Bulk requests waiting to be sent.
+	 */
+	private BulkDispatcher bulkDispatcher;
+
+	/**
+	 * Documents kept on disk while Elasticsearch can not take them, if enabled.
+	 */
+	private DiskSpool spool;
+
+	private SpoolReplayer spoolReplayer;
+
+	/**
+	 * Retry of the documents rejected by Elasticsearch.
+	 */
+	private BulkRetryPolicy retryPolicy;
+
+	/**
+	 * Periodic timers of the probe, the sniffer and the replay of the spool.
+	 */
+	private final List<Long> timers = new ArrayList<>();
+
+	/**
+	 * Next flush of each bulk buffer.
+	 */
+	private final Map<BulkBuffer, Long> flushTimers = new ConcurrentHashMap<>();
+
+	private volatile boolean stopped;
 
 	/**
 	 * Authorization header if Elasticsearch is protected.
@@ -120,24 +200,18 @@ public class ElasticsearchBulkIndexer {
 	 */
 	public void start() throws ExecutionException, InterruptedException, IOException, TechnicalException {
 		if (! configuration.getEndpoints().isEmpty()) {
-			final Endpoint endpoint = configuration.getEndpoints().get(0);
-			final URI elasticEdpt = URI.create(endpoint.getUrl());
-
-			HttpClientOptions options = new HttpClientOptions()
-					.setDefaultHost(elasticEdpt.getHost())
-					.setDefaultPort(elasticEdpt.getPort() != -1 ? elasticEdpt.getPort() :
-							(HTTPS_SCHEME.equals(elasticEdpt.getScheme()) ? 443 : 80));
-
-			if (HTTPS_SCHEME.equals(elasticEdpt.getScheme())) {
-				options
-						.setSsl(true)
-						.setTrustAll(true);
-			}
+			this.scheduler = RxHelper.scheduler(vertx.getOrCreateContext());
 
-			this.httpClient = vertx.createHttpClient(options);
+			this.endpoints = new EndpointPool(configuration.getEndpoints().stream()
+					.map(endpoint -> createEndpoint(endpoint.getUrl()))
+					.collect(Collectors.toList()));
 
 			this.mapper = new ObjectMapper();
 
+			if (configuration.isCompression()) {
+				this.compressor = new BulkCompressor();
+			}
+
 			// Use the ElasticConfiguration class to define username and password
 			// for ES
 			// For example if Elasticsearch is protected by nginx
@@ -146,22 +220,191 @@ public class ElasticsearchBulkIndexer {
 						this.configuration.getPassword());
 			}
 
-			try {
-				this.majorVersion = getMajorVersion();
-			} catch (Exception ex) {
+			Exception failure = null;
+			for (HttpEndpoint endpoint : endpoints.getEndpoints()) {
+				try {
+					this.majorVersion = getMajorVersion(endpoint);
+					break;
+				} catch (Exception ex) {
+					endpoints.markDown(endpoint);
+					failure = ex;
+				}
+			}
+
+			if (this.majorVersion == 0) {
 				throw new TechnicalException("An error occurs while getting information from Elasticsearch at "
-						+ elasticEdpt.toString(), ex);
+						+ endpoints.getEndpoints(), failure);
 			}
 
 			this.ensureTemplate();
             this.ensureIngestPlugins();
 
-            bulkProcessor
-					.buffer(
-							configuration.getFlushInterval(),
-							TimeUnit.SECONDS,
-							configuration.getBulkActions())
-					.subscribe(this::index);
+			this.retryPolicy = new BulkRetryPolicy(
+					configuration.getRetryMaxRetries(),
+					configuration.getRetryInitialBackoff(),
+					configuration.getRetryMaxBackoff());
+
+			if (configuration.getOverflowPolicy() == OverflowPolicy.SPILL) {
+				if (configuration.getSpoolPath() == null || configuration.getSpoolPath().trim().isEmpty()) {
+					throw new TechnicalException("The spool path (reporters.elasticsearch.spool.path) is required "
+							+ "with the SPILL overflow policy");
+				}
+
+				this.spool = new DiskSpool(
+						Paths.get(configuration.getSpoolPath()),
+						configuration.getSpoolSegmentSize() * 1024 * 1024,
+						configuration.getSpoolMaxSize() * 1024L * 1024L);
+			}
+
+			this.bulkDispatcher = new BulkDispatcher(
+					configuration.getConcurrentRequests(),
+					configuration.getQueueSize(),
+					configuration.getOverflowPolicy(),
+					this::index,
+					bulk -> spool.write(bulk.getDocuments()),
+					command -> vertx.executeBlocking(future -> {
+						command.run();
+						future.complete();
+					}, true, ar -> {}));
+
+			if (spool != null) {
+				this.spoolReplayer = new SpoolReplayer(spool, bulkDispatcher, configuration.getBulkActions(),
+						endpoints::hasAvailable, command -> vertx.runOnContext(v -> command.run()));
+				timers.add(vertx.setPeriodic(TimeUnit.SECONDS.toMillis(configuration.getFlushInterval()),
+						timerId -> spoolReplayer.replay()));
+			}
+
+			registerMetrics();
+
+			timers.add(vertx.setPeriodic(configuration.getProbeInterval(), timerId -> probe()));
+
+			if (configuration.isSnifferEnabled()) {
+				this.sniffer = new NodeSniffer(mapper,
+						URI.create(configuration.getEndpoints().get(0).getUrl()).getScheme());
+				sniff();
+				timers.add(vertx.setPeriodic(configuration.getSnifferInterval(), timerId -> sniff()));
+			}
+		}
+	}
+
+	/**
+	 * Create the bulk buffer of a document type, with its own flush interval, and its own lane in the
+	 * dispatcher.
+	 *
+	 * @param type
+	 *            the document type
+	 * @return the bulk buffer of the type
+	 */
+	private BulkBuffer createBulkBuffer(final String type) {
+		final BulkType settings = configuration.getBulkType(type);
+
+		bulkDispatcher.addLane(type, settings.getPriority(), settings.getConcurrentRequests(), settings.getQueueSize());
+
+		final BulkBuffer bulkBuffer = new BulkBuffer(
+				settings.getActions(),
+				settings.getSize() * 1024L * 1024L,
+				documents -> bulkDispatcher.dispatch(new Bulk(type, documents, 0)));
+
+		final LongSupplier flushInterval;
+		if (configuration.isBulkAdaptive()) {
+			final AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(
+					settings.getActions(),
+					configuration.getBulkAdaptiveMinActions(),
+					configuration.getBulkAdaptiveMaxActions(),
+					TimeUnit.SECONDS.toMillis(settings.getFlushInterval()),
+					TimeUnit.SECONDS.toMillis(configuration.getBulkAdaptiveMaxFlushInterval()),
+					configuration.getBulkAdaptiveTargetLatency());
+			bulkSizers.put(type, sizer);
+			bulkBuffer.setMaxActions(sizer.getActions());
+			flushInterval = sizer::getFlushInterval;
+
+			metrics.gauge("types." + type + ".bulk.actions", sizer::getActions);
+			metrics.gauge("types." + type + ".bulk.flush_interval_ms", sizer::getFlushInterval);
+		} else {
+			final long interval = TimeUnit.SECONDS.toMillis(settings.getFlushInterval());
+			flushInterval = () -> interval;
+		}
+
+		scheduleFlush(bulkBuffer, flushInterval);
+
+		metrics.gauge("types." + type + ".documents.buffered", bulkBuffer::getPending);
+		metrics.gauge("types." + type + ".bulk.pending", () -> bulkDispatcher.getPending(type));
+		metrics.gauge("types." + type + ".bulk.in_flight", () -> bulkDispatcher.getInFlight(type));
+
+		logger.debug("Bulk requests of type {} are flushed every {} actions, {} MB or {} seconds, with priority {}",
+				type, settings.getActions(), settings.getSize(), settings.getFlushInterval(), settings.getPriority());
+
+		return bulkBuffer;
+	}
+
+	/**
+	 * Flush a bulk buffer after the flush interval, then schedule the next flush.
+	 *
+	 * @param bulkBuffer
+	 *            the bulk buffer to flush
+	 * @param flushInterval
+	 *            the current flush interval in milliseconds
+	 */
+	private void scheduleFlush(final BulkBuffer bulkBuffer, final LongSupplier flushInterval) {
+		if (stopped) {
+			return;
+		}
+
+		// The flush is done on a worker thread since the dispatcher may block
+		flushTimers.put(bulkBuffer, vertx.setTimer(flushInterval.getAsLong(), timerId ->
+				vertx.executeBlocking(future -> {
+					bulkBuffer.flush();
+					future.complete();
+				}, true, ar -> scheduleFlush(bulkBuffer, flushInterval))));
+	}
+
+	/**
+	 * Stop the timers and flush the buffered documents. With a spool, the bulk requests still waiting to be
+	 * sent are spooled, and the spool is closed so that they are sent by the next start. The requests in flight
+	 * and the documents waiting for a retry are only sent if the gateway does not exit before.
+	 */
+	public void stop() {
+		if (bulkDispatcher == null) {
+			return;
+		}
+
+		stopped = true;
+		timers.forEach(vertx::cancelTimer);
+		flushTimers.values().forEach(vertx::cancelTimer);
+
+		bulkBuffers.values().forEach(BulkBuffer::flush);
+
+		if (spool != null) {
+			for (Bulk bulk : bulkDispatcher.drain()) {
+				if (spool.write(bulk.getDocuments())) {
+					metrics.counter("documents.spooled").add(bulk.size());
+				}
+				bulk.acknowledge();
+			}
+			spool.close();
+		}
+	}
+
+	private void registerMetrics() {
+		this.bulkRoundTrip = metrics.histogram("bulk.round_trip_ms");
+		this.bulkDocuments = metrics.histogram("bulk.documents");
+		this.bulkBytes = metrics.histogram("bulk.bytes");
+
+		metrics.gauge("documents.buffered", () ->
+				bulkBuffers.values().stream().mapToLong(BulkBuffer::getPending).sum());
+		metrics.gauge("bulk.in_flight", bulkDispatcher::getInFlight);
+		metrics.gauge("bulk.pending", bulkDispatcher::getPending);
+		metrics.gauge("documents.dropped.queue", bulkDispatcher::getDroppedDocuments);
+
+		if (compressor != null) {
+			metrics.gauge("bulk.compression.bytes_uncompressed", compressor::getUncompressedBytes);
+			metrics.gauge("bulk.compression.bytes_compressed", compressor::getCompressedBytes);
+			metrics.gauge("bulk.compression.ratio_percent", () -> Math.round(compressor.getCompressionRatio() * 100));
+		}
+
+		if (spool != null) {
+			metrics.gauge("spool.bytes", spool::getSize);
+			metrics.gauge("documents.dropped.spool", spool::getDroppedDocuments);
 		}
 	}
 
@@ -180,8 +423,80 @@ public class ElasticsearchBulkIndexer {
 		return "Basic " + encodedAuth;
 	}
 
-	private int getMajorVersion() throws ExecutionException, InterruptedException, IOException, TechnicalException {
-		HttpClientRequest req = httpClient.get("/");
+	/**
+	 * Create the HTTP client of an Elasticsearch endpoint.
+	 *
+	 * @param url
+	 *            the URL of the endpoint
+	 * @return the endpoint
+	 */
+	private HttpEndpoint createEndpoint(final String url) {
+		final URI elasticEdpt = URI.create(url);
+
+		HttpClientOptions options = new HttpClientOptions()
+				.setDefaultHost(elasticEdpt.getHost())
+				.setDefaultPort(elasticEdpt.getPort() != -1 ? elasticEdpt.getPort() :
+						(HTTPS_SCHEME.equals(elasticEdpt.getScheme()) ? 443 : 80));
+
+		if (HTTPS_SCHEME.equals(elasticEdpt.getScheme())) {
+			options
+					.setSsl(true)
+					.setTrustAll(true);
+		}
+
+		if (configuration.isCompression()) {
+			options.setTryUseCompression(true);
+		}
+
+		return new HttpEndpoint(url, vertx.createHttpClient(options));
+	}
+
+	/**
+	 * Call the unavailable endpoints, and put them back in the pool once they answer.
+	 */
+	private void probe() {
+		for (HttpEndpoint endpoint : endpoints.getUnavailableEndpoints()) {
+			HttpClientRequest req = endpoint.getClient().get("/");
+			req.setTimeout(configuration.getRequestTimeout());
+
+			doRequest(req, null).subscribe(
+					response -> {
+						if (response.response.statusCode() == HttpStatusCode.OK_200) {
+							endpoints.markUp(endpoint);
+						}
+					},
+					throwable -> logger.debug("Elasticsearch endpoint {} is still unavailable", endpoint, throwable));
+		}
+	}
+
+	/**
+	 * Replace the endpoints by the data and ingest nodes of the cluster, the configured ones staying as a fallback.
+	 * The clients of the removed endpoints are closed once their pending requests had the time to complete.
+	 */
+	private void sniff() {
+		HttpClientRequest req = endpoints.next().getClient().get(NodeSniffer.URL_NODES_HTTP);
+		req.setTimeout(configuration.getRequestTimeout());
+
+		doRequest(req, null).subscribe(
+				response -> {
+					if (response.response.statusCode() != HttpStatusCode.OK_200) {
+						logger.warn("Impossible to sniff Elasticsearch nodes. Elasticsearch response code is {}",
+								response.response.statusCode());
+						return;
+					}
+
+					final List<String> urls = sniffer.sniff(response.body.toString());
+					logger.debug("Elasticsearch nodes discovered by sniffing: {}", urls);
+
+					for (HttpEndpoint removed : endpoints.update(urls, this::createEndpoint)) {
+						vertx.setTimer(configuration.getRequestTimeout(), timerId -> removed.getClient().close());
+					}
+				},
+				throwable -> logger.warn("Impossible to sniff Elasticsearch nodes", throwable));
+	}
+
+	private int getMajorVersion(final HttpEndpoint endpoint) throws ExecutionException, InterruptedException, IOException, TechnicalException {
+		HttpClientRequest req = endpoint.getClient().get("/");
 		VertxHttpResponse response = doRequest(req, null).blockingGet();
 
 		if (response.response.statusCode() != HttpStatusCode.OK_200) {
@@ -211,7 +526,7 @@ public class ElasticsearchBulkIndexer {
 	 */
 	Health getClusterHealth() throws TechnicalException {
 		try {
-			HttpClientRequest req = httpClient.get(URL_STATE_CLUSTER);
+			HttpClientRequest req = endpoints.next().getClient().get(URL_STATE_CLUSTER);
 			VertxHttpResponse response = doRequest(req, null).blockingGet();
 
 			if (response.response.statusCode() != HttpStatusCode.OK_200) {
@@ -251,8 +566,8 @@ public class ElasticsearchBulkIndexer {
 
 			logger.debug("PUT template : {}", template);
 
-			HttpClientRequest req = httpClient.put(templateUrl);
-			VertxHttpResponse response = doRequest(req, template).blockingGet();
+			HttpClientRequest req = endpoints.next().getClient().put(templateUrl);
+			VertxHttpResponse response = doRequest(req, Buffer.buffer(template)).blockingGet();
 
 			String body = response.body.toString();
 
@@ -282,8 +597,8 @@ public class ElasticsearchBulkIndexer {
             if (pipelineTemplate != null && pipelineConfiguration.getPipelineName() != null) {
                 logger.debug("PUT ingest pipeline template : {}", pipelineTemplate);
 
-                HttpClientRequest req = httpClient.put( URL_INGEST + "/" + pipelineConfiguration.getPipelineName());
-                VertxHttpResponse response = doRequest(req, pipelineTemplate).blockingGet();
+                HttpClientRequest req = endpoints.next().getClient().put( URL_INGEST + "/" + pipelineConfiguration.getPipelineName());
+                VertxHttpResponse response = doRequest(req, Buffer.buffer(pipelineTemplate)).blockingGet();
 
                 String body = response.body.toString();
 
@@ -304,58 +619,279 @@ public class ElasticsearchBulkIndexer {
         }
     }
 
-    public void index(final String data) {
-		bulkProcessor.onNext(data);
+    /**
+     * Add bulk lines, already encoded in UTF-8, to the next bulk request of their document type.
+     *
+     * @param type
+     *            the document type
+     * @param data
+     *            the action and document lines
+     */
+    public void index(final String type, final Buffer data) {
+		BulkBuffer bulkBuffer = bulkBuffers.get(type);
+		if (bulkBuffer == null) {
+			bulkBuffer = bulkBuffers.computeIfAbsent(type, this::createBulkBuffer);
+		}
+		bulkBuffer.add(data);
+	}
+
+	/**
+	 * @return the occupancy of the bulk requests in flight and waiting to be sent, between 0 and 1
+	 */
+	public double getLoad() {
+		return bulkDispatcher == null ? 0 : bulkDispatcher.getLoad();
 	}
 
 	/**
 	 * Send a bulk request to ES
 	 * 
-	 * @param data
-	 *            the list of data to bulk index
+	 * @param bulk
+	 *            the documents to bulk index
+	 * @return completes once Elasticsearch has answered, or the request has failed
 	 */
-	private void index(final List<String> data) {
-		if (data != null && !data.isEmpty()) {
-			try {
-				String bulk = data.stream().collect(Collectors.joining());
+	private Completable index(final Bulk bulk) {
+		if (bulk.getDocuments().isEmpty()) {
+			return Completable.complete();
+		}
 
-				logger.debug("Try to call POST {}, with body {}", URL_BULK, bulk);
+		return Completable.defer(() -> {
+			// Composed once, for the request itself and for the debug log
+			final Buffer body = compressor == null || logger.isDebugEnabled() ? compose(bulk.getDocuments()) : null;
+			if (logger.isDebugEnabled()) {
+				logger.debug("Try to call POST {}, with body {}", URL_BULK, body.toString());
+			}
 
-				HttpClientRequest req = httpClient.post(URL_BULK);
-				req.putHeader(HttpHeaders.CONTENT_TYPE, "application/x-ndjson");
+			final Buffer data = compressor != null ? compressor.compress(bulk.getDocuments()) : body;
 
-				doRequest(req, bulk)
-						.subscribe(new SingleObserver<VertxHttpResponse>() {
-							@Override
-							public void onSubscribe(Disposable disposable) {
+			final HttpEndpoint endpoint = endpoints.next();
 
-							}
+			HttpClientRequest req = endpoint.getClient().post(URL_BULK);
+			req.putHeader(HttpHeaders.CONTENT_TYPE, "application/x-ndjson");
+			if (compressor != null) {
+				req.putHeader(HttpHeaders.CONTENT_ENCODING, BulkCompressor.GZIP);
+				logger.debug("Bulk body compressed to {} bytes, compression ratio is {}", data.length(),
+						compressor.getCompressionRatio());
+			}
+			req.setTimeout(configuration.getRequestTimeout());
+
+			bulkDocuments.record(bulk.size());
+			bulkBytes.record(data.length());
+			final long start = System.nanoTime();
+
+			return doRequest(req, data)
+					.doOnEvent((vertxHttpResponse, throwable) ->
+							bulkRoundTrip.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)))
+					.doOnSuccess(vertxHttpResponse -> {
+						if (vertxHttpResponse.response.statusCode() != HttpStatusCode.OK_200) {
+							metrics.counter("bulk.failures." + vertxHttpResponse.response.statusCode()).increment();
+						}
+						if (vertxHttpResponse.response.statusCode() >= HttpStatusCode.INTERNAL_SERVER_ERROR_500) {
+							logger.error("Elasticsearch endpoint {} failed on POST {} with status {}", endpoint, URL_BULK,
+									vertxHttpResponse.response.statusCode());
+							endpoints.markDown(endpoint);
+							failover(bulk);
+						} else {
+							final int rejected = handleBulkResponse(bulk, vertxHttpResponse);
+							adapt(bulk, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), rejected);
+						}
+					})
+					.doOnError(throwable -> {
+						metrics.counter("bulk.failures.connection").increment();
+						endpoints.markDown(endpoint);
+						failover(bulk);
+					})
+					.toCompletable();
+		})
+				.doOnError(throwable -> logger.error("An error occurs while calling Elasticsearch POST {}", URL_BULK, throwable))
+				.onErrorComplete();
+	}
 
-							@Override
-							public void onSuccess(VertxHttpResponse vertxHttpResponse) {
-								String body = vertxHttpResponse.body.toString();
+	/**
+	 * Adapt the size of the next bulk requests of the type of a bulk, if adaptive.
+	 *
+	 * @param bulk
+	 *            the documents of the bulk request
+	 * @param roundTrip
+	 *            the round-trip time of the bulk request in milliseconds
+	 * @param rejected
+	 *            the number of documents rejected because Elasticsearch is overloaded
+	 */
+	private void adapt(final Bulk bulk, final long roundTrip, final int rejected) {
+		final AdaptiveBulkSizer sizer = bulk.getType() == null ? null : bulkSizers.get(bulk.getType());
+		if (sizer == null) {
+			return;
+		}
 
-								logger.debug("Response of ES for POST {} : {}", URL_BULK, body);
+		sizer.onBulk(bulk.size(), roundTrip, rejected, bulkDispatcher.getLoad());
+		bulkBuffers.get(bulk.getType()).setMaxActions(sizer.getActions());
+	}
 
-								if (vertxHttpResponse.response.statusCode() != HttpStatusCode.OK_200) {
-									logger.error("Impossible to call Elasticsearch POST {}. Body is {}", URL_BULK, body);
-								}
-							}
+	/**
+	 * Check the response of a bulk request, and send again the documents rejected because Elasticsearch
+	 * is overloaded.
+	 *
+	 * @param bulk
+	 *            the documents of the bulk request
+	 * @param vertxHttpResponse
+	 *            the response of Elasticsearch
+	 * @return the number of documents rejected because Elasticsearch is overloaded
+	 */
+	private int handleBulkResponse(final Bulk bulk, final VertxHttpResponse vertxHttpResponse) {
+		String body = vertxHttpResponse.body.toString();
 
-							@Override
-							public void onError(Throwable throwable) {
-								logger.error("An error occurs while calling Elasticsearch POST {}", URL_BULK, throwable);
-							}
-						});
-			} catch (Exception ex) {
-				logger.error("Unexpected error while bulk indexing data to Elasticsearch", ex);
+		logger.debug("Response of ES for POST {} : {}", URL_BULK, body);
+
+		final int status = vertxHttpResponse.response.statusCode();
+
+		if (status == HttpStatusCode.OK_200) {
+			if (body.contains(BULK_ERRORS)) {
+				return retryRejectedItems(bulk, body);
+			}
+		} else if (BulkRetryPolicy.isRetryable(status)) {
+			logger.warn("Elasticsearch rejected a bulk request of {} documents", bulk.size());
+			retry(bulk, bulk.getDocuments());
+			return bulk.size();
+		} else {
+			logger.error("Impossible to call Elasticsearch POST {}. Body is {}", URL_BULK, body);
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Bulk items are in the same order than the documents of the request.
+	 *
+	 * @return the number of documents rejected because Elasticsearch is overloaded
+	 */
+	private int retryRejectedItems(final Bulk bulk, final String body) {
+		try {
+			final ESBulkResponse response = mapper.readValue(body, ESBulkResponse.class);
+			final List<BulkItemResponse> items = response.getItems();
+			if (items == null) {
+				return 0;
+			}
+
+			final List<Buffer> rejected = new ArrayList<>();
+			Failure firstError = null;
+			int failed = 0;
+
+			for (int i = 0; i < items.size() && i < bulk.size(); i++) {
+				final Index item = items.get(i).getIndex();
+
+				if (item != null && item.getError() != null) {
+					metrics.counter("bulk.items.failed." + item.getError().getType()).increment();
+				}
+
+				if (BulkRetryPolicy.isRetryable(item)) {
+					rejected.add(bulk.getDocuments().get(i));
+				} else if (item != null && item.getError() != null) {
+					failed++;
+					if (firstError == null) {
+						firstError = item.getError();
+					}
+				}
 			}
+
+			if (failed > 0) {
+				logger.error("{} documents have been refused by Elasticsearch. First error is {}: {}",
+						failed, firstError.getType(), firstError.getReason());
+			}
+
+			if (!rejected.isEmpty()) {
+				logger.warn("{} documents have been rejected by Elasticsearch", rejected.size());
+				retry(bulk, rejected);
+			}
+
+			return rejected.size();
+		} catch (IOException ioe) {
+			logger.error("Unable to read the response of Elasticsearch POST {}", URL_BULK, ioe);
+			return 0;
+		}
+	}
+
+	/**
+	 * Send a bulk request which failed on an endpoint to another endpoint. If there is no other endpoint
+	 * available, wait for the backoff delay.
+	 *
+	 * @param bulk
+	 *            the documents of the failed bulk request
+	 */
+	private void failover(final Bulk bulk) {
+		final int retry = bulk.getAttempt() + 1;
+
+		if (!endpoints.hasAvailable()) {
+			retry(bulk, bulk.getDocuments());
+		} else if (retryPolicy.canRetry(retry)) {
+			DocumentBuffers.retain(bulk.getDocuments());
+			bulkDispatcher.redispatch(new Bulk(bulk.getType(), bulk.getDocuments(), retry, bulk.handOver()));
+		} else {
+			drop(bulk.getDocuments(), retry);
 		}
 	}
 
-	private Single<VertxHttpResponse> doRequest(final HttpClientRequest request, final String body) {
+	/**
+	 * Send documents again after a backoff delay, as long as the retry budget allows it. The bulk sending them
+	 * again takes over the acknowledgement of the bulk they come from.
+	 *
+	 * @param bulk
+	 *            the bulk the documents come from
+	 * @param documents
+	 *            the documents to send again
+	 */
+	private void retry(final Bulk bulk, final List<Buffer> documents) {
+		final String type = bulk.getType();
+		final int retry = bulk.getAttempt() + 1;
+
+		if (!retryPolicy.canRetry(retry)) {
+			drop(documents, retry);
+			return;
+		}
+
+		final long delay = retryPolicy.delay(retry);
+		logger.debug("Retry {} documents in {} ms", documents.size(), delay);
+
+		// Kept until sent again, the bulk they come from is acknowledged in the meantime
+		DocumentBuffers.retain(documents);
+		final Runnable acknowledgement = bulk.handOver();
+		vertx.setTimer(delay, timerId -> bulkDispatcher.redispatch(new Bulk(type, documents, retry, acknowledgement)));
+	}
+
+	/**
+	 * Give up sending documents: they are kept in the spool if enabled, dropped otherwise.
+	 *
+	 * @param documents
+	 *            the documents which can not be sent
+	 * @param attempts
+	 *            the number of times the documents have been sent
+	 */
+	private void drop(final List<Buffer> documents, final int attempts) {
+		if (spool != null && spool.write(documents)) {
+			metrics.counter("documents.spooled").add(documents.size());
+			logger.warn("{} documents are spooled after {} attempts", documents.size(), attempts);
+		} else {
+			metrics.counter("documents.dropped.retries").add(documents.size());
+			logger.error("{} documents are dropped after {} attempts", documents.size(), attempts);
+		}
+	}
+
+	/**
+	 * Aggregate the bulk lines into a single buffer without copying them.
+	 *
+	 * @param data
+	 *            the bulk lines
+	 * @return the body of the bulk request
+	 */
+	static Buffer compose(final List<Buffer> data) {
+		final CompositeByteBuf bulk = Unpooled.compositeBuffer(data.size());
+		for (Buffer lines : data) {
+			bulk.addComponent(true, lines.getDelegate().getByteBuf());
+		}
+		return Buffer.newInstance(io.vertx.core.buffer.Buffer.buffer(bulk));
+	}
+
+	private Single<VertxHttpResponse> doRequest(final HttpClientRequest request, final Buffer body) {
 		addCommonHeaders(request);
-		return Single.create(singleEmitter ->
+		return Single.<VertxHttpResponse>create(singleEmitter ->
 				request
 						.exceptionHandler(singleEmitter::onError)
 						.toFlowable()
@@ -375,8 +911,8 @@ public class ElasticsearchBulkIndexer {
 								});
 							}
 						})
-						.subscribe());
-
+						.subscribe())
+				.subscribeOn(scheduler);
 	}
 
 	/**
@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Distribute the requests over the Elasticsearch endpoints in a round-robin fashion.
+ *
+ * Endpoints failing with a connection error or a server error are skipped until a probe marks them as
+ * available again. When no endpoint is available, they are all used: a request may still succeed and
+ * there is nothing better to do.
+ *
+ * The configured endpoints are the seeds of the pool. Once replaced by the discovered nodes, they are kept as a
+ * fallback: the nodes of a cluster may publish addresses which are not reachable from the gateway, behind a NAT
+ * or a proxy for example, and the seeds are used as soon as none of the discovered nodes is available.
+ *
+ * @author GraviteeSource Team
+ */
+class EndpointPool {
+
+    private final Logger logger = LoggerFactory.getLogger(EndpointPool.class);
+
+    private final List<HttpEndpoint> seeds;
+
+    private volatile List<HttpEndpoint> endpoints;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    EndpointPool(List<HttpEndpoint> endpoints) {
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("At least one Elasticsearch endpoint is required");
+        }
+        this.seeds = Collections.unmodifiableList(new ArrayList<>(endpoints));
+        this.endpoints = seeds;
+    }
+
+    /**
+     * @return the endpoint to use for the next request
+     */
+    HttpEndpoint next() {
+        final List<HttpEndpoint> all = endpoints;
+        final int start = Math.floorMod(counter.getAndIncrement(), all.size());
+
+        for (int i = 0; i < all.size(); i++) {
+            final HttpEndpoint endpoint = all.get((start + i) % all.size());
+            if (endpoint.isAvailable()) {
+                return endpoint;
+            }
+        }
+
+        if (all != seeds) {
+            for (int i = 0; i < seeds.size(); i++) {
+                final HttpEndpoint seed = seeds.get((start + i) % seeds.size());
+                if (seed.isAvailable()) {
+                    return seed;
+                }
+            }
+        }
+
+        return all.get(start);
+    }
+
+    void markDown(HttpEndpoint endpoint) {
+        if (endpoint.isAvailable()) {
+            endpoint.setAvailable(false);
+            logger.warn("Elasticsearch endpoint {} is unavailable", endpoint);
+        }
+    }
+
+    void markUp(HttpEndpoint endpoint) {
+        if (!endpoint.isAvailable()) {
+            endpoint.setAvailable(true);
+            logger.info("Elasticsearch endpoint {} is available again", endpoint);
+        }
+    }
+
+    /**
+     * Replace the endpoints, for example with the nodes discovered by sniffing. The endpoints which are
+     * already known, seeds included, are kept as is, with their client and availability.
+     *
+     * @param urls the URL of the new endpoints
+     * @param factory the factory of the endpoints which are not known yet
+     * @return the endpoints which are not used anymore, never a seed
+     */
+    List<HttpEndpoint> update(List<String> urls, Function<String, HttpEndpoint> factory) {
+        if (urls.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final Map<String, HttpEndpoint> known = new LinkedHashMap<>();
+        seeds.forEach(seed -> known.put(seed.getUrl(), seed));
+        endpoints.forEach(endpoint -> known.put(endpoint.getUrl(), endpoint));
+
+        final List<HttpEndpoint> updated = new ArrayList<>(urls.size());
+        boolean changed = false;
+        for (String url : new LinkedHashSet<>(urls)) {
+            HttpEndpoint endpoint = known.remove(url);
+            if (endpoint == null) {
+                endpoint = factory.apply(url);
+                changed = true;
+            }
+            updated.add(endpoint);
+        }
+
+        this.endpoints = Collections.unmodifiableList(updated);
+
+        final List<HttpEndpoint> removed = new ArrayList<>(known.values());
+        removed.removeAll(seeds);
+
+        if (changed || !removed.isEmpty()) {
+            logger.info("Elasticsearch endpoints are now {}", updated);
+        }
+
+        return removed;
+    }
+
+    boolean hasAvailable() {
+        return endpoints.stream().anyMatch(HttpEndpoint::isAvailable)
+                || seeds.stream().anyMatch(HttpEndpoint::isAvailable);
+    }
+
+    List<HttpEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * @return the unavailable endpoints, seeds included even once replaced, so that they can be probed
+     */
+    List<HttpEndpoint> getUnavailableEndpoints() {
+        final Set<HttpEndpoint> all = new LinkedHashSet<>(endpoints);
+        all.addAll(seeds);
+
+        return all.stream()
+                .filter(endpoint -> !endpoint.isAvailable())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import io.vertx.reactivex.core.http.HttpClient;
+
+/**
+ * An Elasticsearch node reachable over HTTP, with the client used to call it.
+ *
+ * @author GraviteeSource Team
+ */
+class HttpEndpoint {
+
+    private final String url;
+
+    private final HttpClient client;
+
+    private volatile boolean available = true;
+
+    HttpEndpoint(String url, HttpClient client) {
+        this.url = url;
+        this.client = client;
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    HttpClient getClient() {
+        return client;
+    }
+
+    boolean isAvailable() {
+        return available;
+    }
+
+    void setAvailable(boolean available) {
+        this.available = available;
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Read the Elasticsearch nodes able to index documents from a <code>GET /_nodes/http</code> response.
+ *
+ * Elasticsearch 5 gives the roles of each node, where the data and ingest nodes are kept. Elasticsearch 2
+ * only flags the nodes which do not hold data, with the <code>data</code> attribute.
+ *
+ * @author GraviteeSource Team
+ */
+class NodeSniffer {
+
+    static final String URL_NODES_HTTP = "/_nodes/http";
+
+    private final ObjectMapper mapper;
+
+    private final String scheme;
+
+    /**
+     * @param mapper the JSON mapper
+     * @param scheme the scheme of the discovered endpoints, <code>http</code> or <code>https</code>
+     */
+    NodeSniffer(ObjectMapper mapper, String scheme) {
+        this.mapper = mapper;
+        this.scheme = scheme;
+    }
+
+    /**
+     * @param body the response of <code>GET /_nodes/http</code>
+     * @return the URL of the data and ingest nodes exposing HTTP
+     */
+    List<String> sniff(String body) throws IOException {
+        final List<String> urls = new ArrayList<>();
+        final Iterator<JsonNode> nodes = mapper.readTree(body).path("nodes").elements();
+
+        while (nodes.hasNext()) {
+            final JsonNode node = nodes.next();
+            final String address = node.path("http").path("publish_address").asText(null);
+
+            if (address != null && isIndexingNode(node)) {
+                urls.add(scheme + "://" + host(address));
+            }
+        }
+
+        return urls;
+    }
+
+    private boolean isIndexingNode(JsonNode node) {
+        final JsonNode roles = node.get("roles");
+
+        if (roles == null) {
+            return !"false".equals(node.path("attributes").path("data").asText());
+        }
+
+        for (JsonNode role : roles) {
+            if ("data".equals(role.asText()) || "ingest".equals(role.asText())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The publish address is either <code>ip:port</code> or <code>hostname/ip:port</code>.
+     */
+    private String host(String address) {
+        final int slash = address.indexOf('/');
+        return slash == -1 ? address : address.substring(slash + 1);
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import io.vertx.reactivex.core.buffer.Buffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Send the spooled documents to Elasticsearch, one segment after the other, without overflowing the
+ * dispatcher. A segment is deleted once all its bulk requests are done: once its documents are indexed, spooled
+ * again or dropped. Documents sent again after a rejection keep the segment until the retry is done too.
+ *
+ * @author GraviteeSource Team
+ */
+class SpoolReplayer {
+
+    private final Logger logger = LoggerFactory.getLogger(SpoolReplayer.class);
+
+    private final DiskSpool spool;
+
+    private final BulkDispatcher dispatcher;
+
+    private final int bulkActions;
+
+    /**
+     * Tell whether Elasticsearch may be called.
+     */
+    private final BooleanSupplier available;
+
+    /**
+     * Run the next replay step once a bulk request is done.
+     */
+    private final Executor executor;
+
+    private DiskSpool.Segment segment;
+
+    private List<Buffer> documents;
+
+    private int offset;
+
+    private int unacknowledged;
+
+    SpoolReplayer(DiskSpool spool, BulkDispatcher dispatcher, int bulkActions, BooleanSupplier available,
+                  Executor executor) {
+        this.spool = spool;
+        this.dispatcher = dispatcher;
+        this.bulkActions = Math.max(1, bulkActions);
+        this.available = available;
+        this.executor = executor;
+    }
+
+    /**
+     * Dispatch spooled documents as long as the dispatcher has room for them.
+     */
+    synchronized void replay() {
+        while (available.getAsBoolean() && dispatcher.hasCapacity()) {
+            if (segment == null && !next()) {
+                return;
+            }
+
+            if (offset >= documents.size()) {
+                // Wait for the bulk requests of the segment before replaying the next one
+                return;
+            }
+
+            final int end = Math.min(documents.size(), offset + bulkActions);
+            final List<Buffer> bulk = documents.subList(offset, end);
+            offset = end;
+            unacknowledged++;
+
+            dispatcher.dispatch(new Bulk(bulk, 0, this::acknowledge));
+        }
+    }
+
+    private boolean next() {
+        final DiskSpool.Segment next = spool.poll();
+        if (next == null) {
+            return false;
+        }
+
+        try {
+            documents = next.read();
+            segment = next;
+            offset = 0;
+            logger.info("Replay {} spooled documents from {}", documents.size(), segment);
+        } catch (IOException ioe) {
+            logger.error("Unable to read the spooled segment {}, it is dropped", next, ioe);
+            spool.delete(next);
+            return next();
+        }
+
+        if (documents.isEmpty()) {
+            complete();
+            return next();
+        }
+
+        return true;
+    }
+
+    private synchronized void acknowledge() {
+        unacknowledged--;
+        if (unacknowledged == 0 && segment != null && offset >= documents.size()) {
+            complete();
+        }
+        executor.execute(this::replay);
+    }
+
+    private void complete() {
+        spool.delete(segment);
+        segment = null;
+        documents = null;
+    }
+}
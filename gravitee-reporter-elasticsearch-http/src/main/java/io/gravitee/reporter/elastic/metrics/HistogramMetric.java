@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Distribution of the values of a metric, such as a latency or a size, since the reporter started and since
+ * the previous report.
+ *
+ * Values are recorded without locking in a {@link Recorder}, and merged into both distributions when one
+ * of them is read.
+ *
+ * @author GraviteeSource Team
+ */
+public class HistogramMetric {
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+
+    private final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+
+    private final Histogram sinceLastReport = new Histogram(SIGNIFICANT_DIGITS);
+
+    private Histogram interval;
+
+    /**
+     * @param value the value to record, negative values are recorded as 0
+     */
+    public void record(long value) {
+        recorder.recordValue(Math.max(0, value));
+    }
+
+    /**
+     * @return a copy of the distribution of all the recorded values
+     */
+    public synchronized Histogram snapshot() {
+        collect();
+        return total.copy();
+    }
+
+    /**
+     * @return a copy of the distribution of the values recorded since the previous call
+     */
+    public synchronized Histogram reportSnapshot() {
+        collect();
+        final Histogram report = sinceLastReport.copy();
+        sinceLastReport.reset();
+        return report;
+    }
+
+    private void collect() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        sinceLastReport.add(interval);
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.metrics;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Counters, gauges and histograms describing the activity of the reporter: documents buffered, bulk requests
+ * in flight, round-trip time and size of the bulk requests, encoding time, failures and dropped documents.
+ *
+ * The metrics are identified by a dotted name, which is never the prefix of the name of another metric so
+ * that they can also be read as a tree. They are read as a flat {@link #snapshot()}, which is what
+ * {@link JmxMetricsExporter} exposes, and what another metrics registry can poll.
+ *
+ * @author GraviteeSource Team
+ */
+public class ReporterMetrics {
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    private final Map<String, HistogramMetric> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * @param name the name of the counter
+     * @return the counter, created on first use
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Register a value read when the metrics are read, replacing the previous gauge of the same name.
+     *
+     * @param name the name of the gauge
+     * @param value the current value of the gauge
+     */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * @param name the name of the histogram
+     * @return the histogram, created on first use
+     */
+    public HistogramMetric histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new HistogramMetric());
+    }
+
+    /**
+     * Read all the metrics. A histogram is read as its count, mean, median, 99th and 99.9th percentiles and
+     * maximum, suffixed by <code>.count</code>, <code>.mean</code>, <code>.p50</code>, <code>.p99</code>,
+     * <code>.p999</code> and <code>.max</code>.
+     *
+     * @return the value of each metric, sorted by name
+     */
+    public Map<String, Number> snapshot() {
+        return snapshot(HistogramMetric::snapshot);
+    }
+
+    /**
+     * Read all the metrics as {@link #snapshot()} does, except that the histograms only cover the values
+     * recorded since the previous report.
+     *
+     * @return the value of each metric, sorted by name
+     */
+    public Map<String, Number> reportSnapshot() {
+        return snapshot(HistogramMetric::reportSnapshot);
+    }
+
+    private Map<String, Number> snapshot(Function<HistogramMetric, Histogram> reader) {
+        final Map<String, Number> snapshot = new TreeMap<>();
+
+        counters.forEach((name, counter) -> snapshot.put(name, counter.sum()));
+        gauges.forEach((name, gauge) -> snapshot.put(name, gauge.getAsLong()));
+        histograms.forEach((name, metric) -> {
+            final Histogram histogram = reader.apply(metric);
+            snapshot.put(name + ".count", histogram.getTotalCount());
+            snapshot.put(name + ".mean", histogram.getMean());
+            snapshot.put(name + ".p50", histogram.getValueAtPercentile(50));
+            snapshot.put(name + ".p99", histogram.getValueAtPercentile(99));
+            snapshot.put(name + ".p999", histogram.getValueAtPercentile(99.9));
+            snapshot.put(name + ".max", histogram.getMaxValue());
+        });
+
+        return snapshot;
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.model;
+
+/**
+ * What to do with a bulk request when all the concurrent requests are in flight and the queue of
+ * pending bulk requests is full.
+ *
+ * @author GraviteeSource Team
+ */
+public enum OverflowPolicy {
+
+    /**
+     * The calling thread waits until a pending bulk request is sent.
+     * Event loop threads are never blocked: the new bulk request is dropped instead.
+     */
+    BLOCK,
+
+    /**
+     * The oldest pending bulk request is dropped.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The new bulk request is dropped.
+     */
+    DROP_NEWEST,
+
+    /**
+     * The new bulk request is written to the disk spool, and sent once Elasticsearch can take it.
+     * Documents whose retries are exhausted are spooled too.
+     */
+    SPILL
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.rollup;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Count, sum, minimum, maximum and distribution of a latency over a rollup window.
+ *
+ * The distribution is kept in a {@link Histogram}, which can be merged with the ones of the other windows and
+ * of the other gateways.
+ *
+ * @author GraviteeSource Team
+ */
+public class LatencyStats {
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final Histogram histogram = new Histogram(SIGNIFICANT_DIGITS);
+
+    private long count;
+
+    private long sum;
+
+    private long min = Long.MAX_VALUE;
+
+    private long max;
+
+    /**
+     * @param value the latency in milliseconds, negative values are unknown latencies and ignored
+     */
+    void record(long value) {
+        if (value < 0) {
+            return;
+        }
+
+        histogram.recordValue(value);
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency at this percentile
+     */
+    public long getPercentile(double percentile) {
+        return histogram.getValueAtPercentile(percentile);
+    }
+
+    public Histogram getHistogram() {
+        return histogram;
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.rollup;
+
+import io.gravitee.reporter.api.http.Metrics;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Aggregate the request metrics in memory over a window, by API, application, plan and status, so that a
+ * single rollup document is indexed for each of them instead of one document per request.
+ *
+ * @author GraviteeSource Team
+ */
+public class MetricsRollup {
+
+    /**
+     * Recording holds the read lock, so that no metrics is recorded in a window once it is drained.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Key, RequestRollup> rollups = new ConcurrentHashMap<>();
+
+    private Instant start;
+
+    public MetricsRollup(Instant start) {
+        this.start = start;
+    }
+
+    /**
+     * Add the metrics of a request to the rollup of the current window.
+     */
+    public void record(Metrics metrics) {
+        final Key key = new Key(metrics.getApi(), metrics.getApplication(), metrics.getPlan(), metrics.getStatus());
+
+        lock.readLock().lock();
+        try {
+            rollups.computeIfAbsent(key, k -> new RequestRollup(k.api, k.application, k.plan, k.status, start))
+                    .record(metrics);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * End the current window and start the next one.
+     *
+     * @param end the end of the current window, also the start of the next one
+     * @return the closed rollups of the window
+     */
+    public List<RequestRollup> drain(Instant end) {
+        final Map<Key, RequestRollup> window;
+
+        lock.writeLock().lock();
+        try {
+            window = rollups;
+            this.start = end;
+            this.rollups = new ConcurrentHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        final List<RequestRollup> closed = new ArrayList<>(window.size());
+        for (RequestRollup rollup : window.values()) {
+            rollup.close(end);
+            closed.add(rollup);
+        }
+        return closed;
+    }
+
+    /**
+     * @return the number of rollups of the current window
+     */
+    public int getSize() {
+        lock.readLock().lock();
+        try {
+            return rollups.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final class Key {
+
+        private final String api;
+
+        private final String application;
+
+        private final String plan;
+
+        private final int status;
+
+        private Key(String api, String application, String plan, int status) {
+            this.api = api;
+            this.application = application;
+            this.plan = plan;
+            this.status = status;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return status == key.status && Objects.equals(api, key.api) &&
+                    Objects.equals(application, key.application) && Objects.equals(plan, key.plan);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(api, application, plan, status);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.rollup;
+
+import io.gravitee.reporter.api.http.Metrics;
+
+import java.time.Instant;
+
+/**
+ * Aggregate of the request metrics of a window sharing the same API, application, plan and status.
+ *
+ * A rollup is closed once its window is over: it can then be read.
+ *
+ * @author GraviteeSource Team
+ */
+public class RequestRollup {
+
+    private final String api;
+
+    private final String application;
+
+    private final String plan;
+
+    private final int status;
+
+    private final Instant start;
+
+    private Instant end;
+
+    private long count;
+
+    private final LatencyStats responseTime = new LatencyStats();
+
+    private final LatencyStats apiResponseTime = new LatencyStats();
+
+    private final LatencyStats proxyLatency = new LatencyStats();
+
+    RequestRollup(String api, String application, String plan, int status, Instant start) {
+        this.api = api;
+        this.application = application;
+        this.plan = plan;
+        this.status = status;
+        this.start = start;
+    }
+
+    synchronized void record(Metrics metrics) {
+        count++;
+        responseTime.record(metrics.getProxyResponseTimeMs());
+        apiResponseTime.record(metrics.getApiResponseTimeMs());
+        proxyLatency.record(metrics.getProxyLatencyMs());
+    }
+
+    synchronized void close(Instant end) {
+        this.end = end;
+    }
+
+    public String getApi() {
+        return api;
+    }
+
+    public String getApplication() {
+        return application;
+    }
+
+    public String getPlan() {
+        return plan;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public synchronized Instant getEnd() {
+        return end;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public LatencyStats getResponseTime() {
+        return responseTime;
+    }
+
+    public LatencyStats getApiResponseTime() {
+        return apiResponseTime;
+    }
+
+    public LatencyStats getProxyLatency() {
+        return proxyLatency;
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.serializer;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.PrettyPrinter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Base class for the serializers writing bulk lines with a Jackson {@link JsonGenerator}.
+ *
+ * The pretty printers reproduce the layout of the FreeMarker templates (once compressed) so that both
+ * serializers produce the same bulk lines.
+ *
+ * @author GraviteeSource Team
+ */
+public abstract class AbstractJsonSerializer {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+
+    /**
+     * Layout of the action line: <code>{ "index" : { "_index" : "...", "_type" : "..."} }</code>
+     */
+    private static final PrettyPrinter ACTION_PRETTY_PRINTER = new LayoutPrettyPrinter(" : ", ", ", "}", " }");
+
+    /**
+     * Layout of a document rendered inside a <code>&lt;@compress single_line=true&gt;</code> directive.
+     */
+    private static final PrettyPrinter DOCUMENT_PRETTY_PRINTER = new LayoutPrettyPrinter(":", " ,", " }", " }");
+
+    protected JsonGenerator createGenerator(OutputStream output) throws IOException {
+        return JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8);
+    }
+
+    /**
+     * Write the bulk action line, followed by a line feed.
+     * The document pretty printer is installed for the next value written by the generator.
+     */
+    protected void writeIndexAction(JsonGenerator generator, String index, String type, String id,
+                                    String pipeline) throws IOException {
+        generator.setPrettyPrinter(ACTION_PRETTY_PRINTER);
+        generator.writeStartObject();
+        generator.writeObjectFieldStart("index");
+        generator.writeStringField("_index", index);
+        generator.writeStringField("_type", type);
+        if (id != null) {
+            generator.writeStringField("_id", id);
+        }
+        if (pipeline != null) {
+            generator.writeStringField("pipeline", pipeline);
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+
+        generator.setPrettyPrinter(DOCUMENT_PRETTY_PRINTER);
+    }
+
+    /**
+     * Write a string field only when the value is not <code>null</code>.
+     */
+    protected void writeOptionalField(JsonGenerator generator, String name, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value);
+        }
+    }
+
+    /**
+     * Close the document and the generator, keeping the underlying output open.
+     */
+    protected void endDocument(JsonGenerator generator) throws IOException {
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        generator.close();
+    }
+
+    /**
+     * Pretty printer writing fixed separators. Nested objects and root objects may be closed differently.
+     */
+    private static final class LayoutPrettyPrinter implements PrettyPrinter {
+
+        private final String fieldValueSeparator;
+        private final String entrySeparator;
+        private final String nestedObjectEnd;
+        private final String rootObjectEnd;
+
+        private LayoutPrettyPrinter(String fieldValueSeparator, String entrySeparator,
+                                    String nestedObjectEnd, String rootObjectEnd) {
+            this.fieldValueSeparator = fieldValueSeparator;
+            this.entrySeparator = entrySeparator;
+            this.nestedObjectEnd = nestedObjectEnd;
+            this.rootObjectEnd = rootObjectEnd;
+        }
+
+        @Override
+        public void writeRootValueSeparator(JsonGenerator generator) throws IOException {
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void writeStartObject(JsonGenerator generator) throws IOException {
+            generator.writeRaw('{');
+        }
+
+        @Override
+        public void beforeObjectEntries(JsonGenerator generator) throws IOException {
+            generator.writeRaw(' ');
+        }
+
+        @Override
+        public void writeObjectFieldValueSeparator(JsonGenerator generator) throws IOException {
+            generator.writeRaw(fieldValueSeparator);
+        }
+
+        @Override
+        public void writeObjectEntrySeparator(JsonGenerator generator) throws IOException {
+            generator.writeRaw(entrySeparator);
+        }
+
+        @Override
+        public void writeEndObject(JsonGenerator generator, int nrOfEntries) throws IOException {
+            if (nrOfEntries == 0) {
+                generator.writeRaw(" }");
+            } else if (generator.getOutputContext().getParent().inRoot()) {
+                generator.writeRaw(rootObjectEnd);
+            } else {
+                generator.writeRaw(nestedObjectEnd);
+            }
+        }
+
+        @Override
+        public void writeStartArray(JsonGenerator generator) throws IOException {
+            generator.writeRaw("[ ");
+        }
+
+        @Override
+        public void beforeArrayValues(JsonGenerator generator) {
+        }
+
+        @Override
+        public void writeArrayValueSeparator(JsonGenerator generator) throws IOException {
+            generator.writeRaw(" , ");
+        }
+
+        @Override
+        public void writeEndArray(JsonGenerator generator, int nrOfValues) throws IOException {
+            generator.writeRaw(" ]");
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.serializer;
+
+import io.netty.buffer.ByteBuf;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Low level JSON writes into a {@link ByteBuf}, without intermediate objects.
+ *
+ * @author GraviteeSource Team
+ */
+final class JsonBytes {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] LONG_MIN_VALUE = ascii(Long.toString(Long.MIN_VALUE));
+
+    private JsonBytes() {
+    }
+
+    /**
+     * Encode a constant JSON fragment.
+     */
+    static byte[] ascii(String fragment) {
+        return fragment.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a long in its decimal form.
+     */
+    static void writeLong(ByteBuf output, long value) {
+        if (value == Long.MIN_VALUE) {
+            output.writeBytes(LONG_MIN_VALUE);
+            return;
+        }
+
+        if (value < 0) {
+            output.writeByte('-');
+            value = -value;
+        }
+
+        int digits = 1;
+        for (long bound = 10; digits < 19 && value >= bound; bound *= 10) {
+            digits++;
+        }
+
+        output.ensureWritable(digits);
+        final int start = output.writerIndex();
+        for (int i = start + digits - 1; i >= start; i--) {
+            output.setByte(i, '0' + (int) (value % 10));
+            value /= 10;
+        }
+        output.writerIndex(start + digits);
+    }
+
+    /**
+     * Write a double the same way FreeMarker does with the <code>computer</code> number format:
+     * no exponent and no trailing <code>.0</code>.
+     */
+    static void writeDouble(ByteBuf output, double value) {
+        if (value == (long) value) {
+            writeLong(output, (long) value);
+        } else if (Double.isNaN(value) || Double.isInfinite(value)) {
+            output.writeBytes(ascii("null"));
+        } else {
+            final String str = Double.toString(value);
+            if (str.indexOf('E') == -1) {
+                writeAscii(output, str);
+            } else {
+                writeAscii(output, new BigDecimal(str).stripTrailingZeros().toPlainString());
+            }
+        }
+    }
+
+    /**
+     * Write a quoted and escaped JSON string, or <code>null</code>.
+     */
+    static void writeString(ByteBuf output, String value) {
+        if (value == null) {
+            output.writeBytes(ascii("null"));
+            return;
+        }
+
+        output.writeByte('"');
+        writeEscaped(output, value, 0, value.length());
+        output.writeByte('"');
+    }
+
+    /**
+     * Write a quoted and escaped JSON string, or <code>null</code>, a chunk of characters at a time: the output
+     * grows as the string is escaped instead of making room for the whole string upfront.
+     */
+    static void writeString(ByteBuf output, String value, int chunkSize) {
+        if (value == null) {
+            output.writeBytes(ascii("null"));
+            return;
+        }
+
+        output.writeByte('"');
+        for (int start = 0; start < value.length(); ) {
+            int end = Math.min(value.length(), start + chunkSize);
+            // Do not split a surrogate pair between two chunks
+            if (end < value.length() && Character.isHighSurrogate(value.charAt(end - 1))) {
+                end++;
+            }
+            writeEscaped(output, value, start, end);
+            start = end;
+        }
+        output.writeByte('"');
+    }
+
+    /**
+     * Write the escaped UTF-8 form of a range of characters, without quotes.
+     */
+    static void writeEscaped(ByteBuf output, CharSequence value, int start, int end) {
+        output.ensureWritable(end - start);
+
+        for (int i = start; i < end; i++) {
+            final char c = value.charAt(i);
+
+            if (c >= 0x20 && c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    output.writeByte('\\');
+                }
+                output.writeByte(c);
+            } else if (c < 0x20) {
+                output.writeByte('\\');
+                switch (c) {
+                    case '\n':
+                        output.writeByte('n');
+                        break;
+                    case '\r':
+                        output.writeByte('r');
+                        break;
+                    case '\t':
+                        output.writeByte('t');
+                        break;
+                    case '\b':
+                        output.writeByte('b');
+                        break;
+                    case '\f':
+                        output.writeByte('f');
+                        break;
+                    default:
+                        output.writeByte('u');
+                        output.writeByte('0');
+                        output.writeByte('0');
+                        output.writeByte(HEX[c >> 4]);
+                        output.writeByte(HEX[c & 0xF]);
+                }
+            } else if (c < 0x800) {
+                output.writeByte(0xC0 | (c >> 6));
+                output.writeByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                output.writeByte(0xF0 | (codePoint >> 18));
+                output.writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+                output.writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                output.writeByte(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate
+                output.writeByte('?');
+            } else {
+                output.writeByte(0xE0 | (c >> 12));
+                output.writeByte(0x80 | ((c >> 6) & 0x3F));
+                output.writeByte(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Write a string known to be made of ASCII characters only.
+     */
+    static void writeAscii(ByteBuf output, String value) {
+        final int length = value.length();
+        output.ensureWritable(length);
+        for (int i = 0; i < length; i++) {
+            output.writeByte(value.charAt(i));
+        }
+    }
+}
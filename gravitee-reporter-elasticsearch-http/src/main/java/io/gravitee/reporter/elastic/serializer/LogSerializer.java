@@ -0,0 +1,207 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.serializer;
+
+import io.gravitee.common.http.HttpHeaders;
+import io.gravitee.reporter.api.common.Request;
+import io.gravitee.reporter.api.common.Response;
+import io.gravitee.reporter.api.log.Log;
+import io.gravitee.reporter.elastic.config.FieldProfile;
+import io.gravitee.reporter.elastic.engine.impl.LogTruncator;
+import io.netty.buffer.ByteBuf;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.gravitee.reporter.elastic.serializer.JsonBytes.ascii;
+import static io.gravitee.reporter.elastic.serializer.JsonBytes.writeLong;
+import static io.gravitee.reporter.elastic.serializer.JsonBytes.writeString;
+
+/**
+ * Write a {@link Log} as ES bulk lines, the same way <code>log.ftl</code> does.
+ *
+ * Bodies are by far the largest part of a log: they are escaped straight into the output buffer, a chunk of
+ * characters at a time, instead of being copied into an escaped string and then into the rendered document.
+ * The memory needed to write a log is the size of the document plus a chunk.
+ *
+ * Unlike the template, the URIs and the header names are escaped.
+ *
+ * @author GraviteeSource Team
+ */
+public class LogSerializer {
+
+    /**
+     * Number of characters of a body escaped at once.
+     */
+    private static final int CHUNK_SIZE = 4096;
+
+    private static final byte[] ACTION_START = ascii("{ \"index\" : { \"_index\" : ");
+    private static final byte[] ACTION_ID = ascii(", \"_type\" : \"log\", \"_id\" : ");
+    private static final byte[] ACTION_END = ascii(" } }\n{");
+
+    private static final byte[] CLIENT_REQUEST = ascii("\"client-request\": {");
+    private static final byte[] CLIENT_RESPONSE = ascii("\"client-response\": {");
+    private static final byte[] PROXY_REQUEST = ascii("\"proxy-request\": {");
+    private static final byte[] PROXY_RESPONSE = ascii("\"proxy-response\": {");
+
+    private static final byte[] METHOD = ascii(" \"method\":");
+    private static final byte[] URI = ascii(", \"uri\":");
+    private static final byte[] STATUS = ascii(" \"status\":");
+    private static final byte[] BODY = ascii(" ,\"body\":");
+    private static final byte[] HEADERS = ascii(" ,\"headers\":{");
+    private static final byte[] HEADER_VALUES = ascii(": [");
+    private static final byte[] HEADER_END = ascii(" ]");
+
+    private static final byte[] TRUNCATED = ascii(" ,\"truncated\":true");
+    private static final byte[] BODY_SIZE = ascii(" ,\"body-size\":");
+    private static final byte[] BODY_TAIL_HASH = ascii(" ,\"body-tail-sha256\":");
+
+    private static final byte[] SPACE = ascii(" ");
+    private static final byte[] LIST_SEPARATOR = ascii(" , ");
+    private static final byte[] SECTION_SEPARATOR = ascii(" ,");
+    private static final byte[] OBJECT_END = ascii(" }");
+    private static final byte[] DOCUMENT_END = ascii(" }\n");
+
+    private final FieldProfile profile;
+
+    public LogSerializer() {
+        this(FieldProfile.ALL);
+    }
+
+    /**
+     * @param profile the sections of the logs to write
+     */
+    public LogSerializer(FieldProfile profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Write the action line and the document of a log.
+     *
+     * @param truncated the log, with its truncated sections
+     * @param index the name of the index
+     * @param output the buffer to write into
+     */
+    public void write(LogTruncator.TruncatedLog truncated, String index, ByteBuf output) {
+        final Log log = truncated.getLog();
+
+        output.writeBytes(ACTION_START);
+        writeString(output, index);
+        output.writeBytes(ACTION_ID);
+        writeString(output, log.getRequestId());
+        output.writeBytes(ACTION_END);
+
+        boolean first = true;
+        first = writeRequest(log.getClientRequest(), LogTruncator.CLIENT_REQUEST, CLIENT_REQUEST, truncated, first, output);
+        first = writeResponse(log.getClientResponse(), LogTruncator.CLIENT_RESPONSE, CLIENT_RESPONSE, truncated, first, output);
+        first = writeRequest(log.getProxyRequest(), LogTruncator.PROXY_REQUEST, PROXY_REQUEST, truncated, first, output);
+        writeResponse(log.getProxyResponse(), LogTruncator.PROXY_RESPONSE, PROXY_RESPONSE, truncated, first, output);
+
+        output.writeBytes(DOCUMENT_END);
+    }
+
+    /**
+     * @return an estimate of the size of the document of a log, to allocate its buffer once
+     */
+    public static int estimateSize(Log log) {
+        return 512 + length(log.getClientRequest()) + length(log.getClientResponse())
+                + length(log.getProxyRequest()) + length(log.getProxyResponse());
+    }
+
+    private static int length(Request request) {
+        return request == null || request.getBody() == null ? 0 : request.getBody().length();
+    }
+
+    private static int length(Response response) {
+        return response == null || response.getBody() == null ? 0 : response.getBody().length();
+    }
+
+    private boolean writeRequest(Request request, String section, byte[] name, LogTruncator.TruncatedLog truncated,
+                                 boolean first, ByteBuf output) {
+        if (request == null || !profile.accepts(section)) {
+            return first;
+        }
+
+        startSection(name, first, output);
+        output.writeBytes(METHOD);
+        writeString(output, request.getMethod() == null ? null : request.getMethod().name());
+        output.writeBytes(URI);
+        writeString(output, request.getUri());
+        writeBodyAndHeaders(request.getBody(), request.getHeaders(), truncated.getTruncation(section), output);
+        return false;
+    }
+
+    private boolean writeResponse(Response response, String section, byte[] name, LogTruncator.TruncatedLog truncated,
+                                  boolean first, ByteBuf output) {
+        if (response == null || !profile.accepts(section)) {
+            return first;
+        }
+
+        startSection(name, first, output);
+        output.writeBytes(STATUS);
+        writeLong(output, response.getStatus());
+        writeBodyAndHeaders(response.getBody(), response.getHeaders(), truncated.getTruncation(section), output);
+        return false;
+    }
+
+    private void startSection(byte[] name, boolean first, ByteBuf output) {
+        output.writeBytes(first ? SPACE : SECTION_SEPARATOR);
+        output.writeBytes(name);
+    }
+
+    private void writeBodyAndHeaders(String body, HttpHeaders headers, LogTruncator.Truncation truncation,
+                                     ByteBuf output) {
+        if (body != null) {
+            output.writeBytes(BODY);
+            writeString(output, body, CHUNK_SIZE);
+        }
+
+        if (headers != null) {
+            output.writeBytes(HEADERS);
+            boolean firstHeader = true;
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                output.writeBytes(firstHeader ? SPACE : LIST_SEPARATOR);
+                writeString(output, header.getKey());
+                output.writeBytes(HEADER_VALUES);
+                boolean firstValue = true;
+                for (String value : header.getValue()) {
+                    if (value != null) {
+                        output.writeBytes(firstValue ? SPACE : LIST_SEPARATOR);
+                        writeString(output, value, CHUNK_SIZE);
+                        firstValue = false;
+                    }
+                }
+                output.writeBytes(HEADER_END);
+                firstHeader = false;
+            }
+            output.writeBytes(OBJECT_END);
+        }
+
+        if (truncation != null) {
+            output.writeBytes(TRUNCATED);
+            if (truncation.isBody()) {
+                output.writeBytes(BODY_SIZE);
+                writeLong(output, truncation.getBodySize());
+            }
+            if (truncation.getTailHash() != null) {
+                output.writeBytes(BODY_TAIL_HASH);
+                writeString(output, truncation.getTailHash());
+            }
+        }
+
+        output.writeBytes(OBJECT_END);
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.gravitee.reporter.api.http.Metrics;
+import io.gravitee.reporter.elastic.config.FieldProfile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Write a {@link Metrics} as ES bulk lines, the same way <code>request.ftl</code> does, with the fields of a
+ * {@link FieldProfile}.
+ *
+ * @author GraviteeSource Team
+ */
+public class MetricsSerializer extends AbstractJsonSerializer {
+
+    private static final String TYPE_REQUEST = "request";
+
+    private final String gateway;
+
+    private final DateTimeFormatter dateTimeFormatter;
+
+    private final FieldProfile profile;
+
+    public MetricsSerializer(String gateway, DateTimeFormatter dateTimeFormatter) {
+        this(gateway, dateTimeFormatter, FieldProfile.ALL);
+    }
+
+    public MetricsSerializer(String gateway, DateTimeFormatter dateTimeFormatter, FieldProfile profile) {
+        this.gateway = gateway;
+        this.dateTimeFormatter = dateTimeFormatter;
+        this.profile = profile;
+    }
+
+    /**
+     * Write the action line and the document of a request metrics.
+     *
+     * @param metrics the request metrics
+     * @param index the name of the index
+     * @param pipeline the ingest pipeline, may be <code>null</code>
+     * @param output the output to write into
+     */
+    public void write(Metrics metrics, String index, String pipeline, OutputStream output) throws IOException {
+        final JsonGenerator generator = createGenerator(output);
+
+        writeIndexAction(generator, index, TYPE_REQUEST, metrics.getRequestId(), pipeline);
+
+        generator.writeStartObject();
+        generator.writeStringField("gateway", gateway);
+        generator.writeStringField("@timestamp", dateTimeFormatter.format(metrics.timestamp()));
+        writeField(generator, "transaction", metrics.getTransactionId());
+        if (profile.accepts("method", metrics.getHttpMethod())) {
+            generator.writeFieldName("method");
+            if (metrics.getHttpMethod() != null) {
+                generator.writeNumber(metrics.getHttpMethod().code());
+            } else {
+                generator.writeNull();
+            }
+        }
+        writeField(generator, "uri", metrics.getUri());
+        if (profile.accepts("status")) {
+            generator.writeNumberField("status", metrics.getStatus());
+        }
+        if (profile.accepts("response-time")) {
+            generator.writeNumberField("response-time", metrics.getProxyResponseTimeMs());
+        }
+
+        writeOptionalField(generator, "api-response-time", metrics.getApiResponseTimeMs());
+        writeOptionalField(generator, "proxy-latency", metrics.getProxyLatencyMs());
+        writeOptionalField(generator, "request-content-length", metrics.getRequestContentLength());
+        writeOptionalField(generator, "response-content-length", metrics.getResponseContentLength());
+
+        writeOptionalField(generator, "api-key", metrics.getApiKey());
+        writeOptionalField(generator, "plan", metrics.getPlan());
+        writeOptionalField(generator, "api", metrics.getApi());
+        writeOptionalField(generator, "application", metrics.getApplication());
+
+        writeField(generator, "local-address", metrics.getLocalAddress());
+        writeField(generator, "remote-address", metrics.getRemoteAddress());
+
+        writeOptionalField(generator, "endpoint", metrics.getEndpoint());
+        writeOptionalField(generator, "tenant", metrics.getTenant());
+        writeOptionalField(generator, "message", metrics.getMessage());
+
+        endDocument(generator);
+    }
+
+    /**
+     * Write a string field, unless the profile excludes it.
+     */
+    private void writeField(JsonGenerator generator, String name, String value) throws IOException {
+        if (profile.accepts(name, value)) {
+            generator.writeStringField(name, value);
+        }
+    }
+
+    @Override
+    protected void writeOptionalField(JsonGenerator generator, String name, String value) throws IOException {
+        if (profile.accepts(name)) {
+            super.writeOptionalField(generator, name, value);
+        }
+    }
+
+    /**
+     * Write a number field only when the value is known, and the profile does not exclude it.
+     */
+    private void writeOptionalField(JsonGenerator generator, String name, long value) throws IOException {
+        if (value >= 0 && profile.accepts(name)) {
+            generator.writeNumberField(name, value);
+        }
+    }
+}
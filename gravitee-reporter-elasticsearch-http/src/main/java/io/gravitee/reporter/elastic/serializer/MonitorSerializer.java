@@ -0,0 +1,294 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.serializer;
+
+import io.gravitee.reporter.api.monitor.JvmInfo;
+import io.gravitee.reporter.api.monitor.Monitor;
+import io.gravitee.reporter.api.monitor.OsInfo;
+import io.gravitee.reporter.api.monitor.ProcessInfo;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.time.format.DateTimeFormatter;
+
+import static io.gravitee.reporter.elastic.serializer.JsonBytes.ascii;
+import static io.gravitee.reporter.elastic.serializer.JsonBytes.writeDouble;
+import static io.gravitee.reporter.elastic.serializer.JsonBytes.writeLong;
+import static io.gravitee.reporter.elastic.serializer.JsonBytes.writeString;
+
+/**
+ * Write a {@link Monitor} as ES bulk lines, the same way <code>monitor.ftl</code> does.
+ *
+ * Monitor documents are the largest ones sent by the reporter and are mostly made of numbers: the layout
+ * is written as constant byte fragments and the values are written as digits straight into the output
+ * buffer, so that no intermediate map or boxed value is created for a document.
+ *
+ * Unlike the template, a missing section of the monitor is left out of the document instead of failing
+ * the rendering.
+ *
+ * @author GraviteeSource Team
+ */
+public class MonitorSerializer {
+
+    private static final byte[] ACTION_START = ascii("{ \"index\" : { \"_index\" : ");
+    private static final byte[] ACTION_END = ascii(", \"_type\" : \"monitor\" } }\n{ ");
+
+    private static final byte[] OS = ascii("\"os\":{ ");
+    private static final byte[] CPU_PERCENT = ascii("\"cpu\":{ \"percent\":");
+    private static final byte[] LOAD_AVERAGE = ascii(", \"load_average\":{");
+    private static final byte[] LOAD_AVERAGE_1M = ascii("\"1m\":");
+    private static final byte[] LOAD_AVERAGE_5M = ascii("\"5m\":");
+    private static final byte[] LOAD_AVERAGE_15M = ascii("\"15m\":");
+    private static final byte[] MEM_TOTAL = ascii("\"mem\":{ \"total_in_bytes\":");
+    private static final byte[] MEM_FREE = ascii(", \"free_in_bytes\":");
+    private static final byte[] MEM_USED = ascii(", \"used_in_bytes\":");
+    private static final byte[] MEM_FREE_PERCENT = ascii(", \"free_percent\":");
+    private static final byte[] MEM_USED_PERCENT = ascii(", \"used_percent\":");
+
+    private static final byte[] PROCESS_TIMESTAMP = ascii("\"process\":{ \"timestamp\":");
+    private static final byte[] OPEN_FILE_DESCRIPTORS = ascii(", \"open_file_descriptors\":");
+    private static final byte[] MAX_FILE_DESCRIPTORS = ascii(", \"max_file_descriptors\":");
+
+    private static final byte[] JVM_TIMESTAMP = ascii("\"jvm\":{ \"timestamp\":");
+    private static final byte[] UPTIME_IN_MILLIS = ascii(", \"uptime_in_millis\":");
+    private static final byte[] HEAP_USED_IN_BYTES = ascii(", \"mem\":{ \"heap_used_in_bytes\":");
+    private static final byte[] HEAP_USED_PERCENT = ascii(", \"heap_used_percent\":");
+    private static final byte[] HEAP_COMMITTED_IN_BYTES = ascii(", \"heap_committed_in_bytes\":");
+    private static final byte[] HEAP_MAX_IN_BYTES = ascii(", \"heap_max_in_bytes\":");
+    private static final byte[] NON_HEAP_USED_IN_BYTES = ascii(", \"non_heap_used_in_bytes\":");
+    private static final byte[] NON_HEAP_COMMITTED_IN_BYTES = ascii(", \"non_heap_committed_in_bytes\":");
+    private static final byte[] POOLS = ascii(", \"pools\":{");
+    private static final byte[] POOL_USED = ascii(":{ \"used_in_bytes\":");
+    private static final byte[] POOL_MAX = ascii(", \"max_in_bytes\":");
+    private static final byte[] POOL_PEAK_USED = ascii(", \"peak_used_in_bytes\":");
+    private static final byte[] POOL_PEAK_MAX = ascii(", \"peak_max_in_bytes\":");
+    private static final byte[] THREADS_COUNT = ascii(", \"threads\":{ \"count\":");
+    private static final byte[] THREADS_PEAK_COUNT = ascii(", \"peak_count\":");
+    private static final byte[] GC_COLLECTORS = ascii(", \"gc\":{ \"collectors\":{");
+    private static final byte[] COLLECTION_COUNT = ascii(":{ \"collection_count\":");
+    private static final byte[] COLLECTION_TIME = ascii(", \"collection_time_in_millis\":");
+
+    private static final byte[] ENTRY_SEPARATOR = ascii(", ");
+    private static final byte[] LIST_SEPARATOR = ascii(" , ");
+    private static final byte[] LOAD_AVERAGE_SEPARATOR = ascii(" ,");
+    private static final byte[] OBJECT_END = ascii(" }");
+    private static final byte[] SECTION_END = ascii(" }, ");
+
+    private static final byte[] GATEWAY = ascii("\"gateway\":");
+    private static final byte[] HOSTNAME = ascii(", \"hostname\":");
+    private static final byte[] TIMESTAMP = ascii(", \"@timestamp\":");
+    private static final byte[] DOCUMENT_END = ascii(" }\n");
+
+    private final DateTimeFormatter dateTimeFormatter;
+
+    /**
+     * The gateway and hostname fields never change: they are encoded once.
+     */
+    private final byte[] gatewayAndHostname;
+
+    public MonitorSerializer(String gateway, String hostname, DateTimeFormatter dateTimeFormatter) {
+        this.dateTimeFormatter = dateTimeFormatter;
+
+        final ByteBuf buffer = Unpooled.buffer();
+        buffer.writeBytes(GATEWAY);
+        writeString(buffer, gateway);
+        buffer.writeBytes(HOSTNAME);
+        writeString(buffer, hostname);
+        this.gatewayAndHostname = new byte[buffer.readableBytes()];
+        buffer.readBytes(gatewayAndHostname);
+    }
+
+    /**
+     * Write the action line and the document of a monitor.
+     *
+     * @param monitor the node monitor
+     * @param index the name of the index
+     * @param output the buffer to write into
+     */
+    public void write(Monitor monitor, String index, ByteBuf output) {
+        output.writeBytes(ACTION_START);
+        writeString(output, index);
+        output.writeBytes(ACTION_END);
+
+        if (monitor.getOs() != null) {
+            writeOs(monitor.getOs(), output);
+        }
+
+        if (monitor.getProcess() != null) {
+            writeProcess(monitor.getProcess(), output);
+        }
+
+        if (monitor.getJvm() != null) {
+            writeJvm(monitor.getJvm(), output);
+        }
+
+        output.writeBytes(gatewayAndHostname);
+        output.writeBytes(TIMESTAMP);
+        writeString(output, dateTimeFormatter.format(monitor.timestamp()));
+        output.writeBytes(DOCUMENT_END);
+    }
+
+    private void writeOs(OsInfo os, ByteBuf output) {
+        output.writeBytes(OS);
+
+        if (os.cpu != null) {
+            output.writeBytes(CPU_PERCENT);
+            writeLong(output, os.cpu.getPercent());
+            output.writeBytes(LOAD_AVERAGE);
+            writeLoadAverage(os.cpu.getLoadAverage(), output);
+            output.writeBytes(OBJECT_END);
+            output.writeBytes(OBJECT_END);
+
+            if (os.mem != null) {
+                output.writeBytes(ENTRY_SEPARATOR);
+            }
+        }
+
+        if (os.mem != null) {
+            output.writeBytes(MEM_TOTAL);
+            writeLong(output, os.mem.getTotal());
+            output.writeBytes(MEM_FREE);
+            writeLong(output, os.mem.getFree());
+            output.writeBytes(MEM_USED);
+            writeLong(output, os.mem.getUsed());
+            output.writeBytes(MEM_FREE_PERCENT);
+            writeLong(output, os.mem.getFreePercent());
+            output.writeBytes(MEM_USED_PERCENT);
+            writeLong(output, os.mem.getUsedPercent());
+            output.writeBytes(OBJECT_END);
+        }
+
+        output.writeBytes(SECTION_END);
+    }
+
+    /**
+     * Load averages set to <code>-1</code> are not available on the platform and are left out.
+     */
+    private void writeLoadAverage(double[] loadAverage, ByteBuf output) {
+        boolean first = true;
+
+        if (loadAverage != null) {
+            first = writeLoadAverage(loadAverage, 0, LOAD_AVERAGE_1M, first, output);
+            first = writeLoadAverage(loadAverage, 1, LOAD_AVERAGE_5M, first, output);
+            writeLoadAverage(loadAverage, 2, LOAD_AVERAGE_15M, first, output);
+        }
+    }
+
+    private boolean writeLoadAverage(double[] loadAverage, int idx, byte[] field, boolean first, ByteBuf output) {
+        if (idx >= loadAverage.length || loadAverage[idx] == -1) {
+            return first;
+        }
+
+        if (first) {
+            output.writeByte(' ');
+        } else {
+            output.writeBytes(LOAD_AVERAGE_SEPARATOR);
+        }
+        output.writeBytes(field);
+        writeDouble(output, loadAverage[idx]);
+        return false;
+    }
+
+    private void writeProcess(ProcessInfo process, ByteBuf output) {
+        output.writeBytes(PROCESS_TIMESTAMP);
+        writeLong(output, process.timestamp);
+        output.writeBytes(OPEN_FILE_DESCRIPTORS);
+        writeLong(output, process.openFileDescriptors);
+        output.writeBytes(MAX_FILE_DESCRIPTORS);
+        writeLong(output, process.maxFileDescriptors);
+        output.writeBytes(SECTION_END);
+    }
+
+    private void writeJvm(JvmInfo jvm, ByteBuf output) {
+        output.writeBytes(JVM_TIMESTAMP);
+        writeLong(output, jvm.timestamp);
+        output.writeBytes(UPTIME_IN_MILLIS);
+        writeLong(output, jvm.uptime);
+
+        if (jvm.mem != null) {
+            output.writeBytes(HEAP_USED_IN_BYTES);
+            writeLong(output, jvm.mem.heapUsed);
+            if (jvm.mem.getHeapUsedPercent() >= 0) {
+                output.writeBytes(HEAP_USED_PERCENT);
+                writeLong(output, jvm.mem.getHeapUsedPercent());
+            }
+            output.writeBytes(HEAP_COMMITTED_IN_BYTES);
+            writeLong(output, jvm.mem.heapCommitted);
+            output.writeBytes(HEAP_MAX_IN_BYTES);
+            writeLong(output, jvm.mem.heapMax);
+            output.writeBytes(NON_HEAP_USED_IN_BYTES);
+            writeLong(output, jvm.mem.nonHeapUsed);
+            output.writeBytes(NON_HEAP_COMMITTED_IN_BYTES);
+            writeLong(output, jvm.mem.nonHeapCommitted);
+
+            output.writeBytes(POOLS);
+            if (jvm.mem.pools != null) {
+                for (int i = 0; i < jvm.mem.pools.length; i++) {
+                    final JvmInfo.MemoryPool pool = jvm.mem.pools[i];
+                    writeListSeparator(i, output);
+                    writeString(output, pool.getName());
+                    output.writeBytes(POOL_USED);
+                    writeLong(output, pool.getUsed());
+                    output.writeBytes(POOL_MAX);
+                    writeLong(output, pool.getMax());
+                    output.writeBytes(POOL_PEAK_USED);
+                    writeLong(output, pool.getPeakUsed());
+                    output.writeBytes(POOL_PEAK_MAX);
+                    writeLong(output, pool.getPeakMax());
+                    output.writeBytes(OBJECT_END);
+                }
+            }
+            output.writeBytes(OBJECT_END);
+            output.writeBytes(OBJECT_END);
+        }
+
+        if (jvm.threads != null) {
+            output.writeBytes(THREADS_COUNT);
+            writeLong(output, jvm.threads.getCount());
+            output.writeBytes(THREADS_PEAK_COUNT);
+            writeLong(output, jvm.threads.getPeakCount());
+            output.writeBytes(OBJECT_END);
+        }
+
+        if (jvm.gc != null) {
+            output.writeBytes(GC_COLLECTORS);
+            if (jvm.gc.collectors != null) {
+                for (int i = 0; i < jvm.gc.collectors.length; i++) {
+                    final JvmInfo.GarbageCollector collector = jvm.gc.collectors[i];
+                    writeListSeparator(i, output);
+                    writeString(output, collector.getName());
+                    output.writeBytes(COLLECTION_COUNT);
+                    writeLong(output, collector.getCollectionCount());
+                    output.writeBytes(COLLECTION_TIME);
+                    writeLong(output, collector.getCollectionTime());
+                    output.writeBytes(OBJECT_END);
+                }
+            }
+            output.writeBytes(OBJECT_END);
+            output.writeBytes(OBJECT_END);
+        }
+
+        output.writeBytes(SECTION_END);
+    }
+
+    private void writeListSeparator(int idx, ByteBuf output) {
+        if (idx == 0) {
+            output.writeByte(' ');
+        } else {
+            output.writeBytes(LIST_SEPARATOR);
+        }
+    }
+}
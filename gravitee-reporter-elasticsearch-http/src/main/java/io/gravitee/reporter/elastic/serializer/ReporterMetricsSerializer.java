@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write the metrics of the reporter as ES bulk lines of type <code>reporter</code>.
+ *
+ * The dotted names of the metrics are written as nested objects, <code>bulk.round_trip_ms.p99</code> being
+ * written as <code>"bulk":{"round_trip_ms":{"p99":...}}</code>, which Elasticsearch 2.x requires.
+ *
+ * @author GraviteeSource Team
+ */
+public class ReporterMetricsSerializer extends AbstractJsonSerializer {
+
+    private static final String TYPE_REPORTER = "reporter";
+
+    private final String gateway;
+
+    private final String hostname;
+
+    private final DateTimeFormatter dateTimeFormatter;
+
+    public ReporterMetricsSerializer(String gateway, String hostname, DateTimeFormatter dateTimeFormatter) {
+        this.gateway = gateway;
+        this.hostname = hostname;
+        this.dateTimeFormatter = dateTimeFormatter;
+    }
+
+    /**
+     * Write the action line and the document of the reporter metrics.
+     *
+     * @param metrics the value of each metric, sorted by name
+     * @param index the name of the index
+     * @param timestamp the time the metrics have been read
+     * @param output the output to write into
+     */
+    public void write(Map<String, Number> metrics, String index, Instant timestamp, OutputStream output) throws IOException {
+        final JsonGenerator generator = createGenerator(output);
+
+        writeIndexAction(generator, index, TYPE_REPORTER, null, null);
+
+        generator.writeStartObject();
+        generator.writeStringField("gateway", gateway);
+        generator.writeStringField("hostname", hostname);
+        generator.writeStringField("@timestamp", dateTimeFormatter.format(timestamp));
+
+        // Metrics sharing a parent are next to each other since they are sorted by name
+        final List<String> parents = new ArrayList<>();
+        for (Map.Entry<String, Number> metric : metrics.entrySet()) {
+            final String[] names = metric.getKey().split("\\.");
+
+            int common = 0;
+            while (common < parents.size() && common < names.length - 1 && parents.get(common).equals(names[common])) {
+                common++;
+            }
+            while (parents.size() > common) {
+                generator.writeEndObject();
+                parents.remove(parents.size() - 1);
+            }
+            for (int i = common; i < names.length - 1; i++) {
+                generator.writeObjectFieldStart(names[i]);
+                parents.add(names[i]);
+            }
+
+            writeNumberField(generator, names[names.length - 1], metric.getValue());
+        }
+        for (int i = 0; i < parents.size(); i++) {
+            generator.writeEndObject();
+        }
+
+        endDocument(generator);
+    }
+
+    private void writeNumberField(JsonGenerator generator, String name, Number value) throws IOException {
+        if (value instanceof Double) {
+            final double doubleValue = value.doubleValue();
+            generator.writeNumberField(name, Double.isNaN(doubleValue) || Double.isInfinite(doubleValue) ? 0 : doubleValue);
+        } else {
+            generator.writeNumberField(name, value.longValue());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.gravitee.reporter.elastic.rollup.LatencyStats;
+import io.gravitee.reporter.elastic.rollup.RequestRollup;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Write the rollups of the request metrics as ES bulk lines of type <code>rollup</code>.
+ *
+ * Besides the count, sum, minimum, maximum and a few percentiles, each latency holds its whole distribution
+ * as a compressed HdrHistogram encoded in base64, so that the rollups of several windows or gateways can be
+ * merged to compute exact percentiles.
+ *
+ * @author GraviteeSource Team
+ */
+public class RollupSerializer extends AbstractJsonSerializer {
+
+    private static final String TYPE_ROLLUP = "rollup";
+
+    private static final double[] PERCENTILES = { 50, 90, 95, 99 };
+
+    private final String gateway;
+
+    private final DateTimeFormatter dateTimeFormatter;
+
+    public RollupSerializer(String gateway, DateTimeFormatter dateTimeFormatter) {
+        this.gateway = gateway;
+        this.dateTimeFormatter = dateTimeFormatter;
+    }
+
+    /**
+     * Write the action line and the document of a closed rollup.
+     *
+     * @param rollup the rollup
+     * @param index the name of the index
+     * @param output the output to write into
+     */
+    public void write(RequestRollup rollup, String index, OutputStream output) throws IOException {
+        final JsonGenerator generator = createGenerator(output);
+
+        writeIndexAction(generator, index, TYPE_ROLLUP, null, null);
+
+        generator.writeStartObject();
+        generator.writeStringField("gateway", gateway);
+        generator.writeStringField("@timestamp", dateTimeFormatter.format(rollup.getStart()));
+        generator.writeNumberField("interval", rollup.getEnd().toEpochMilli() - rollup.getStart().toEpochMilli());
+        writeOptionalField(generator, "api", rollup.getApi());
+        writeOptionalField(generator, "application", rollup.getApplication());
+        writeOptionalField(generator, "plan", rollup.getPlan());
+        generator.writeNumberField("status", rollup.getStatus());
+        generator.writeNumberField("count", rollup.getCount());
+
+        writeLatency(generator, "response-time", rollup.getResponseTime());
+        writeLatency(generator, "api-response-time", rollup.getApiResponseTime());
+        writeLatency(generator, "proxy-latency", rollup.getProxyLatency());
+
+        endDocument(generator);
+    }
+
+    private void writeLatency(JsonGenerator generator, String name, LatencyStats latency) throws IOException {
+        if (latency.getCount() == 0) {
+            return;
+        }
+
+        generator.writeObjectFieldStart(name);
+        generator.writeNumberField("count", latency.getCount());
+        generator.writeNumberField("sum", latency.getSum());
+        generator.writeNumberField("min", latency.getMin());
+        generator.writeNumberField("max", latency.getMax());
+        for (double percentile : PERCENTILES) {
+            generator.writeNumberField("p" + (int) percentile, latency.getPercentile(percentile));
+        }
+        generator.writeStringField("histogram", encode(latency.getHistogram()));
+        generator.writeEndObject();
+    }
+
+    private static String encode(Histogram histogram) {
+        final ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        final int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+}
@@ -20,6 +20,7 @@ import io.gravitee.reporter.elastic.config.PipelineConfiguration;
 import io.gravitee.reporter.elastic.engine.ReportEngine;
 import io.gravitee.reporter.elastic.engine.impl.ElasticReportEngine;
 import io.gravitee.reporter.elastic.indexer.ElasticsearchBulkIndexer;
+import io.gravitee.reporter.elastic.metrics.ReporterMetrics;
 import io.gravitee.reporter.elastic.templating.freemarker.FreeMarkerComponent;
 import io.vertx.reactivex.core.Vertx;
 import org.springframework.context.annotation.Bean;
@@ -57,4 +58,9 @@ public class ReporterConfiguration {
     public PipelineConfiguration pipelineConfiguration() {
         return new PipelineConfiguration();
     }
+
+    @Bean
+    public ReporterMetrics reporterMetrics() {
+        return new ReporterMetrics();
+    }
 }
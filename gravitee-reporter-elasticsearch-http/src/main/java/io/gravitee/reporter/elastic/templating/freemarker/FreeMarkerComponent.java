@@ -23,9 +23,12 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.PostConstruct;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -46,9 +49,35 @@ public class FreeMarkerComponent {
      */
     private static final String DIRECTORY_NAME = "/freemarker";
 
+    /**
+     * The templates of the documents, rendered for each report.
+     */
+    private static final List<String> DOCUMENT_TEMPLATES = Arrays.asList("request.ftl", "log.ftl", "health.ftl", "monitor.ftl");
+
+    /**
+     * Initial size of the rendering buffers, large enough for most of the documents.
+     */
+    private static final int WRITER_CAPACITY = 2048;
+
+    /**
+     * Rendering buffers which grew beyond this size, because of a large log for example, are not kept.
+     */
+    private static final int MAX_RETAINED_WRITER_CAPACITY = 64 * 1024;
+
     /** Freemarker configuration */
     private Configuration configuration;
 
+    /**
+     * The parsed templates of the documents, loaded once at startup: rendering a document does not go through
+     * the lookup of the template cache.
+     */
+    private Map<String, Template> documentTemplates;
+
+    /**
+     * Rendering buffer of each thread.
+     */
+    private final ThreadLocal<StringBuilderWriter> writers = ThreadLocal.withInitial(StringBuilderWriter::new);
+
     /**
      * Initialize FreeMarker.
      */
@@ -61,6 +90,19 @@ public class FreeMarkerComponent {
         this.configuration.setLocale(Locale.ENGLISH);
         this.configuration.setNumberFormat("computer");
         this.configuration.setClassLoaderForTemplateLoading(Thread.currentThread().getContextClassLoader(), DIRECTORY_NAME);
+        // Templates are packaged with the reporter: they never change and are never localized
+        this.configuration.setTemplateUpdateDelayMilliseconds(Long.MAX_VALUE);
+        this.configuration.setLocalizedLookup(false);
+
+        final Map<String, Template> templates = new HashMap<>();
+        for (String templateName : DOCUMENT_TEMPLATES) {
+            try {
+                templates.put(templateName, this.configuration.getTemplate(templateName));
+            } catch (final IOException ioe) {
+                throw new IllegalStateException("Impossible to load template " + templateName, ioe);
+            }
+        }
+        this.documentTemplates = Collections.unmodifiableMap(templates);
     }
 
     /**
@@ -70,13 +112,23 @@ public class FreeMarkerComponent {
      * @return the string generated from the template
      */
     public String generateFromTemplate(final String templateName, final Map<String, Object> data) {
-        try (final StringWriter output = new StringWriter()) {
-            final Template template = this.configuration.getTemplate(templateName);
+        final StringBuilderWriter output = writers.get();
+        output.builder.setLength(0);
+
+        try {
+            Template template = documentTemplates.get(templateName);
+            if (template == null) {
+                template = this.configuration.getTemplate(templateName);
+            }
             template.process(data, output);
-            return output.getBuffer().toString();
+            return output.builder.toString();
         } catch (final IOException | TemplateException exception) {
             logger.error("Impossible to generate from template {}", templateName, exception);
             throw new IllegalArgumentException();
+        } finally {
+            if (output.builder.capacity() > MAX_RETAINED_WRITER_CAPACITY) {
+                writers.remove();
+            }
         }
     }
 
@@ -88,4 +140,46 @@ public class FreeMarkerComponent {
     public String generateFromTemplate(final String templateName) {
         return this.generateFromTemplate(templateName, Collections.emptyMap());
     }
+
+    /**
+     * Unsynchronized {@link java.io.StringWriter}, reused by a thread from one rendering to the next.
+     */
+    private static final class StringBuilderWriter extends Writer {
+
+        private final StringBuilder builder = new StringBuilder(WRITER_CAPACITY);
+
+        @Override
+        public void write(int c) {
+            builder.append((char) c);
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            builder.append(chars, offset, length);
+        }
+
+        @Override
+        public void write(String str) {
+            builder.append(str);
+        }
+
+        @Override
+        public void write(String str, int offset, int length) {
+            builder.append(str, offset, offset + length);
+        }
+
+        @Override
+        public Writer append(CharSequence csq) {
+            builder.append(csq);
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
 }
@@ -4,17 +4,44 @@
     "${data}"<#else>
     null</#if>
 </#macro>
+<#function included field>
+  <#return !profile?? || profile.accepts(field)>
+</#function>
+<#function omitNulls>
+  <#return profile?? && profile.isOmitNulls()>
+</#function>
 { "index" : { "_index" : "${index}", "_type" : "${documentType}", "_id" : "${status.getId()}" } }
 <@compress single_line=true>
 {
-    "gateway":"${gateway}",
-    "api":"${status.getApi()}",
-    "endpoint":"${status.getEndpoint()}",
-    "available":${status.isAvailable()?c},
-    "response-time":${status.getResponseTime()},
-    "success":${status.isSuccess()?c},
-    "state":${status.getState()},
-    "steps": [
+    "gateway":"${gateway}"
+<#if included("api")>
+    <#if status.getApi()??>
+    ,"api":"${status.getApi()}"
+    <#elseif !omitNulls()>
+    ,"api":null
+    </#if>
+</#if>
+<#if included("endpoint")>
+    <#if status.getEndpoint()??>
+    ,"endpoint":"${status.getEndpoint()}"
+    <#elseif !omitNulls()>
+    ,"endpoint":null
+    </#if>
+</#if>
+<#if included("available")>
+    ,"available":${status.isAvailable()?c}
+</#if>
+<#if included("response-time")>
+    ,"response-time":${status.getResponseTime()}
+</#if>
+<#if included("success")>
+    ,"success":${status.isSuccess()?c}
+</#if>
+<#if included("state")>
+    ,"state":${status.getState()}
+</#if>
+<#if included("steps")>
+    ,"steps": [
 <#list status.getSteps() as step>
         {"name": "${step.getName()}",
         "success":${step.isSuccess()?c},
@@ -60,6 +87,7 @@
         "response-time":${step.getResponseTime()},
         "message":<@stringOrNull data=step.getMessage()/>
     }<#sep>,</#sep>
-</#list>],
-"@timestamp":"${@timestamp}"
+</#list>]
+</#if>
+,"@timestamp":"${@timestamp}"
 }</@compress>
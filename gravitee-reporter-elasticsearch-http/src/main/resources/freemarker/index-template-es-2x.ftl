@@ -7,6 +7,77 @@
       "refresh_interval":"1s"
    },
 "mappings": {
+"rollup": {
+"properties": {
+"@timestamp": {
+"type": "date",
+"format": "strict_date_optional_time||epoch_millis"
+},
+"gateway": {
+"type": "string",
+"index": "not_analyzed"
+},
+"api": {
+"type": "string",
+"index": "not_analyzed"
+},
+"application": {
+"type": "string",
+"index": "not_analyzed"
+},
+"plan": {
+"type": "string",
+"index": "not_analyzed"
+},
+"status": {
+"type": "short"
+},
+"count": {
+"type": "long"
+},
+"interval": {
+"type": "integer",
+"index": "no"
+},
+"response-time": {
+"properties": {
+"histogram": {
+"type": "binary"
+}
+}
+},
+"api-response-time": {
+"properties": {
+"histogram": {
+"type": "binary"
+}
+}
+},
+"proxy-latency": {
+"properties": {
+"histogram": {
+"type": "binary"
+}
+}
+}
+}
+},
+"reporter": {
+"properties": {
+"@timestamp": {
+"type": "date",
+"format": "strict_date_optional_time||epoch_millis"
+},
+"gateway": {
+"type": "string",
+"index": "not_analyzed"
+},
+"hostname": {
+"type": "string",
+"index": "not_analyzed"
+}
+}
+},
 "monitor": {
 "properties": {
 "@timestamp": {
@@ -105,6 +105,69 @@
 }
 }
 },
+"rollup": {
+"properties": {
+"@timestamp": {
+"type": "date"
+},
+"gateway": {
+"type": "keyword"
+},
+"api": {
+"type": "keyword"
+},
+"application": {
+"type": "keyword"
+},
+"plan": {
+"type": "keyword"
+},
+"status": {
+"type": "short"
+},
+"count": {
+"type": "long"
+},
+"interval": {
+"type": "integer",
+"index": false
+},
+"response-time": {
+"properties": {
+"histogram": {
+"type": "binary"
+}
+}
+},
+"api-response-time": {
+"properties": {
+"histogram": {
+"type": "binary"
+}
+}
+},
+"proxy-latency": {
+"properties": {
+"histogram": {
+"type": "binary"
+}
+}
+}
+}
+},
+"reporter": {
+"properties": {
+"@timestamp": {
+"type": "date"
+},
+"gateway": {
+"type": "keyword"
+},
+"hostname": {
+"type": "keyword"
+}
+}
+},
 "log": {
 "properties": {
 "client-request": {
@@ -6,11 +6,28 @@
   null
   </#if>
 </#macro>
+<#function included field>
+  <#return !profile?? || profile.accepts(field)>
+</#function>
+<#assign first = true>
+<#macro separator><#if first><#assign first = false><#else>,</#if></#macro>
+<#macro truncation section>
+  <#if truncated?? && truncated.getTruncation(section)??>
+  <#assign t = truncated.getTruncation(section)>
+  ,"truncated":true
+    <#if t.isBody()>
+    ,"body-size":${t.getBodySize()?c}
+    </#if>
+    <#if t.getTailHash()??>
+    ,"body-tail-sha256":"${t.getTailHash()}"
+    </#if>
+  </#if>
+</#macro>
 { "index" : { "_index" : "${index}", "_type" : "${documentType}", "_id" : "${log.getRequestId()}" } }
 <@compress single_line=true>
 {
-  <#if log.getClientRequest()??>
-  "client-request": {
+  <#if log.getClientRequest()?? && included("client-request")>
+  <@separator/>"client-request": {
   "method":"${log.getClientRequest().getMethod()}",
   "uri":"${log.getClientRequest().getUri()}"
     <#if log.getClientRequest().getBody()??>
@@ -29,8 +46,11 @@
       </#list>
     }
     </#if>
+    <@truncation "client-request"/>
   }
-  ,"client-response": {
+  </#if>
+  <#if log.getClientResponse()?? && included("client-response")>
+  <@separator/>"client-response": {
   "status":${log.getClientResponse().getStatus()}
     <#if log.getClientResponse().getBody()??>
     ,"body":"${log.getClientResponse().getBody()?j_string}"
@@ -48,11 +68,11 @@
       </#list>
     }
     </#if>
+    <@truncation "client-response"/>
   }
   </#if>
-  <#if log.getProxyRequest()??>
-    <#if log.getClientRequest()??>,</#if>
-  "proxy-request": {
+  <#if log.getProxyRequest()?? && included("proxy-request")>
+  <@separator/>"proxy-request": {
   "method":"${log.getProxyRequest().getMethod()}",
   "uri":"${log.getProxyRequest().getUri()}"
     <#if log.getProxyRequest().getBody()??>
@@ -73,10 +93,11 @@
       </#list>
     }
     </#if>
+    <@truncation "proxy-request"/>
   }
   </#if>
-  <#if log.getProxyResponse()??>
-  ,"proxy-response": {
+  <#if log.getProxyResponse()?? && included("proxy-response")>
+  <@separator/>"proxy-response": {
   "status":${log.getProxyResponse().getStatus()}
     <#if log.getProxyResponse().getBody()??>
     ,"body":"${log.getProxyResponse().getBody()?j_string}"
@@ -96,6 +117,7 @@
       </#list>
     }
     </#if>
+    <@truncation "proxy-response"/>
   }
   </#if>
 }</@compress>
@@ -6,49 +6,89 @@
       null
 </#if>
 </#macro>
+<#function included field>
+  <#return !profile?? || profile.accepts(field)>
+</#function>
+<#function omitNulls>
+  <#return profile?? && profile.isOmitNulls()>
+</#function>
 { "index" : { "_index" : "${index}", "_type" : "${documentType}", "_id" : "${metrics.getRequestId()}"<#if pipeline??>, "pipeline" : "${pipeline}"</#if>} }
 <@compress single_line=true>
 {
   "gateway":"${gateway}"
   ,"@timestamp":"${@timestamp}"
+  <#if included("transaction")>
+    <#if metrics.getTransactionId()??>
   ,"transaction":"${metrics.getTransactionId()}"
+    <#elseif !omitNulls()>
+  ,"transaction":null
+    </#if>
+  </#if>
+  <#if included("method")>
+    <#if metrics.getHttpMethod()??>
   ,"method":${metrics.getHttpMethod().code()?c}
+    <#elseif !omitNulls()>
+  ,"method":null
+    </#if>
+  </#if>
+  <#if included("uri")>
+    <#if metrics.getUri()??>
   ,"uri":"${metrics.getUri()}"
+    <#elseif !omitNulls()>
+  ,"uri":null
+    </#if>
+  </#if>
+  <#if included("status")>
   ,"status":${metrics.getStatus()}
+  </#if>
+  <#if included("response-time")>
   ,"response-time":${metrics.getProxyResponseTimeMs()}
-  <#if apiResponseTime??>
+  </#if>
+  <#if apiResponseTime?? && included("api-response-time")>
     ,"api-response-time":${apiResponseTime}
   </#if>
-  <#if proxyLatency??>
+  <#if proxyLatency?? && included("proxy-latency")>
   ,"proxy-latency":${proxyLatency}
   </#if>
-  <#if requestContentLength??>
+  <#if requestContentLength?? && included("request-content-length")>
   ,"request-content-length":${requestContentLength}
   </#if>
-  <#if responseContentLength??>
+  <#if responseContentLength?? && included("response-content-length")>
   ,"response-content-length":${responseContentLength}
   </#if>
-  <#if metrics.getApiKey()??>
+  <#if metrics.getApiKey()?? && included("api-key")>
   ,"api-key":"${metrics.getApiKey()}"
   </#if>
-  <#if metrics.getPlan()??>
+  <#if metrics.getPlan()?? && included("plan")>
   ,"plan":"${metrics.getPlan()}"
   </#if>
-  <#if metrics.getApi()??>
+  <#if metrics.getApi()?? && included("api")>
   ,"api":"${metrics.getApi()}"
   </#if>
-  <#if metrics.getApplication()??>
+  <#if metrics.getApplication()?? && included("application")>
   ,"application":"${metrics.getApplication()}"
   </#if>
+  <#if included("local-address")>
+    <#if metrics.getLocalAddress()??>
   ,"local-address":"${metrics.getLocalAddress()}"
+    <#elseif !omitNulls()>
+  ,"local-address":null
+    </#if>
+  </#if>
+  <#if included("remote-address")>
+    <#if metrics.getRemoteAddress()??>
   ,"remote-address":"${metrics.getRemoteAddress()}"
-  <#if metrics.getEndpoint()??>
+    <#elseif !omitNulls()>
+  ,"remote-address":null
+    </#if>
+  </#if>
+  <#if metrics.getEndpoint()?? && included("endpoint")>
   ,"endpoint":"${metrics.getEndpoint()}"
   </#if>
-  <#if metrics.getTenant()??>
+  <#if metrics.getTenant()?? && included("tenant")>
   ,"tenant":"${metrics.getTenant()}"
   </#if>
-  <#if metrics.getMessage()??>
+  <#if metrics.getMessage()?? && included("message")>
   ,"message":"${metrics.getMessage()}"
   </#if>
 }</@compress>
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.bulk;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class AdaptiveBulkSizerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private AdaptiveBulkSizer sizer() {
+        return new AdaptiveBulkSizer(1000, 100, 2000, 1000, 8000, 500, clock::get);
+    }
+
+    @Test
+    public void shouldGrowWhenBulksAreFullAndFast() {
+        final AdaptiveBulkSizer sizer = sizer();
+
+        sizer.onBulk(1000, 100, 0, 0);
+        Assert.assertEquals(1100, sizer.getActions());
+
+        sizer.onBulk(10, 100, 0, 0);
+        Assert.assertEquals(1100, sizer.getActions());
+
+        sizer.onBulk(10, 100, 0, 0.5);
+        Assert.assertEquals(1200, sizer.getActions());
+
+        for (int i = 0; i < 20; i++) {
+            sizer.onBulk(2000, 100, 0, 0);
+        }
+        Assert.assertEquals(2000, sizer.getActions());
+        Assert.assertEquals(1000, sizer.getFlushInterval());
+    }
+
+    @Test
+    public void shouldShrinkOnRejectionOrSlowBulk() {
+        final AdaptiveBulkSizer sizer = sizer();
+
+        sizer.onBulk(1000, 100, 10, 0);
+        Assert.assertEquals(500, sizer.getActions());
+        Assert.assertEquals(2000, sizer.getFlushInterval());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        sizer.onBulk(500, 600, 0, 0);
+        Assert.assertEquals(250, sizer.getActions());
+        Assert.assertEquals(4000, sizer.getFlushInterval());
+
+        for (int i = 0; i < 10; i++) {
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            sizer.onBulk(100, 600, 0, 0);
+        }
+        Assert.assertEquals(100, sizer.getActions());
+        Assert.assertEquals(8000, sizer.getFlushInterval());
+
+        sizer.onBulk(100, 100, 0, 0);
+        Assert.assertEquals(7000, sizer.getFlushInterval());
+    }
+
+    @Test
+    public void shouldShrinkOncePerRoundTrip() {
+        final AdaptiveBulkSizer sizer = sizer();
+
+        sizer.onBulk(1000, 600, 0, 0);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        sizer.onBulk(1000, 600, 0, 0);
+        Assert.assertEquals(500, sizer.getActions());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        sizer.onBulk(500, 600, 0, 0);
+        Assert.assertEquals(250, sizer.getActions());
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.engine.impl;
+
+import io.gravitee.reporter.api.Reportable;
+import io.gravitee.reporter.api.http.Metrics;
+import io.gravitee.reporter.api.log.Log;
+import io.gravitee.reporter.api.monitor.Monitor;
+import io.vertx.reactivex.core.buffer.Buffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Instant;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class DocumentEncodersTest {
+
+    private final DocumentEncoders encoders = new DocumentEncoders()
+            .register(Metrics.class, metrics -> Buffer.buffer("metrics"))
+            .register(Log.class, log -> Buffer.buffer("log"));
+
+    @Test
+    public void shouldEncodeWithTheEncoderOfTheType() {
+        Assert.assertEquals("metrics", encoders.encode(Metrics.on(System.currentTimeMillis()).build()).toString());
+        Assert.assertEquals("log", encoders.encode(new Log(System.currentTimeMillis())).toString());
+    }
+
+    @Test
+    public void shouldEncodeSubclasses() {
+        Assert.assertEquals("log", encoders.encode(new Log(System.currentTimeMillis()) {}).toString());
+    }
+
+    @Test
+    public void shouldResolveSubclassesAgainOnRegistration() {
+        final Monitor monitor = new Monitor(System.currentTimeMillis()) {};
+        final DocumentEncoders encoders = new DocumentEncoders()
+                .register(Log.class, log -> Buffer.buffer("log"));
+
+        Assert.assertNull(encoders.encode(monitor));
+        Assert.assertNull(encoders.encode(monitor));
+
+        encoders.register(Monitor.class, m -> Buffer.buffer("monitor"));
+
+        Assert.assertEquals("monitor", encoders.encode(monitor).toString());
+        Assert.assertEquals("monitor", encoders.encode(monitor).toString());
+    }
+
+    @Test
+    public void shouldIgnoreUnknownTypes() {
+        Assert.assertNull(encoders.encode(new Monitor(System.currentTimeMillis())));
+        Assert.assertNull(encoders.encode((Reportable) Instant::now));
+    }
+}
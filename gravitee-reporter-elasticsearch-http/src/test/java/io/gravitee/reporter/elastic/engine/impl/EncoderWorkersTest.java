@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.engine.impl;
+
+import io.gravitee.reporter.api.Reportable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class EncoderWorkersTest {
+
+    @Test
+    public void shouldEncodeOnWorkerThreads() throws Exception {
+        final CountDownLatch encoded = new CountDownLatch(1000);
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        final EncoderWorkers workers = new EncoderWorkers(2, 1000, reportable -> {
+            threads.add(Thread.currentThread().getName());
+            encoded.countDown();
+        });
+
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(workers.submit(Instant::now));
+        }
+
+        Assert.assertTrue(encoded.await(10, TimeUnit.SECONDS));
+        Assert.assertFalse(threads.contains(Thread.currentThread().getName()));
+        Assert.assertEquals(0, workers.getDroppedReportables());
+
+        workers.stop();
+    }
+
+    @Test
+    public void shouldDropWhenQueueIsFull() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final EncoderWorkers workers = new EncoderWorkers(1, 2, reportable -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        workers.submit(Instant::now);
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        Assert.assertTrue(workers.submit(Instant::now));
+        Assert.assertTrue(workers.submit(Instant::now));
+        Assert.assertFalse(workers.submit(Instant::now));
+        Assert.assertEquals(1, workers.getDroppedReportables());
+
+        release.countDown();
+        workers.stop();
+        Assert.assertEquals(0, workers.getPending());
+    }
+
+    @Test
+    public void shouldKeepEncodingWhenEncoderFails() throws Exception {
+        final CountDownLatch encoded = new CountDownLatch(2);
+        final Reportable failing = Instant::now;
+
+        final EncoderWorkers workers = new EncoderWorkers(1, 10, reportable -> {
+            encoded.countDown();
+            if (reportable == failing) {
+                throw new IllegalStateException("unable to encode");
+            }
+        });
+
+        workers.submit(failing);
+        workers.submit(Instant::now);
+
+        Assert.assertTrue(encoded.await(10, TimeUnit.SECONDS));
+        workers.stop();
+    }
+}
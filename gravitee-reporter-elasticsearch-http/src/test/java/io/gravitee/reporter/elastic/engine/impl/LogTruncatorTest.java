@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.engine.impl;
+
+import io.gravitee.common.http.HttpHeaders;
+import io.gravitee.reporter.api.common.Request;
+import io.gravitee.reporter.api.common.Response;
+import io.gravitee.reporter.api.log.Log;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collections;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class LogTruncatorTest {
+
+    private static Log log(String body) {
+        final Log log = new Log(System.currentTimeMillis());
+        log.setRequestId("request");
+
+        final Request request = new Request();
+        request.setUri("/echo");
+        request.setBody(body);
+        final HttpHeaders headers = new HttpHeaders();
+        headers.add("Accept", "application/json");
+        headers.add("X-Large", "0123456789012345678901234567890123456789");
+        request.setHeaders(headers);
+        log.setClientRequest(request);
+
+        final Response response = new Response(200);
+        response.setBody(body);
+        log.setClientResponse(response);
+        return log;
+    }
+
+    @Test
+    public void shouldKeepLogWithinCaps() {
+        final LogTruncator truncator = new LogTruncator(section -> 64, section -> 1024, true);
+        final Log log = log("{\"small\":true}");
+
+        final LogTruncator.TruncatedLog truncated = truncator.truncate(log);
+
+        Assert.assertSame(log, truncated.getLog());
+        Assert.assertNull(truncated.getTruncation(LogTruncator.CLIENT_REQUEST));
+        Assert.assertNull(truncated.getTruncation(LogTruncator.CLIENT_RESPONSE));
+    }
+
+    @Test
+    public void shouldTruncateBodyAndHeaders() throws Exception {
+        final LogTruncator truncator = new LogTruncator(
+                section -> LogTruncator.CLIENT_REQUEST.equals(section) ? 10 : 0,
+                section -> 32, true);
+        final String body = "0123456789abcdefghij";
+        final Log log = log(body);
+
+        final LogTruncator.TruncatedLog truncated = truncator.truncate(log);
+
+        final Request request = truncated.getLog().getClientRequest();
+        Assert.assertEquals("0123456789", request.getBody());
+        Assert.assertEquals("/echo", request.getUri());
+        Assert.assertEquals(Collections.singleton("Accept"), request.getHeaders().keySet());
+        Assert.assertEquals("request", truncated.getLog().getRequestId());
+        Assert.assertEquals(log.timestamp(), truncated.getLog().timestamp());
+
+        final LogTruncator.Truncation truncation = truncated.getTruncation(LogTruncator.CLIENT_REQUEST);
+        Assert.assertTrue(truncation.isBody());
+        Assert.assertTrue(truncation.isHeaders());
+        Assert.assertEquals(20, truncation.getBodySize());
+
+        final byte[] digest = MessageDigest.getInstance("SHA-256").digest("abcdefghij".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(String.format("%064x", new BigInteger(1, digest)), truncation.getTailHash());
+
+        // No cap on the body of the response, and it has no headers
+        Assert.assertSame(log.getClientResponse(), truncated.getLog().getClientResponse());
+        Assert.assertNull(truncated.getTruncation(LogTruncator.CLIENT_RESPONSE));
+    }
+
+    @Test
+    public void shouldCountUtf8BytesWithoutSplittingCharacters() {
+        // 'é' is 2 bytes, the emoji is a surrogate pair of 4 bytes
+        final String value = "aé😀b";
+
+        Assert.assertEquals(8, LogTruncator.utf8Length(value));
+        Assert.assertEquals(1, LogTruncator.prefixLength(value, 2));
+        Assert.assertEquals(2, LogTruncator.prefixLength(value, 6));
+        Assert.assertEquals(4, LogTruncator.prefixLength(value, 7));
+        Assert.assertEquals(5, LogTruncator.prefixLength(value, 8));
+    }
+}
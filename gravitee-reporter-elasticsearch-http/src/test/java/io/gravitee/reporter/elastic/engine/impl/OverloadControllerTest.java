@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.engine.impl;
+
+import io.gravitee.reporter.api.http.Metrics;
+import io.gravitee.reporter.api.log.Log;
+import io.gravitee.reporter.api.monitor.Monitor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class OverloadControllerTest {
+
+    private double load;
+
+    private final LongAdder shedLogs = new LongAdder();
+
+    private final LongAdder shedMetrics = new LongAdder();
+
+    private final OverloadController controller = new OverloadController(() -> load)
+            .register(Log.class, 0.5, false, shedLogs)
+            .register(Metrics.class, 0.75, true, shedMetrics);
+
+    @Test
+    public void shouldAdmitEverythingBelowTheWatermarks() {
+        load(0.4);
+
+        Assert.assertTrue(controller.admit(new Log(System.currentTimeMillis())));
+        Assert.assertTrue(controller.admit(Metrics.on(System.currentTimeMillis()).build()));
+        Assert.assertEquals(0, shedLogs.sum());
+    }
+
+    @Test
+    public void shouldShedTheLeastValuableTypesFirst() {
+        load(0.6);
+
+        Assert.assertFalse(controller.admit(new Log(System.currentTimeMillis())));
+        Assert.assertTrue(controller.admit(Metrics.on(System.currentTimeMillis()).build()));
+        Assert.assertEquals(1, shedLogs.sum());
+        Assert.assertEquals(0, shedMetrics.sum());
+    }
+
+    @Test
+    public void shouldSampleAtADecreasingRate() {
+        load(0.8);
+        final int admittedAtLowLoad = admitted(10000);
+
+        load(0.95);
+        final int admittedAtHighLoad = admitted(10000);
+
+        load(1);
+        final int admittedWhenFull = admitted(10000);
+
+        // Expected rates are 80%, 20% and 0%
+        Assert.assertTrue(admittedAtLowLoad > 7000 && admittedAtLowLoad < 9000);
+        Assert.assertTrue(admittedAtHighLoad > 1000 && admittedAtHighLoad < 3000);
+        Assert.assertEquals(0, admittedWhenFull);
+        Assert.assertEquals(30000 - admittedAtLowLoad - admittedAtHighLoad, shedMetrics.sum());
+    }
+
+    @Test
+    public void shouldAdmitUnregisteredTypes() {
+        load(1);
+
+        Assert.assertTrue(controller.admit(new Monitor(System.currentTimeMillis())));
+    }
+
+    private void load(double load) {
+        this.load = load;
+        controller.update();
+    }
+
+    private int admitted(int reportables) {
+        int admitted = 0;
+        for (int i = 0; i < reportables; i++) {
+            if (controller.admit(Metrics.on(System.currentTimeMillis()).build())) {
+                admitted++;
+            }
+        }
+        return admitted;
+    }
+}
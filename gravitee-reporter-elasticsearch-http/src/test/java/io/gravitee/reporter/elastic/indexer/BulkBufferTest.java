@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import io.vertx.reactivex.core.buffer.Buffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class BulkBufferTest {
+
+    private final List<List<Buffer>> bulks = new ArrayList<>();
+
+    @Test
+    public void shouldFlushWhenActionsLimitIsReached() {
+        final BulkBuffer buffer = new BulkBuffer(3, -1, bulks::add);
+
+        for (int i = 0; i < 7; i++) {
+            buffer.add(lines(10));
+        }
+
+        Assert.assertEquals(2, bulks.size());
+        Assert.assertEquals(3, bulks.get(0).size());
+        Assert.assertEquals(3, bulks.get(1).size());
+
+        buffer.flush();
+
+        Assert.assertEquals(3, bulks.size());
+        Assert.assertEquals(1, bulks.get(2).size());
+    }
+
+    @Test
+    public void shouldFlushBeforeExceedingSizeLimit() {
+        final BulkBuffer buffer = new BulkBuffer(500, 100, bulks::add);
+
+        buffer.add(lines(40));
+        buffer.add(lines(40));
+        Assert.assertTrue(bulks.isEmpty());
+
+        // 120 bytes would exceed the limit: the two first documents are sent on their own
+        buffer.add(lines(40));
+        Assert.assertEquals(1, bulks.size());
+        Assert.assertEquals(2, bulks.get(0).size());
+
+        // 100 bytes reach the limit
+        buffer.add(lines(60));
+        Assert.assertEquals(2, bulks.size());
+        Assert.assertEquals(2, bulks.get(1).size());
+    }
+
+    @Test
+    public void shouldSendLargeDocumentAlone() {
+        final BulkBuffer buffer = new BulkBuffer(500, 100, bulks::add);
+
+        buffer.add(lines(10));
+        buffer.add(lines(250));
+
+        Assert.assertEquals(2, bulks.size());
+        Assert.assertEquals(1, bulks.get(0).size());
+        Assert.assertEquals(1, bulks.get(1).size());
+        Assert.assertEquals(250, bulks.get(1).get(0).length());
+    }
+
+    @Test
+    public void shouldNotFlushWhenEmpty() {
+        final BulkBuffer buffer = new BulkBuffer(500, 100, bulks::add);
+
+        buffer.flush();
+
+        Assert.assertTrue(bulks.isEmpty());
+    }
+
+    private Buffer lines(int length) {
+        return Buffer.buffer(new String(new char[length]).replace('\0', 'a'));
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import io.vertx.reactivex.core.buffer.Buffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class BulkCompressorTest {
+
+    private final BulkCompressor compressor = new BulkCompressor();
+
+    @Test
+    public void shouldGzipDocuments() throws Exception {
+        final List<Buffer> documents = new ArrayList<>();
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            final String document = "{\"index\":{\"_index\":\"gravitee-2017.06.09\",\"_type\":\"request\"}}\n" +
+                    "{\"gateway\":\"gateway-1\",\"status\":200,\"response-time\":" + i + "}\n";
+            documents.add(Buffer.buffer(document));
+            expected.append(document);
+        }
+
+        final Buffer body = compressor.compress(documents);
+
+        Assert.assertEquals(expected.toString(), gunzip(body.getDelegate().getBytes()));
+        Assert.assertEquals(expected.length(), compressor.getUncompressedBytes());
+        Assert.assertEquals(body.length(), compressor.getCompressedBytes());
+        Assert.assertTrue(compressor.getCompressionRatio() > 5);
+
+        // The documents are left untouched so that they can be sent again
+        Assert.assertEquals(expected.toString(), gunzip(compressor.compress(documents).getDelegate().getBytes()));
+    }
+
+    private String gunzip(byte[] data) throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            final byte[] chunk = new byte[1024];
+            int read;
+            while ((read = input.read(chunk)) != -1) {
+                output.write(chunk, 0, read);
+            }
+        }
+        return output.toString("UTF-8");
+    }
+}
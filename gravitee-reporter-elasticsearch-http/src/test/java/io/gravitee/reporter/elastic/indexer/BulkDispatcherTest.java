@@ -0,0 +1,292 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import io.gravitee.reporter.elastic.model.OverflowPolicy;
+import io.reactivex.Completable;
+import io.reactivex.subjects.CompletableSubject;
+import io.vertx.core.Vertx;
+import io.vertx.reactivex.core.buffer.Buffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class BulkDispatcherTest {
+
+    private final List<List<Buffer>> sent = new CopyOnWriteArrayList<>();
+
+    private final List<CompletableSubject> requests = new CopyOnWriteArrayList<>();
+
+    private Completable send(Bulk bulk) {
+        final CompletableSubject request = CompletableSubject.create();
+        sent.add(bulk.getDocuments());
+        requests.add(request);
+        return request;
+    }
+
+    @Test
+    public void shouldLimitConcurrentRequests() {
+        final BulkDispatcher dispatcher = new BulkDispatcher(2, 10, OverflowPolicy.DROP_NEWEST, this::send);
+
+        for (int i = 0; i < 4; i++) {
+            dispatcher.dispatch(bulk(i));
+        }
+
+        Assert.assertEquals(2, sent.size());
+        Assert.assertEquals(2, dispatcher.getInFlight());
+        Assert.assertEquals(2, dispatcher.getPending());
+
+        requests.get(0).onComplete();
+        Assert.assertEquals(3, sent.size());
+        Assert.assertEquals("2", sent.get(2).get(0).toString());
+
+        // A failed request releases its slot too
+        requests.get(1).onError(new RuntimeException("connection refused"));
+        requests.get(2).onComplete();
+        requests.get(3).onComplete();
+
+        Assert.assertEquals(4, sent.size());
+        Assert.assertEquals(0, dispatcher.getInFlight());
+        Assert.assertEquals(0, dispatcher.getPending());
+        Assert.assertEquals(0, dispatcher.getDroppedDocuments());
+    }
+
+    @Test
+    public void shouldDropNewestBulk() {
+        final BulkDispatcher dispatcher = new BulkDispatcher(1, 1, OverflowPolicy.DROP_NEWEST, this::send);
+
+        dispatcher.dispatch(bulk(0));
+        dispatcher.dispatch(bulk(1));
+        dispatcher.dispatch(bulk(2));
+
+        Assert.assertEquals(1, dispatcher.getDroppedDocuments());
+
+        requests.get(0).onComplete();
+        Assert.assertEquals("1", sent.get(1).get(0).toString());
+    }
+
+    @Test
+    public void shouldDropOldestBulk() {
+        final BulkDispatcher dispatcher = new BulkDispatcher(1, 1, OverflowPolicy.DROP_OLDEST, this::send);
+
+        dispatcher.dispatch(bulk(0));
+        dispatcher.dispatch(bulk(1));
+        dispatcher.dispatch(bulk(2));
+
+        Assert.assertEquals(1, dispatcher.getDroppedDocuments());
+
+        requests.get(0).onComplete();
+        Assert.assertEquals("2", sent.get(1).get(0).toString());
+    }
+
+    @Test
+    public void shouldBlockUntilQueueHasRoom() throws Exception {
+        final BulkDispatcher dispatcher = new BulkDispatcher(1, 1, OverflowPolicy.BLOCK, this::send);
+
+        dispatcher.dispatch(bulk(0));
+        dispatcher.dispatch(bulk(1));
+
+        final CountDownLatch dispatched = new CountDownLatch(1);
+        final Thread producer = new Thread(() -> {
+            dispatcher.dispatch(bulk(2));
+            dispatched.countDown();
+        });
+        producer.start();
+
+        Assert.assertFalse(dispatched.await(200, TimeUnit.MILLISECONDS));
+
+        requests.get(0).onComplete();
+
+        Assert.assertTrue(dispatched.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, dispatcher.getPending());
+        Assert.assertEquals(0, dispatcher.getDroppedDocuments());
+    }
+
+    @Test
+    public void shouldWaitOnAWorkerWhenDispatchedFromAnEventLoop() throws Exception {
+        final ExecutorService worker = Executors.newSingleThreadExecutor();
+        final Vertx vertx = Vertx.vertx();
+        try {
+            final BulkDispatcher dispatcher = new BulkDispatcher(1, 1, OverflowPolicy.BLOCK, this::send, null, worker);
+
+            dispatcher.dispatch(bulk(0));
+            dispatcher.dispatch(bulk(1));
+
+            final CountDownLatch dispatched = new CountDownLatch(1);
+            vertx.runOnContext(v -> {
+                dispatcher.dispatch(bulk(2));
+                dispatched.countDown();
+            });
+
+            // The event loop is not blocked, and the bulk is not dropped
+            Assert.assertTrue(dispatched.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(0, dispatcher.getDroppedDocuments());
+
+            requests.get(0).onComplete();
+            worker.shutdown();
+            Assert.assertTrue(worker.awaitTermination(5, TimeUnit.SECONDS));
+
+            Assert.assertEquals(1, dispatcher.getPending());
+            requests.get(1).onComplete();
+            Assert.assertEquals("2", sent.get(2).get(0).toString());
+        } finally {
+            worker.shutdownNow();
+            vertx.close();
+        }
+    }
+
+    @Test
+    public void shouldSendTheLaneWithTheHighestPriorityFirst() {
+        final BulkDispatcher dispatcher = new BulkDispatcher(1, 10, OverflowPolicy.DROP_NEWEST, this::send);
+        dispatcher.addLane("log", 0, 1, 10);
+        dispatcher.addLane("request", 3, 1, 10);
+
+        dispatcher.dispatch(bulk("log", "log-0"));
+        dispatcher.dispatch(bulk("log", "log-1"));
+        dispatcher.dispatch(bulk("request", "request-0"));
+
+        Assert.assertEquals(1, dispatcher.getPending("log"));
+        Assert.assertEquals(1, dispatcher.getPending("request"));
+
+        requests.get(0).onComplete();
+        Assert.assertEquals("request-0", sent.get(1).get(0).toString());
+
+        requests.get(1).onComplete();
+        Assert.assertEquals("log-1", sent.get(2).get(0).toString());
+    }
+
+    @Test
+    public void shouldLimitConcurrentRequestsOfALane() {
+        final BulkDispatcher dispatcher = new BulkDispatcher(3, 10, OverflowPolicy.DROP_NEWEST, this::send);
+        dispatcher.addLane("log", 0, 1, 10);
+        dispatcher.addLane("request", 3, 3, 10);
+
+        dispatcher.dispatch(bulk("log", "log-0"));
+        dispatcher.dispatch(bulk("log", "log-1"));
+        dispatcher.dispatch(bulk("request", "request-0"));
+        dispatcher.dispatch(bulk("request", "request-1"));
+
+        // Logs can not take the slots left to the requests
+        Assert.assertEquals(3, sent.size());
+        Assert.assertEquals(1, dispatcher.getInFlight("log"));
+        Assert.assertEquals(2, dispatcher.getInFlight("request"));
+        Assert.assertEquals(1, dispatcher.getPending("log"));
+
+        requests.get(0).onComplete();
+        Assert.assertEquals("log-1", sent.get(3).get(0).toString());
+    }
+
+    @Test
+    public void shouldDropTheBulksOfAFullLaneOnly() {
+        final BulkDispatcher dispatcher = new BulkDispatcher(1, 10, OverflowPolicy.DROP_NEWEST, this::send);
+        dispatcher.addLane("log", 0, 1, 1);
+        dispatcher.addLane("request", 3, 1, 1);
+
+        dispatcher.dispatch(bulk("log", "log-0"));
+        dispatcher.dispatch(bulk("log", "log-1"));
+        dispatcher.dispatch(bulk("log", "log-2"));
+        dispatcher.dispatch(bulk("request", "request-0"));
+
+        Assert.assertEquals(1, dispatcher.getDroppedDocuments());
+        Assert.assertEquals(2, dispatcher.getPending());
+    }
+
+    @Test
+    public void shouldReportTheOccupancyAsLoad() {
+        final BulkDispatcher dispatcher = new BulkDispatcher(2, 2, OverflowPolicy.DROP_NEWEST, this::send);
+
+        Assert.assertEquals(0, dispatcher.getLoad(), 0);
+
+        dispatcher.dispatch(bulk(0));
+        dispatcher.dispatch(bulk(1));
+        Assert.assertEquals(0.5, dispatcher.getLoad(), 0);
+
+        dispatcher.dispatch(bulk(2));
+        dispatcher.dispatch(bulk(3));
+        dispatcher.dispatch(bulk(4));
+        Assert.assertEquals(1, dispatcher.getLoad(), 0);
+    }
+
+    @Test
+    public void shouldReportTheLoadOfTheFullestLane() {
+        final BulkDispatcher dispatcher = new BulkDispatcher(2, 10, OverflowPolicy.DROP_NEWEST, this::send);
+        dispatcher.addLane("log", 0, 1, 1);
+        dispatcher.addLane("request", 3, 2, 10);
+
+        dispatcher.dispatch(bulk("request", "request-0"));
+        Assert.assertEquals(1.0 / 12, dispatcher.getLoad(), 0.001);
+
+        dispatcher.dispatch(bulk("log", "log-0"));
+        dispatcher.dispatch(bulk("log", "log-1"));
+        Assert.assertEquals(1, dispatcher.getLoad(), 0);
+    }
+
+    @Test
+    public void shouldNotDropRetriedBulksOfAFullLane() {
+        final BulkDispatcher dispatcher = new BulkDispatcher(1, 1, OverflowPolicy.BLOCK, this::send);
+
+        dispatcher.dispatch(bulk(0));
+        dispatcher.dispatch(bulk(1));
+
+        // Elasticsearch answers 429 to the request in flight while the lane is full: the rejected documents are
+        // sent again before the request is done, neither waiting for room nor dropped
+        dispatcher.redispatch(new Bulk(sent.get(0), 1));
+        Assert.assertEquals(2, dispatcher.getPending());
+
+        requests.get(0).onComplete();
+        Assert.assertEquals("0", sent.get(1).get(0).toString());
+
+        requests.get(1).onComplete();
+        Assert.assertEquals("1", sent.get(2).get(0).toString());
+        Assert.assertEquals(0, dispatcher.getDroppedDocuments());
+    }
+
+    @Test
+    public void shouldDrainPendingBulks() {
+        final BulkDispatcher dispatcher = new BulkDispatcher(1, 10, OverflowPolicy.DROP_NEWEST, this::send);
+
+        for (int i = 0; i < 3; i++) {
+            dispatcher.dispatch(bulk(i));
+        }
+
+        final List<Bulk> pending = dispatcher.drain();
+
+        Assert.assertEquals(2, pending.size());
+        Assert.assertEquals("1", pending.get(0).getDocuments().get(0).toString());
+        Assert.assertEquals(0, dispatcher.getPending());
+
+        requests.get(0).onComplete();
+        Assert.assertEquals(1, sent.size());
+    }
+
+    private Bulk bulk(int id) {
+        return new Bulk(Collections.singletonList(Buffer.buffer(Integer.toString(id))));
+    }
+
+    private Bulk bulk(String type, String document) {
+        return new Bulk(type, Collections.singletonList(Buffer.buffer(document)), 0);
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gravitee.reporter.elastic.model.elasticsearch.bulk.ESBulkResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class BulkRetryPolicyTest {
+
+    private static final String BULK_RESPONSE = "{\"took\":30,\"errors\":true,\"items\":[" +
+            "{\"index\":{\"_index\":\"gravitee-2017.06.09\",\"_type\":\"request\",\"_id\":\"1\",\"_version\":1,\"status\":201}}," +
+            "{\"index\":{\"_index\":\"gravitee-2017.06.09\",\"_type\":\"request\",\"_id\":\"2\",\"status\":429," +
+                "\"error\":{\"type\":\"es_rejected_execution_exception\",\"reason\":\"rejected execution of org.elasticsearch.transport.TransportService\"}}}," +
+            "{\"index\":{\"_index\":\"gravitee-2017.06.09\",\"_type\":\"request\",\"_id\":\"3\",\"status\":503," +
+                "\"error\":{\"type\":\"remote_transport_exception\",\"reason\":\"[node-1][bulk]\"," +
+                "\"caused_by\":{\"type\":\"es_rejected_execution_exception\",\"reason\":\"queue capacity 200\"}}}}," +
+            "{\"index\":{\"_index\":\"gravitee-2017.06.09\",\"_type\":\"request\",\"_id\":\"4\",\"status\":400," +
+                "\"error\":{\"type\":\"mapper_parsing_exception\",\"reason\":\"failed to parse [status]\"}}}" +
+            "]}";
+
+    @Test
+    public void shouldRetryOnlyRejectedItems() throws Exception {
+        final ESBulkResponse response = new ObjectMapper().readValue(BULK_RESPONSE, ESBulkResponse.class);
+
+        Assert.assertTrue(response.getErrors());
+        Assert.assertFalse(BulkRetryPolicy.isRetryable(response.getItems().get(0).getIndex()));
+        Assert.assertTrue(BulkRetryPolicy.isRetryable(response.getItems().get(1).getIndex()));
+        Assert.assertTrue(BulkRetryPolicy.isRetryable(response.getItems().get(2).getIndex()));
+        Assert.assertFalse(BulkRetryPolicy.isRetryable(response.getItems().get(3).getIndex()));
+    }
+
+    @Test
+    public void shouldRetryWholeBulkOnTooManyRequests() {
+        Assert.assertTrue(BulkRetryPolicy.isRetryable(429));
+        Assert.assertFalse(BulkRetryPolicy.isRetryable(400));
+    }
+
+    @Test
+    public void shouldLimitRetries() {
+        final BulkRetryPolicy policy = new BulkRetryPolicy(3, 100, 1000);
+
+        Assert.assertTrue(policy.canRetry(1));
+        Assert.assertTrue(policy.canRetry(3));
+        Assert.assertFalse(policy.canRetry(4));
+    }
+
+    @Test
+    public void shouldBackoffExponentiallyWithJitter() {
+        final BulkRetryPolicy policy = new BulkRetryPolicy(10, 100, 1000);
+
+        for (int i = 0; i < 100; i++) {
+            assertBetween(50, 100, policy.delay(1));
+            assertBetween(100, 200, policy.delay(2));
+            assertBetween(200, 400, policy.delay(3));
+            assertBetween(500, 1000, policy.delay(5));
+            assertBetween(500, 1000, policy.delay(40));
+        }
+    }
+
+    private void assertBetween(long min, long max, long value) {
+        Assert.assertTrue(value + " not in [" + min + ", " + max + "]", value >= min && value <= max);
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import io.gravitee.reporter.elastic.model.OverflowPolicy;
+import io.reactivex.Completable;
+import io.reactivex.subjects.CompletableSubject;
+import io.vertx.reactivex.core.buffer.Buffer;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class DiskSpoolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReplaySegmentsInOrder() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        final DiskSpool spool = new DiskSpool(directory, 64, 1024);
+
+        Assert.assertTrue(spool.isEmpty());
+        Assert.assertTrue(spool.write(documents("doc1", "doc2")));
+        Assert.assertTrue(spool.write(documents("a-document-too-large-for-the-space-left-in-the-segment")));
+        Assert.assertFalse(spool.isEmpty());
+
+        final DiskSpool.Segment first = spool.poll();
+        Assert.assertEquals(Arrays.asList("doc1", "doc2"), strings(first.read()));
+
+        final DiskSpool.Segment second = spool.poll();
+        Assert.assertEquals(Arrays.asList("a-document-too-large-for-the-space-left-in-the-segment"), strings(second.read()));
+
+        Assert.assertNull(spool.poll());
+        Assert.assertTrue(spool.isEmpty());
+
+        spool.delete(first);
+        spool.delete(second);
+        Assert.assertEquals(0, spool.getSize());
+        Assert.assertEquals(0, Files.list(directory).filter(path -> path.toString().endsWith(".spool")).count());
+    }
+
+    @Test
+    public void shouldDropDocumentsWhenFull() throws Exception {
+        final DiskSpool spool = new DiskSpool(folder.getRoot().toPath(), 64, 100);
+
+        Assert.assertTrue(spool.write(documents("doc1")));
+        Assert.assertFalse(spool.write(documents(new String(new char[80]).replace('\0', 'x'))));
+        Assert.assertEquals(1, spool.getDroppedDocuments());
+    }
+
+    @Test
+    public void shouldNotKeepPartOfABulk() throws Exception {
+        final DiskSpool spool = new DiskSpool(folder.getRoot().toPath(), 64, 64);
+
+        Assert.assertTrue(spool.write(documents("doc1")));
+        Assert.assertFalse(spool.write(documents("doc2", "doc3", new String(new char[40]).replace('\0', 'x'))));
+        Assert.assertEquals(3, spool.getDroppedDocuments());
+
+        Assert.assertEquals(Arrays.asList("doc1"), strings(spool.poll().read()));
+    }
+
+    @Test
+    public void shouldReplaySegmentsOfPreviousRun() throws Exception {
+        final Path directory = folder.getRoot().toPath();
+        final DiskSpool previous = new DiskSpool(directory, 64, 1024);
+        previous.write(documents("doc1"));
+        previous.write(documents("doc2"));
+        previous.close();
+
+        final DiskSpool spool = new DiskSpool(directory, 64, 1024);
+        spool.write(documents("doc3"));
+
+        Assert.assertEquals(Arrays.asList("doc1", "doc2"), strings(spool.poll().read()));
+        Assert.assertEquals(Arrays.asList("doc3"), strings(spool.poll().read()));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldNotShareTheDirectory() throws Exception {
+        new DiskSpool(folder.getRoot().toPath(), 64, 1024);
+        new DiskSpool(folder.getRoot().toPath(), 64, 1024);
+    }
+
+    @Test
+    public void shouldSpillOverflowingBulksAndReplayThem() throws Exception {
+        final DiskSpool spool = new DiskSpool(folder.getRoot().toPath(), 1024, 4096);
+        final List<String> sent = new CopyOnWriteArrayList<>();
+        final List<CompletableSubject> requests = new CopyOnWriteArrayList<>();
+
+        final BulkDispatcher dispatcher = new BulkDispatcher(1, 0, OverflowPolicy.SPILL, bulk -> {
+            final CompletableSubject request = CompletableSubject.create();
+            sent.addAll(strings(bulk.getDocuments()));
+            requests.add(request);
+            return request;
+        }, bulk -> spool.write(bulk.getDocuments()), null);
+
+        dispatcher.dispatch(new Bulk(documents("doc1")));
+        dispatcher.dispatch(new Bulk(documents("doc2", "doc3", "doc4")));
+
+        Assert.assertEquals(Arrays.asList("doc1"), sent);
+        Assert.assertEquals(0, dispatcher.getDroppedDocuments());
+
+        final SpoolReplayer replayer = new SpoolReplayer(spool, dispatcher, 2, () -> true, Runnable::run);
+        replayer.replay();
+        Assert.assertEquals(1, sent.size());
+
+        requests.get(0).onComplete();
+        replayer.replay();
+        Assert.assertEquals(Arrays.asList("doc1", "doc2", "doc3"), sent);
+
+        requests.get(1).onComplete();
+        Assert.assertEquals(Arrays.asList("doc1", "doc2", "doc3", "doc4"), sent);
+
+        requests.get(2).onComplete();
+        Assert.assertTrue(spool.isEmpty());
+        Assert.assertEquals(0, spool.getSize());
+    }
+
+    @Test
+    public void shouldKeepSegmentUntilRetriedDocumentsAreSent() throws Exception {
+        final DiskSpool spool = new DiskSpool(folder.getRoot().toPath(), 1024, 4096);
+        final List<Bulk> retries = new CopyOnWriteArrayList<>();
+        final List<String> sent = new CopyOnWriteArrayList<>();
+
+        final BulkDispatcher dispatcher = new BulkDispatcher(1, 10, OverflowPolicy.DROP_NEWEST, bulk -> {
+            if (bulk.getAttempt() == 0) {
+                // Rejected: sent again later by a new bulk
+                retries.add(new Bulk(bulk.getType(), bulk.getDocuments(), 1, bulk.handOver()));
+            } else {
+                sent.addAll(strings(bulk.getDocuments()));
+            }
+            return Completable.complete();
+        });
+
+        spool.write(documents("doc1", "doc2"));
+        new SpoolReplayer(spool, dispatcher, 10, () -> true, Runnable::run).replay();
+
+        Assert.assertEquals(1, retries.size());
+        Assert.assertTrue(sent.isEmpty());
+        Assert.assertNotEquals(0, spool.getSize());
+
+        dispatcher.dispatch(retries.get(0));
+
+        Assert.assertEquals(Arrays.asList("doc1", "doc2"), sent);
+        Assert.assertEquals(0, spool.getSize());
+    }
+
+    private List<Buffer> documents(String... documents) {
+        final List<Buffer> buffers = new ArrayList<>();
+        for (String document : documents) {
+            buffers.add(Buffer.buffer(document));
+        }
+        return buffers;
+    }
+
+    private List<String> strings(List<Buffer> documents) {
+        return documents.stream().map(Buffer::toString).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import io.netty.buffer.ByteBuf;
+import io.vertx.reactivex.core.buffer.Buffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class DocumentBuffersTest {
+
+    @Test
+    public void shouldReleaseDocumentsOnceTheBulkIsAcknowledged() {
+        final ByteBuf buffer = DocumentBuffers.allocate(16);
+        buffer.writeBytes("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+        final Buffer document = DocumentBuffers.wrap(buffer);
+
+        final Bulk bulk = new Bulk("request", Collections.singletonList(document), 0);
+        Assert.assertEquals(1, buffer.refCnt());
+
+        // Sent again: the retry owns the document once the first bulk is done
+        DocumentBuffers.retain(bulk.getDocuments());
+        final Bulk retry = new Bulk("request", bulk.getDocuments(), 1);
+        bulk.acknowledge();
+        Assert.assertEquals(1, buffer.refCnt());
+        Assert.assertEquals("{\"id\":1}\n", ElasticsearchBulkIndexer.compose(retry.getDocuments()).toString());
+
+        retry.acknowledge();
+        Assert.assertEquals(0, buffer.refCnt());
+    }
+
+    @Test
+    public void shouldLeaveDocumentsOutsideThePoolAlone() {
+        final Buffer document = Buffer.buffer("{\"id\":1}\n");
+        final ByteBuf copy = DocumentBuffers.allocate(16).writeBytes(document.getDelegate().getByteBuf());
+        final Buffer pooled = DocumentBuffers.copyOf(copy);
+        copy.release();
+
+        new Bulk(Arrays.asList(document, pooled)).acknowledge();
+
+        Assert.assertEquals("{\"id\":1}\n", document.toString());
+        Assert.assertEquals(0, pooled.getDelegate().getByteBuf().unwrap().refCnt());
+    }
+
+    @Test
+    public void shouldEncodeStrings() {
+        final Buffer document = DocumentBuffers.of("{\"name\":\"é😀\"}\n");
+
+        Assert.assertEquals("{\"name\":\"é😀\"}\n", document.toString());
+        DocumentBuffers.release(Collections.singletonList(document));
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class EndpointPoolTest {
+
+    private final HttpEndpoint node1 = new HttpEndpoint("http://node1:9200", null);
+
+    private final HttpEndpoint node2 = new HttpEndpoint("http://node2:9200", null);
+
+    private final HttpEndpoint node3 = new HttpEndpoint("http://node3:9200", null);
+
+    private final EndpointPool pool = new EndpointPool(Arrays.asList(node1, node2, node3));
+
+    @Test
+    public void shouldBalanceRequests() {
+        Assert.assertSame(node1, pool.next());
+        Assert.assertSame(node2, pool.next());
+        Assert.assertSame(node3, pool.next());
+        Assert.assertSame(node1, pool.next());
+    }
+
+    @Test
+    public void shouldSkipUnavailableEndpoints() {
+        pool.markDown(node2);
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertNotSame(node2, pool.next());
+        }
+        Assert.assertTrue(pool.hasAvailable());
+        Assert.assertEquals(Collections.singletonList(node2), pool.getUnavailableEndpoints());
+
+        pool.markUp(node2);
+
+        Assert.assertTrue(pool.getUnavailableEndpoints().isEmpty());
+    }
+
+    @Test
+    public void shouldUseAllEndpointsWhenNoneIsAvailable() {
+        pool.markDown(node1);
+        pool.markDown(node2);
+        pool.markDown(node3);
+
+        Assert.assertFalse(pool.hasAvailable());
+        Assert.assertSame(node1, pool.next());
+        Assert.assertSame(node2, pool.next());
+    }
+
+    @Test
+    public void shouldUpdateEndpoints() {
+        pool.markDown(node2);
+
+        final List<HttpEndpoint> removed = pool.update(
+                Arrays.asList("http://node2:9200", "http://node4:9200"),
+                url -> new HttpEndpoint(url, null));
+
+        Assert.assertTrue(removed.isEmpty());
+        Assert.assertEquals(2, pool.getEndpoints().size());
+        Assert.assertSame(node2, pool.getEndpoints().get(0));
+        Assert.assertEquals("http://node4:9200", pool.getEndpoints().get(1).getUrl());
+        Assert.assertEquals(Collections.singletonList(node2), pool.getUnavailableEndpoints());
+
+        final HttpEndpoint node4 = pool.getEndpoints().get(1);
+        Assert.assertEquals(Collections.singletonList(node4),
+                pool.update(Collections.singletonList("http://node5:9200"), url -> new HttpEndpoint(url, null)));
+    }
+
+    @Test
+    public void shouldFallBackToSeedsWhenNoDiscoveredNodeIsAvailable() {
+        pool.update(Arrays.asList("http://10.0.0.1:9200", "http://10.0.0.2:9200"), url -> new HttpEndpoint(url, null));
+        pool.getEndpoints().forEach(pool::markDown);
+        pool.markDown(node1);
+
+        Assert.assertTrue(pool.hasAvailable());
+        for (int i = 0; i < 10; i++) {
+            final HttpEndpoint endpoint = pool.next();
+            Assert.assertTrue(endpoint == node2 || endpoint == node3);
+        }
+        Assert.assertEquals(3, pool.getUnavailableEndpoints().size());
+        Assert.assertTrue(pool.getUnavailableEndpoints().contains(node1));
+
+        pool.markUp(pool.getEndpoints().get(0));
+
+        Assert.assertSame(pool.getEndpoints().get(0), pool.next());
+    }
+
+    @Test
+    public void shouldKeepEndpointsWhenNoneIsDiscovered() {
+        Assert.assertTrue(pool.update(Collections.emptyList(), url -> new HttpEndpoint(url, null)).isEmpty());
+        Assert.assertEquals(3, pool.getEndpoints().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequireAnEndpoint() {
+        new EndpointPool(Collections.emptyList());
+    }
+}
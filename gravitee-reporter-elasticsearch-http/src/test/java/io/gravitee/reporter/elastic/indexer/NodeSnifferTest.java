@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.indexer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class NodeSnifferTest {
+
+    private final NodeSniffer sniffer = new NodeSniffer(new ObjectMapper(), "http");
+
+    @Test
+    public void shouldSniffDataAndIngestNodes() throws Exception {
+        final String body = "{\"cluster_name\":\"elasticsearch\",\"nodes\":{" +
+                "\"n1\":{\"name\":\"master\",\"roles\":[\"master\"],\"http\":{\"publish_address\":\"10.0.0.1:9200\"}}," +
+                "\"n2\":{\"name\":\"data\",\"roles\":[\"master\",\"data\"],\"http\":{\"publish_address\":\"es-data/10.0.0.2:9200\"}}," +
+                "\"n3\":{\"name\":\"ingest\",\"roles\":[\"ingest\"],\"http\":{\"publish_address\":\"10.0.0.3:9201\"}}," +
+                "\"n4\":{\"name\":\"no-http\",\"roles\":[\"data\"]}}}";
+
+        Assert.assertEquals(Arrays.asList("http://10.0.0.2:9200", "http://10.0.0.3:9201"), sniffer.sniff(body));
+    }
+
+    @Test
+    public void shouldSniffDataNodesOfElasticsearch2() throws Exception {
+        final String body = "{\"cluster_name\":\"elasticsearch\",\"nodes\":{" +
+                "\"n1\":{\"name\":\"master\",\"attributes\":{\"data\":\"false\",\"master\":\"true\"},\"http\":{\"publish_address\":\"10.0.0.1:9200\"}}," +
+                "\"n2\":{\"name\":\"data\",\"http\":{\"publish_address\":\"10.0.0.2:9200\"}}}}";
+
+        Assert.assertEquals(Collections.singletonList("http://10.0.0.2:9200"), sniffer.sniff(body));
+    }
+}
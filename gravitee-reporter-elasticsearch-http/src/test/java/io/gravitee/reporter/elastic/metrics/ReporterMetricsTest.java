@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class ReporterMetricsTest {
+
+    @Test
+    public void shouldReadCountersAndGauges() {
+        final ReporterMetrics metrics = new ReporterMetrics();
+        final AtomicLong buffered = new AtomicLong(3);
+
+        metrics.counter("bulk.failures.connection").increment();
+        metrics.counter("bulk.failures.connection").add(2);
+        metrics.gauge("documents.buffered", buffered::get);
+        buffered.set(5);
+
+        final Map<String, Number> snapshot = metrics.snapshot();
+        Assert.assertEquals(3L, snapshot.get("bulk.failures.connection"));
+        Assert.assertEquals(5L, snapshot.get("documents.buffered"));
+    }
+
+    @Test
+    public void shouldReadHistogramPercentiles() {
+        final ReporterMetrics metrics = new ReporterMetrics();
+        final HistogramMetric histogram = metrics.histogram("bulk.round_trip_ms");
+
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        histogram.record(-1);
+
+        Map<String, Number> snapshot = metrics.snapshot();
+        Assert.assertEquals(101L, snapshot.get("bulk.round_trip_ms.count"));
+        Assert.assertEquals(50L, snapshot.get("bulk.round_trip_ms.p50"));
+        Assert.assertEquals(99L, snapshot.get("bulk.round_trip_ms.p99"));
+        Assert.assertEquals(100L, snapshot.get("bulk.round_trip_ms.max"));
+
+        // Values recorded after a read are added to the previous ones
+        histogram.record(1000);
+
+        snapshot = metrics.snapshot();
+        Assert.assertEquals(102L, snapshot.get("bulk.round_trip_ms.count"));
+        Assert.assertEquals(1000, snapshot.get("bulk.round_trip_ms.max").longValue(), 10);
+    }
+
+    @Test
+    public void shouldReportHistogramsSincePreviousReport() {
+        final ReporterMetrics metrics = new ReporterMetrics();
+        final HistogramMetric histogram = metrics.histogram("bulk.documents");
+
+        histogram.record(10);
+        histogram.record(20);
+        Assert.assertEquals(2L, metrics.reportSnapshot().get("bulk.documents.count"));
+
+        histogram.record(30);
+        // Reading the whole distribution does not change the next report
+        Assert.assertEquals(3L, metrics.snapshot().get("bulk.documents.count"));
+
+        final Map<String, Number> report = metrics.reportSnapshot();
+        Assert.assertEquals(1L, report.get("bulk.documents.count"));
+        Assert.assertEquals(30L, report.get("bulk.documents.p50"));
+        Assert.assertEquals(0L, metrics.reportSnapshot().get("bulk.documents.count"));
+    }
+
+    @Test
+    public void shouldExposeMetricsOverJmx() throws Exception {
+        final MBeanServer server = MBeanServerFactory.newMBeanServer();
+        final ReporterMetrics metrics = new ReporterMetrics();
+        metrics.counter("documents.dropped.retries").add(7);
+
+        final JmxMetricsExporter exporter = new JmxMetricsExporter(metrics, "http", server);
+        exporter.register();
+        // A second registration replaces the first one
+        new JmxMetricsExporter(metrics, "http", server).register();
+
+        Assert.assertEquals(7L, server.getAttribute(exporter.getName(), "documents.dropped.retries"));
+        Assert.assertEquals(1, server.getMBeanInfo(exporter.getName()).getAttributes().length);
+
+        try {
+            server.getAttribute(exporter.getName(), "unknown");
+            Assert.fail("Unknown attribute should not be found");
+        } catch (AttributeNotFoundException expected) {
+        }
+
+        exporter.unregister();
+        Assert.assertFalse(server.isRegistered(exporter.getName()));
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.rollup;
+
+import io.gravitee.reporter.api.http.Metrics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class MetricsRollupTest {
+
+    private final Instant start = Instant.parse("2017-06-09T10:15:30.00Z");
+
+    @Test
+    public void shouldAggregateMetricsByKey() {
+        final MetricsRollup rollup = new MetricsRollup(start);
+
+        rollup.record(metrics("api-1", 200, 10, 8));
+        rollup.record(metrics("api-1", 200, 30, -1));
+        rollup.record(metrics("api-1", 500, 5, 4));
+        rollup.record(metrics("api-2", 200, 20, 15));
+        Assert.assertEquals(3, rollup.getSize());
+
+        final List<RequestRollup> rollups = rollup.drain(start.plusSeconds(10));
+        rollups.sort(Comparator.comparing(RequestRollup::getApi).thenComparing(RequestRollup::getStatus));
+        Assert.assertEquals(3, rollups.size());
+
+        final RequestRollup first = rollups.get(0);
+        Assert.assertEquals("api-1", first.getApi());
+        Assert.assertEquals(200, first.getStatus());
+        Assert.assertEquals(start, first.getStart());
+        Assert.assertEquals(start.plusSeconds(10), first.getEnd());
+        Assert.assertEquals(2, first.getCount());
+        Assert.assertEquals(2, first.getResponseTime().getCount());
+        Assert.assertEquals(40, first.getResponseTime().getSum());
+        Assert.assertEquals(10, first.getResponseTime().getMin());
+        Assert.assertEquals(30, first.getResponseTime().getMax());
+        Assert.assertEquals(1, first.getApiResponseTime().getCount());
+        Assert.assertEquals(0, first.getProxyLatency().getCount());
+        Assert.assertEquals(0, first.getProxyLatency().getMin());
+    }
+
+    @Test
+    public void shouldStartNextWindowOnDrain() {
+        final MetricsRollup rollup = new MetricsRollup(start);
+
+        rollup.record(metrics("api-1", 200, 10, 8));
+        rollup.drain(start.plusSeconds(10));
+        Assert.assertEquals(0, rollup.getSize());
+
+        rollup.record(metrics("api-1", 200, 10, 8));
+        final List<RequestRollup> rollups = rollup.drain(start.plusSeconds(20));
+        Assert.assertEquals(1, rollups.size());
+        Assert.assertEquals(1, rollups.get(0).getCount());
+        Assert.assertEquals(start.plusSeconds(10), rollups.get(0).getStart());
+    }
+
+    private static Metrics metrics(String api, int status, long responseTime, long apiResponseTime) {
+        final Metrics metrics = Metrics.on(Instant.now().toEpochMilli()).build();
+        metrics.setApi(api);
+        metrics.setStatus(status);
+        metrics.setProxyResponseTimeMs(responseTime);
+        metrics.setApiResponseTimeMs(apiResponseTime);
+        metrics.setProxyLatencyMs(-1);
+        return metrics;
+    }
+}
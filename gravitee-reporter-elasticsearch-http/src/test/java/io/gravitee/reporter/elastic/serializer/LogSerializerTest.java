@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.serializer;
+
+import io.gravitee.common.http.HttpHeaders;
+import io.gravitee.common.http.HttpMethod;
+import io.gravitee.reporter.api.common.Request;
+import io.gravitee.reporter.api.common.Response;
+import io.gravitee.reporter.api.log.Log;
+import io.gravitee.reporter.elastic.config.FieldProfile;
+import io.gravitee.reporter.elastic.engine.impl.LogTruncator;
+import io.gravitee.reporter.elastic.templating.freemarker.FreeMarkerComponent;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Check the log serializer against the <code>log.ftl</code> template.
+ *
+ * @author GraviteeSource Team
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {FreeMarkerComponent.class})
+public class LogSerializerTest {
+
+    private static final String INDEX = "gravitee-2017.06.09";
+
+    @Autowired
+    private FreeMarkerComponent freeMarkerComponent;
+
+    @Test
+    public void shouldWriteSameBulkLinesThanTemplate() {
+        final LogTruncator.TruncatedLog log = new LogTruncator(section -> 0, section -> 0, false).truncate(log());
+
+        Assert.assertEquals(template(log, FieldProfile.ALL), serialize(log, FieldProfile.ALL));
+    }
+
+    @Test
+    public void shouldWriteSameBulkLinesThanTemplateWithTruncation() {
+        final LogTruncator.TruncatedLog log = new LogTruncator(section -> 8, section -> 24, true).truncate(log());
+
+        Assert.assertEquals(template(log, FieldProfile.ALL), serialize(log, FieldProfile.ALL));
+    }
+
+    @Test
+    public void shouldWriteSameBulkLinesThanTemplateWithProfile() {
+        final LogTruncator.TruncatedLog log = new LogTruncator(section -> 0, section -> 0, false).truncate(log());
+        final FieldProfile profile = new FieldProfile(
+                Collections.emptyList(), Collections.singletonList("client-request"), false);
+
+        Assert.assertEquals(template(log, profile), serialize(log, profile));
+    }
+
+    @Test
+    public void shouldEscapeLongStringsByChunks() {
+        final StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            value.append("a\"😀\n");
+        }
+
+        final ByteBuf chunked = Unpooled.buffer();
+        JsonBytes.writeString(chunked, value.toString(), 3);
+        final ByteBuf whole = Unpooled.buffer();
+        JsonBytes.writeString(whole, value.toString());
+
+        Assert.assertEquals(whole.toString(StandardCharsets.UTF_8), chunked.toString(StandardCharsets.UTF_8));
+    }
+
+    private static Log log() {
+        final Log log = new Log(System.currentTimeMillis());
+        log.setRequestId("5f4c2c6b-a3d1-4c4b-8c2c-6ba3d1dc4b1e");
+
+        final Request clientRequest = new Request();
+        clientRequest.setMethod(HttpMethod.POST);
+        clientRequest.setUri("/echo?q=1");
+        clientRequest.setBody("{\n\t\"name\": \"gravitee\",\n\t\"emoji\": \"😀\"\n}");
+        clientRequest.setHeaders(headers());
+        log.setClientRequest(clientRequest);
+
+        final Response clientResponse = new Response(200);
+        clientResponse.setBody("{\"id\": 1}");
+        clientResponse.setHeaders(headers());
+        log.setClientResponse(clientResponse);
+
+        final Request proxyRequest = new Request();
+        proxyRequest.setMethod(HttpMethod.POST);
+        proxyRequest.setUri("http://localhost:8080/echo?q=1");
+        proxyRequest.setHeaders(new HttpHeaders());
+        log.setProxyRequest(proxyRequest);
+
+        log.setProxyResponse(new Response(201));
+        return log;
+    }
+
+    private static HttpHeaders headers() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.add("Content-Type", "application/json");
+        headers.add("Accept", "application/json");
+        headers.add("Accept", "text/plain");
+        return headers;
+    }
+
+    private String serialize(LogTruncator.TruncatedLog log, FieldProfile profile) {
+        final ByteBuf output = Unpooled.buffer();
+        new LogSerializer(profile).write(log, INDEX, output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private String template(LogTruncator.TruncatedLog log, FieldProfile profile) {
+        final Map<String, Object> data = new HashMap<>();
+        data.put("index", INDEX);
+        data.put("documentType", "log");
+        data.put("log", log.getLog());
+        data.put("profile", profile);
+        data.put("truncated", log);
+        return freeMarkerComponent.generateFromTemplate("log.ftl", data);
+    }
+}
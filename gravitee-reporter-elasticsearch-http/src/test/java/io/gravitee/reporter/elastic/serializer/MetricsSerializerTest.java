@@ -0,0 +1,178 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.serializer;
+
+import io.gravitee.common.http.HttpMethod;
+import io.gravitee.reporter.api.http.Metrics;
+import io.gravitee.reporter.elastic.config.FieldProfile;
+import io.gravitee.reporter.elastic.templating.freemarker.FreeMarkerComponent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Check the request metrics serializer against the <code>request.ftl</code> template.
+ *
+ * @author GraviteeSource Team
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {FreeMarkerComponent.class})
+public class MetricsSerializerTest {
+
+    private static final String GATEWAY = "b187fe8f-98fa-4aa9-87fe-8f98facaa956";
+
+    private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS[XXX]").withZone(ZoneId.systemDefault());
+
+    @Autowired
+    private FreeMarkerComponent freeMarkerComponent;
+
+    private final MetricsSerializer serializer = new MetricsSerializer(GATEWAY, dtf);
+
+    @Test
+    public void shouldWriteSameBulkLinesThanTemplate() throws Exception {
+        final Metrics metrics = fullMetrics();
+
+        Assert.assertEquals(template(metrics, null), serialize(metrics, null));
+    }
+
+    @Test
+    public void shouldWriteSameBulkLinesThanTemplateWithPipeline() throws Exception {
+        final Metrics metrics = fullMetrics();
+
+        Assert.assertEquals(template(metrics, "gravitee_pipeline"), serialize(metrics, "gravitee_pipeline"));
+    }
+
+    @Test
+    public void shouldWriteSameBulkLinesThanTemplateWithoutOptionalFields() throws Exception {
+        final Metrics metrics = Metrics.on(Instant.now().toEpochMilli()).build();
+        metrics.setRequestId("ac096af0-cc48-4264-896a-f0cc4872644e");
+        metrics.setTransactionId("ba571368-f5e6-48b7-9713-68f5e698b761");
+        metrics.setHttpMethod(HttpMethod.POST);
+        metrics.setUri("/echo?name=value");
+        metrics.setStatus(502);
+        metrics.setProxyResponseTimeMs(3);
+        metrics.setApiResponseTimeMs(-1);
+        metrics.setProxyLatencyMs(-1);
+        metrics.setRequestContentLength(-1);
+        metrics.setResponseContentLength(-1);
+        metrics.setLocalAddress("172.18.0.6");
+        metrics.setRemoteAddress("172.18.0.1");
+
+        Assert.assertEquals(template(metrics, null), serialize(metrics, null));
+    }
+
+    @Test
+    public void shouldWriteSameBulkLinesThanTemplateWithProfile() throws Exception {
+        final FieldProfile profile = new FieldProfile(Collections.emptyList(),
+                Arrays.asList("local-address", "remote-address", "api-key", "uri", "gateway"), true);
+        final Metrics metrics = fullMetrics();
+        metrics.setTransactionId(null);
+
+        final String bulkLines = serialize(metrics, null, profile);
+        Assert.assertEquals(template(metrics, null, profile), bulkLines);
+        Assert.assertTrue(bulkLines.contains("\"gateway\""));
+        Assert.assertTrue(bulkLines.contains("\"api\""));
+        Assert.assertFalse(bulkLines.contains("\"transaction\""));
+        Assert.assertFalse(bulkLines.contains("\"uri\""));
+        Assert.assertFalse(bulkLines.contains("\"local-address\""));
+        Assert.assertFalse(bulkLines.contains("\"api-key\""));
+    }
+
+    @Test
+    public void shouldWriteSameBulkLinesThanTemplateWithIncludedFields() throws Exception {
+        final FieldProfile profile = new FieldProfile(Arrays.asList("api", "status", "response-time"),
+                Collections.emptyList(), false);
+        final Metrics metrics = fullMetrics();
+
+        final String bulkLines = serialize(metrics, null, profile);
+        Assert.assertEquals(template(metrics, null, profile), bulkLines);
+        Assert.assertEquals(5, bulkLines.split("\n")[1].split(",").length);
+    }
+
+    private String serialize(Metrics metrics, String pipeline) throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        serializer.write(metrics, "gravitee-2017.06.09", pipeline, output);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private String serialize(Metrics metrics, String pipeline, FieldProfile profile) throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new MetricsSerializer(GATEWAY, dtf, profile).write(metrics, "gravitee-2017.06.09", pipeline, output);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private String template(Metrics metrics, String pipeline) {
+        return template(metrics, pipeline, null);
+    }
+
+    private String template(Metrics metrics, String pipeline, FieldProfile profile) {
+        final Map<String, Object> data = new HashMap<>();
+        data.put("index", "gravitee-2017.06.09");
+        data.put("documentType", "request");
+        data.put("metrics", metrics);
+        if (profile != null) {
+            data.put("profile", profile);
+        }
+        if (pipeline != null) {
+            data.put("pipeline", pipeline);
+        }
+        data.put("@timestamp", dtf.format(metrics.timestamp()));
+        data.put("gateway", GATEWAY);
+        data.put("apiResponseTime", metrics.getApiResponseTimeMs() >= 0 ? metrics.getApiResponseTimeMs() : null);
+        data.put("proxyLatency", metrics.getProxyLatencyMs() >= 0 ? metrics.getProxyLatencyMs() : null);
+        data.put("requestContentLength", metrics.getRequestContentLength() >= 0 ? metrics.getRequestContentLength() : null);
+        data.put("responseContentLength", metrics.getResponseContentLength() >= 0 ? metrics.getResponseContentLength() : null);
+
+        return freeMarkerComponent.generateFromTemplate("request.ftl", data);
+    }
+
+    private Metrics fullMetrics() {
+        final Metrics metrics = Metrics.on(Instant.now().toEpochMilli()).build();
+        metrics.setRequestId("ac096af0-cc48-4264-896a-f0cc4872644e");
+        metrics.setTransactionId("ba571368-f5e6-48b7-9713-68f5e698b761");
+        metrics.setHttpMethod(HttpMethod.GET);
+        metrics.setUri("/echo");
+        metrics.setStatus(200);
+        metrics.setProxyResponseTimeMs(51);
+        metrics.setApiResponseTimeMs(50);
+        metrics.setProxyLatencyMs(1);
+        metrics.setRequestContentLength(0);
+        metrics.setResponseContentLength(700);
+        metrics.setApiKey("e14cfcb8-188d-4cb9-ad06-002aea5aab12");
+        metrics.setPlan("1fe07b71-ae91-4c15-a07b-71ae919c1560");
+        metrics.setApi("4d8d6ca8-c2c7-4ab8-8d6c-a8c2c79ab8a1");
+        metrics.setApplication("31b0d824-4f6a-4f58-b0d8-244f6a4f58d7");
+        metrics.setLocalAddress("172.18.0.6");
+        metrics.setRemoteAddress("172.18.0.1");
+        metrics.setEndpoint("https://api.gravitee.io/echo/");
+        metrics.setTenant("europe");
+        metrics.setMessage("Request successfully processed");
+        return metrics;
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.serializer;
+
+import io.gravitee.reporter.api.monitor.JvmInfo;
+import io.gravitee.reporter.api.monitor.Monitor;
+import io.gravitee.reporter.api.monitor.OsInfo;
+import io.gravitee.reporter.api.monitor.ProcessInfo;
+import io.gravitee.reporter.elastic.templating.freemarker.FreeMarkerComponent;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Check the monitor serializer against the <code>monitor.ftl</code> template.
+ *
+ * @author GraviteeSource Team
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {FreeMarkerComponent.class})
+public class MonitorSerializerTest {
+
+    private static final String GATEWAY = "b187fe8f-98fa-4aa9-87fe-8f98facaa956";
+
+    private static final String HOSTNAME = "gateway-1.gravitee.io";
+
+    private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS[XXX]").withZone(ZoneId.systemDefault());
+
+    @Autowired
+    private FreeMarkerComponent freeMarkerComponent;
+
+    private final MonitorSerializer serializer = new MonitorSerializer(GATEWAY, HOSTNAME, dtf);
+
+    @Test
+    public void shouldWriteSameBulkLinesThanTemplate() {
+        final Monitor monitor = monitor(new double[] {1.0, 0.25, 0.00001});
+
+        Assert.assertEquals(template(monitor), serialize(monitor));
+    }
+
+    @Test
+    public void shouldWriteSameBulkLinesThanTemplateWithoutLoadAverage() {
+        final Monitor monitor = monitor(new double[] {-1, -1, -1});
+
+        Assert.assertEquals(template(monitor), serialize(monitor));
+    }
+
+    @Test
+    public void shouldWriteSameBulkLinesThanTemplateWithPartialLoadAverage() {
+        final Monitor monitor = monitor(new double[] {2.5, 1.75, -1});
+
+        Assert.assertEquals(template(monitor), serialize(monitor));
+    }
+
+    @Test
+    public void shouldWriteNumbers() {
+        final ByteBuf output = Unpooled.buffer();
+
+        JsonBytes.writeLong(output, 0);
+        output.writeByte(' ');
+        JsonBytes.writeLong(output, -42);
+        output.writeByte(' ');
+        JsonBytes.writeLong(output, Long.MAX_VALUE);
+        output.writeByte(' ');
+        JsonBytes.writeLong(output, Long.MIN_VALUE);
+        output.writeByte(' ');
+        JsonBytes.writeDouble(output, 12.0);
+        output.writeByte(' ');
+        JsonBytes.writeDouble(output, 1.0E-5);
+
+        Assert.assertEquals("0 -42 9223372036854775807 -9223372036854775808 12 0.00001",
+                output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldEscapeStrings() {
+        final ByteBuf output = Unpooled.buffer();
+
+        JsonBytes.writeString(output, "a\"b\\c\n\u0001é€😀");
+
+        Assert.assertEquals("\"a\\\"b\\\\c\\n\\u0001é€😀\"", output.toString(StandardCharsets.UTF_8));
+    }
+
+    private String serialize(Monitor monitor) {
+        final ByteBuf output = Unpooled.buffer();
+        serializer.write(monitor, "gravitee-2017.06.09", output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private String template(Monitor monitor) {
+        final Map<String, Object> data = new HashMap<>();
+        data.put("index", "gravitee-2017.06.09");
+        data.put("documentType", "monitor");
+        data.put("hostname", HOSTNAME);
+        data.put("@timestamp", dtf.format(monitor.timestamp()));
+        data.put("gateway", GATEWAY);
+
+        final double[] loadAverage = monitor.getOs().cpu.getLoadAverage();
+        data.put("percent", monitor.getOs().cpu.getPercent());
+        if (loadAverage[0] != -1) {
+            data.put("load_average_1m", loadAverage[0]);
+        }
+        if (loadAverage[1] != -1) {
+            data.put("load_average_5m", loadAverage[1]);
+        }
+        if (loadAverage[2] != -1) {
+            data.put("load_average_15m", loadAverage[2]);
+        }
+
+        data.put("mem_total_in_bytes", monitor.getOs().mem.getTotal());
+        data.put("mem_free_in_bytes", monitor.getOs().mem.getFree());
+        data.put("mem_used_in_bytes", monitor.getOs().mem.getUsed());
+        data.put("mem_free_percent", monitor.getOs().mem.getFreePercent());
+        data.put("mem_used_percent", monitor.getOs().mem.getUsedPercent());
+
+        data.put("process_timestamp", monitor.getProcess().timestamp);
+        data.put("open_file_descriptors", monitor.getProcess().openFileDescriptors);
+        data.put("max_file_descriptors", monitor.getProcess().maxFileDescriptors);
+
+        data.put("jvm_timestamp", monitor.getJvm().timestamp);
+        data.put("uptime_in_millis", monitor.getJvm().uptime);
+        data.put("heap_used_in_bytes", monitor.getJvm().mem.heapUsed);
+        data.put("heap_used_percent", monitor.getJvm().mem.getHeapUsedPercent());
+        data.put("heap_committed_in_bytes", monitor.getJvm().mem.heapCommitted);
+        data.put("heap_max_in_bytes", monitor.getJvm().mem.heapMax);
+        data.put("non_heap_used_in_bytes", monitor.getJvm().mem.nonHeapUsed);
+        data.put("non_heap_committed_in_bytes", monitor.getJvm().mem.nonHeapCommitted);
+        data.put("pools", monitor.getJvm().mem.pools);
+        data.put("count", monitor.getJvm().threads.getCount());
+        data.put("peak_count", monitor.getJvm().threads.getPeakCount());
+        data.put("collectors", monitor.getJvm().gc.collectors);
+
+        return freeMarkerComponent.generateFromTemplate("monitor.ftl", data);
+    }
+
+    private Monitor monitor(double[] loadAverage) {
+        final long now = Instant.now().toEpochMilli();
+
+        final OsInfo os = new OsInfo();
+        os.timestamp = now;
+        os.cpu = new OsInfo.Cpu();
+        os.cpu.percent = 12;
+        os.cpu.loadAverage = loadAverage;
+        os.mem = new OsInfo.Mem();
+        os.mem.total = 16_777_216_000L;
+        os.mem.free = 4_194_304_000L;
+
+        final ProcessInfo process = new ProcessInfo();
+        process.timestamp = now;
+        process.openFileDescriptors = 312;
+        process.maxFileDescriptors = 1_048_576;
+
+        final JvmInfo jvm = new JvmInfo(now, 3_600_000);
+        jvm.mem = new JvmInfo.Mem();
+        jvm.mem.heapCommitted = 536_870_912;
+        jvm.mem.heapUsed = 201_326_592;
+        jvm.mem.heapMax = 1_073_741_824;
+        jvm.mem.nonHeapCommitted = 100_663_296;
+        jvm.mem.nonHeapUsed = 98_566_144;
+        jvm.mem.pools = new JvmInfo.MemoryPool[] {
+                new JvmInfo.MemoryPool("young", 50_331_648, 348_127_232, 134_217_728, 348_127_232),
+                new JvmInfo.MemoryPool("survivor", 1_048_576, 11_010_048, 11_010_048, 11_010_048),
+                new JvmInfo.MemoryPool("old", 150_994_944, 715_653_120, 150_994_944, 715_653_120)
+        };
+        jvm.threads = new JvmInfo.Threads();
+        jvm.threads.count = 48;
+        jvm.threads.peakCount = 52;
+        jvm.gc = new JvmInfo.GarbageCollectors();
+        jvm.gc.collectors = new JvmInfo.GarbageCollector[] { collector("young", 1_204, 8_734), collector("old", 3, 412) };
+
+        return Monitor.on(GATEWAY).at(now).os(os).process(process).jvm(jvm).build();
+    }
+
+    private JvmInfo.GarbageCollector collector(String name, long count, long time) {
+        final JvmInfo.GarbageCollector collector = new JvmInfo.GarbageCollector();
+        collector.name = name;
+        collector.collectionCount = count;
+        collector.collectionTime = time;
+        return collector;
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.serializer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class ReporterMetricsSerializerTest {
+
+    private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS[XXX]").withZone(ZoneId.systemDefault());
+
+    private final ReporterMetricsSerializer serializer = new ReporterMetricsSerializer("gateway-id", "gateway-1", dtf);
+
+    @Test
+    public void shouldWriteMetricsAsNestedObjects() throws Exception {
+        final Map<String, Number> metrics = new TreeMap<>();
+        metrics.put("bulk.in_flight", 2L);
+        metrics.put("bulk.round_trip_ms.p99", 120L);
+        metrics.put("bulk.round_trip_ms.mean", 35.5);
+        metrics.put("bulk.failures.connection", 1L);
+        metrics.put("documents.buffered", 42L);
+        metrics.put("encoder.request.time_us.mean", Double.NaN);
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final Instant timestamp = Instant.parse("2017-06-09T10:15:30.00Z");
+        serializer.write(metrics, "gravitee-2017.06.09", timestamp, output);
+
+        final String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        Assert.assertEquals(2, lines.length);
+
+        final ObjectMapper mapper = new ObjectMapper();
+        final JsonNode action = mapper.readTree(lines[0]).path("index");
+        Assert.assertEquals("gravitee-2017.06.09", action.path("_index").asText());
+        Assert.assertEquals("reporter", action.path("_type").asText());
+
+        final JsonNode document = mapper.readTree(lines[1]);
+        Assert.assertEquals("gateway-id", document.path("gateway").asText());
+        Assert.assertEquals("gateway-1", document.path("hostname").asText());
+        Assert.assertEquals(dtf.format(timestamp), document.path("@timestamp").asText());
+        Assert.assertEquals(2, document.path("bulk").path("in_flight").asLong());
+        Assert.assertEquals(1, document.path("bulk").path("failures").path("connection").asLong());
+        Assert.assertEquals(120, document.path("bulk").path("round_trip_ms").path("p99").asLong());
+        Assert.assertEquals(35.5, document.path("bulk").path("round_trip_ms").path("mean").asDouble(), 0);
+        Assert.assertEquals(42, document.path("documents").path("buffered").asLong());
+        Assert.assertEquals(0, document.path("encoder").path("request").path("time_us").path("mean").asDouble(), 0);
+    }
+}
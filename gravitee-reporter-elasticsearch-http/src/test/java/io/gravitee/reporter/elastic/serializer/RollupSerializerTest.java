@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.serializer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gravitee.reporter.api.http.Metrics;
+import io.gravitee.reporter.elastic.rollup.MetricsRollup;
+import io.gravitee.reporter.elastic.rollup.RequestRollup;
+import org.HdrHistogram.Histogram;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class RollupSerializerTest {
+
+    private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS[XXX]").withZone(ZoneId.systemDefault());
+
+    private final RollupSerializer serializer = new RollupSerializer("gateway-id", dtf);
+
+    @Test
+    public void shouldWriteRollup() throws Exception {
+        final Instant start = Instant.parse("2017-06-09T10:15:30.00Z");
+        final MetricsRollup metricsRollup = new MetricsRollup(start);
+        for (int i = 1; i <= 100; i++) {
+            final Metrics metrics = Metrics.on(start.toEpochMilli()).build();
+            metrics.setApi("api-1");
+            metrics.setPlan("plan-1");
+            metrics.setStatus(200);
+            metrics.setProxyResponseTimeMs(i);
+            metrics.setApiResponseTimeMs(-1);
+            metrics.setProxyLatencyMs(-1);
+            metricsRollup.record(metrics);
+        }
+        final List<RequestRollup> rollups = metricsRollup.drain(start.plusSeconds(10));
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        serializer.write(rollups.get(0), "gravitee-2017.06.09", output);
+
+        final String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        Assert.assertEquals(2, lines.length);
+
+        final ObjectMapper mapper = new ObjectMapper();
+        final JsonNode action = mapper.readTree(lines[0]).path("index");
+        Assert.assertEquals("gravitee-2017.06.09", action.path("_index").asText());
+        Assert.assertEquals("rollup", action.path("_type").asText());
+
+        final JsonNode document = mapper.readTree(lines[1]);
+        Assert.assertEquals("gateway-id", document.path("gateway").asText());
+        Assert.assertEquals(dtf.format(start), document.path("@timestamp").asText());
+        Assert.assertEquals(10000, document.path("interval").asLong());
+        Assert.assertEquals("api-1", document.path("api").asText());
+        Assert.assertEquals("plan-1", document.path("plan").asText());
+        Assert.assertTrue(document.path("application").isMissingNode());
+        Assert.assertEquals(200, document.path("status").asInt());
+        Assert.assertEquals(100, document.path("count").asLong());
+
+        final JsonNode responseTime = document.path("response-time");
+        Assert.assertEquals(100, responseTime.path("count").asLong());
+        Assert.assertEquals(5050, responseTime.path("sum").asLong());
+        Assert.assertEquals(1, responseTime.path("min").asLong());
+        Assert.assertEquals(100, responseTime.path("max").asLong());
+        Assert.assertEquals(50, responseTime.path("p50").asLong());
+        Assert.assertTrue(document.path("api-response-time").isMissingNode());
+
+        final Histogram histogram = Histogram.decodeFromCompressedByteBuffer(
+                ByteBuffer.wrap(Base64.getDecoder().decode(responseTime.path("histogram").asText())), 0);
+        Assert.assertEquals(100, histogram.getTotalCount());
+        Assert.assertEquals(99, histogram.getValueAtPercentile(99));
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.engine.impl;
+
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Per-thread output of the documents, reused from one document to the next instead of the new stream of a
+ * {@link XContentFactory#jsonBuilder()}, which grows while the document is written and whose oversized array the
+ * index request then keeps until the bulk is sent. The index request gets an exact copy of the document instead.
+ *
+ * A document is built with {@link #jsonBuilder()} and taken with {@link #toBytes(XContentBuilder)} on the same
+ * thread, before the next document is started.
+ *
+ * @author GraviteeSource Team
+ */
+final class DocumentOutput extends ByteArrayOutputStream {
+
+    private static final int INITIAL_CAPACITY = 2048;
+
+    /**
+     * An output grown beyond this capacity by a large document is not kept for the next ones.
+     */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<DocumentOutput> OUTPUTS = ThreadLocal.withInitial(DocumentOutput::new);
+
+    private DocumentOutput() {
+        super(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return a JSON builder writing into the output of the current thread
+     */
+    static XContentBuilder jsonBuilder() throws IOException {
+        final DocumentOutput output = OUTPUTS.get();
+        output.reset();
+        return XContentFactory.jsonBuilder(output);
+    }
+
+    /**
+     * Close a builder obtained with {@link #jsonBuilder()} on the current thread.
+     *
+     * @return a copy of the document, the output is reused by the next one
+     */
+    static byte[] toBytes(XContentBuilder builder) {
+        builder.close();
+
+        final DocumentOutput output = OUTPUTS.get();
+        final byte[] document = output.toByteArray();
+        if (output.buf.length > MAX_RETAINED_CAPACITY) {
+            OUTPUTS.remove();
+        }
+        return document;
+    }
+}
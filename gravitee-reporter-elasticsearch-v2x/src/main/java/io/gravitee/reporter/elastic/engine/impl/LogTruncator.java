@@ -0,0 +1,334 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.engine.impl;
+
+import io.gravitee.common.http.HttpHeaders;
+import io.gravitee.reporter.api.common.Request;
+import io.gravitee.reporter.api.common.Response;
+import io.gravitee.reporter.api.log.Log;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Cap the size of the bodies and of the headers of the logs, so that a log document has a bounded cost whatever
+ * the size of the payloads.
+ *
+ * Each section of a log (<code>client-request</code>, <code>client-response</code>, <code>proxy-request</code>,
+ * <code>proxy-response</code>) has its own caps, in UTF-8 bytes before JSON escaping. A body is cut at its cap,
+ * headers are kept in order as long as they fit. A body is scanned up to its cap to
+ * find where it is cut; a truncated one is then counted in full to report its <code>body-size</code>, and its
+ * dropped tail is read once more only when it is hashed.
+ *
+ * @author GraviteeSource Team
+ */
+public class LogTruncator {
+
+    public static final String CLIENT_REQUEST = "client-request";
+    public static final String CLIENT_RESPONSE = "client-response";
+    public static final String PROXY_REQUEST = "proxy-request";
+    public static final String PROXY_RESPONSE = "proxy-response";
+
+    private static final String[] SECTIONS = { CLIENT_REQUEST, CLIENT_RESPONSE, PROXY_REQUEST, PROXY_RESPONSE };
+
+    /**
+     * Keep the logs as they are.
+     */
+    public static final LogTruncator NONE = new LogTruncator(section -> 0, section -> 0, false);
+
+    /**
+     * Number of characters of the dropped tail encoded at once when hashing it.
+     */
+    private static final int HASH_CHUNK_SIZE = 8192;
+
+    private final Map<String, Integer> maxBodySizes = new HashMap<>();
+
+    private final Map<String, Integer> maxHeadersSizes = new HashMap<>();
+
+    private final boolean hashTail;
+
+    private final boolean enabled;
+
+    /**
+     * @param maxBodySize the maximum size of the body of a section in bytes, unlimited if zero or negative
+     * @param maxHeadersSize the maximum size of the headers of a section in bytes, unlimited if zero or negative
+     * @param hashTail hash the dropped tail of the truncated bodies
+     */
+    public LogTruncator(ToIntFunction<String> maxBodySize, ToIntFunction<String> maxHeadersSize, boolean hashTail) {
+        boolean limited = false;
+        for (String section : SECTIONS) {
+            final int bodySize = maxBodySize.applyAsInt(section);
+            final int headersSize = maxHeadersSize.applyAsInt(section);
+            maxBodySizes.put(section, bodySize);
+            maxHeadersSizes.put(section, headersSize);
+            limited |= bodySize > 0 || headersSize > 0;
+        }
+        this.hashTail = hashTail;
+        this.enabled = limited;
+    }
+
+    /**
+     * @param log the log to truncate
+     * @return the log with its sections truncated, the log itself if nothing had to be truncated
+     */
+    public TruncatedLog truncate(Log log) {
+        final TruncatedLog truncated = new TruncatedLog(log);
+        if (!enabled) {
+            return truncated;
+        }
+
+        final Request clientRequest = truncate(truncated, CLIENT_REQUEST, log.getClientRequest());
+        final Response clientResponse = truncate(truncated, CLIENT_RESPONSE, log.getClientResponse());
+        final Request proxyRequest = truncate(truncated, PROXY_REQUEST, log.getProxyRequest());
+        final Response proxyResponse = truncate(truncated, PROXY_RESPONSE, log.getProxyResponse());
+
+        if (truncated.truncations.isEmpty()) {
+            return truncated;
+        }
+
+        final Log copy = new Log(log.timestamp().toEpochMilli());
+        copy.setRequestId(log.getRequestId());
+        copy.setClientRequest(clientRequest);
+        copy.setClientResponse(clientResponse);
+        copy.setProxyRequest(proxyRequest);
+        copy.setProxyResponse(proxyResponse);
+        truncated.log = copy;
+        return truncated;
+    }
+
+    private Request truncate(TruncatedLog truncated, String section, Request request) {
+        if (request == null) {
+            return null;
+        }
+
+        final Truncation truncation = new Truncation();
+        final String body = truncateBody(request.getBody(), maxBodySizes.get(section), truncation);
+        final HttpHeaders headers = truncateHeaders(request.getHeaders(), maxHeadersSizes.get(section), truncation);
+        if (!truncation.isTruncated()) {
+            return request;
+        }
+
+        truncated.truncations.put(section, truncation);
+        final Request copy = new Request();
+        copy.setMethod(request.getMethod());
+        copy.setUri(request.getUri());
+        copy.setHeaders(headers);
+        copy.setBody(body);
+        return copy;
+    }
+
+    private Response truncate(TruncatedLog truncated, String section, Response response) {
+        if (response == null) {
+            return null;
+        }
+
+        final Truncation truncation = new Truncation();
+        final String body = truncateBody(response.getBody(), maxBodySizes.get(section), truncation);
+        final HttpHeaders headers = truncateHeaders(response.getHeaders(), maxHeadersSizes.get(section), truncation);
+        if (!truncation.isTruncated()) {
+            return response;
+        }
+
+        truncated.truncations.put(section, truncation);
+        final Response copy = new Response(response.getStatus());
+        copy.setHeaders(headers);
+        copy.setBody(body);
+        return copy;
+    }
+
+    private String truncateBody(String body, int maxSize, Truncation truncation) {
+        // A character is at most 3 bytes, a surrogate pair 4 bytes for 2 characters
+        if (body == null || maxSize <= 0 || body.length() * 3L <= maxSize) {
+            return body;
+        }
+
+        final int end = prefixLength(body, maxSize);
+        if (end == body.length()) {
+            return body;
+        }
+
+        truncation.body = true;
+        truncation.bodySize = utf8Length(body);
+        if (hashTail) {
+            truncation.tailHash = sha256(body, end);
+        }
+        return body.substring(0, end);
+    }
+
+    private HttpHeaders truncateHeaders(HttpHeaders headers, int maxSize, Truncation truncation) {
+        if (headers == null || maxSize <= 0) {
+            return headers;
+        }
+
+        final HttpHeaders kept = new HttpHeaders();
+        long size = 0;
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            long headerSize = utf8Length(header.getKey());
+            for (String value : header.getValue()) {
+                headerSize += value == null ? 0 : utf8Length(value);
+            }
+
+            if (size + headerSize > maxSize) {
+                truncation.headers = true;
+                continue;
+            }
+            size += headerSize;
+            kept.put(header.getKey(), header.getValue());
+        }
+
+        return truncation.headers ? kept : headers;
+    }
+
+    /**
+     * @return the number of characters of the longest prefix of a string whose UTF-8 size fits in a number of
+     * bytes, without splitting a surrogate pair
+     */
+    static int prefixLength(String value, int maxBytes) {
+        int bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            final boolean pair = Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1));
+            final int length = c < 0x80 ? 1 : c < 0x800 ? 2 : pair ? 4 : 3;
+            if (bytes + length > maxBytes) {
+                return i;
+            }
+            bytes += length;
+            if (pair) {
+                i++;
+            }
+        }
+        return value.length();
+    }
+
+    static long utf8Length(String value) {
+        long bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private static String sha256(String value, int start) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException nsae) {
+            return null;
+        }
+
+        int offset = start;
+        while (offset < value.length()) {
+            int end = Math.min(value.length(), offset + HASH_CHUNK_SIZE);
+            if (end < value.length() && Character.isHighSurrogate(value.charAt(end - 1))) {
+                end--;
+            }
+            digest.update(value.substring(offset, end).getBytes(StandardCharsets.UTF_8));
+            offset = end;
+        }
+
+        final StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * A log with its truncated sections.
+     */
+    public static class TruncatedLog {
+
+        private Log log;
+
+        private final Map<String, Truncation> truncations = new HashMap<>(4);
+
+        private TruncatedLog(Log log) {
+            this.log = log;
+        }
+
+        /**
+         * @return the log to index, a copy of the original one if a section has been truncated
+         */
+        public Log getLog() {
+            return log;
+        }
+
+        /**
+         * @param section the section of the log
+         * @return what has been truncated in the section, <code>null</code> if nothing has been
+         */
+        public Truncation getTruncation(String section) {
+            return truncations.get(section);
+        }
+    }
+
+    /**
+     * What has been truncated in a section of a log.
+     */
+    public static class Truncation {
+
+        private boolean body;
+
+        private boolean headers;
+
+        private long bodySize;
+
+        private String tailHash;
+
+        public boolean isTruncated() {
+            return body || headers;
+        }
+
+        public boolean isBody() {
+            return body;
+        }
+
+        public boolean isHeaders() {
+            return headers;
+        }
+
+        /**
+         * @return the size of the whole body in bytes, if the body has been truncated
+         */
+        public long getBodySize() {
+            return bodySize;
+        }
+
+        /**
+         * @return the SHA-256 of the dropped tail of the body, if hashed
+         */
+        public String getTailHash() {
+            return tailHash;
+        }
+    }
+}
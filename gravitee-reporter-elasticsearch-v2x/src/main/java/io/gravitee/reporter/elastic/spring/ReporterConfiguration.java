@@ -18,6 +18,7 @@ package io.gravitee.reporter.elastic.spring;
 import io.gravitee.reporter.elastic.config.ElasticConfiguration;
 import io.gravitee.reporter.elastic.engine.ReportEngine;
 import io.gravitee.reporter.elastic.engine.impl.ElasticReportEngine;
+import io.gravitee.reporter.elastic.metrics.ReporterMetrics;
 import io.gravitee.reporter.elastic.spring.conditional.ElasticClientTransportCondition;
 import io.gravitee.reporter.elastic.spring.factory.ElasticBulkProcessorFactory;
 import io.gravitee.reporter.elastic.spring.factory.ElasticClientFactory;
@@ -47,4 +48,9 @@ public class ReporterConfiguration {
     public ElasticConfiguration configuration(){
     	return new ElasticConfiguration();
     }
+
+    @Bean
+    public ReporterMetrics reporterMetrics() {
+        return new ReporterMetrics();
+    }
 }
@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.bulk;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Adapt the number of actions and the flush interval of the bulk requests to what Elasticsearch accepts,
+ * AIMD-style.
+ *
+ * As long as the bulk requests are accepted within the target latency, the number of actions grows by a fixed
+ * step and the flush interval shrinks back to its minimum. As soon as a bulk request is rejected or slower
+ * than the target latency, the number of actions is halved and the flush interval doubled. The number of
+ * actions only grows when there is demand for it: the bulk was full, or bulk requests are waiting.
+ *
+ * The bulk requests already in flight when the size is decreased were sized before the decrease: their
+ * response does not decrease it again until a round-trip has elapsed.
+ *
+ * @author GraviteeSource Team
+ */
+public class AdaptiveBulkSizer {
+
+    private final int minActions;
+
+    private final int maxActions;
+
+    private final long minFlushInterval;
+
+    private final long maxFlushInterval;
+
+    private final long targetLatency;
+
+    private final LongSupplier clock;
+
+    private volatile int actions;
+
+    private volatile long flushInterval;
+
+    private long lastDecrease = Long.MIN_VALUE;
+
+    /**
+     * @param initialActions the number of actions of the first bulk requests
+     * @param minActions the minimum number of actions, also the step by which the number of actions grows
+     * @param maxActions the maximum number of actions
+     * @param minFlushInterval the minimum flush interval in milliseconds, used at first
+     * @param maxFlushInterval the maximum flush interval in milliseconds
+     * @param targetLatency the round-trip time of a bulk request above which Elasticsearch is considered
+     *                      overloaded, in milliseconds
+     */
+    public AdaptiveBulkSizer(int initialActions, int minActions, int maxActions, long minFlushInterval,
+                             long maxFlushInterval, long targetLatency) {
+        this(initialActions, minActions, maxActions, minFlushInterval, maxFlushInterval, targetLatency,
+                System::nanoTime);
+    }
+
+    AdaptiveBulkSizer(int initialActions, int minActions, int maxActions, long minFlushInterval,
+                      long maxFlushInterval, long targetLatency, LongSupplier clock) {
+        this.minActions = Math.max(1, minActions);
+        this.maxActions = Math.max(this.minActions, maxActions);
+        this.minFlushInterval = Math.max(1, minFlushInterval);
+        this.maxFlushInterval = Math.max(this.minFlushInterval, maxFlushInterval);
+        this.targetLatency = targetLatency;
+        this.clock = clock;
+        this.actions = Math.min(this.maxActions, Math.max(this.minActions, initialActions));
+        this.flushInterval = this.minFlushInterval;
+    }
+
+    /**
+     * Adapt the size of the next bulk requests to the outcome of a bulk request.
+     *
+     * @param documents the number of documents of the bulk request
+     * @param roundTrip the round-trip time of the bulk request in milliseconds
+     * @param rejected the number of documents rejected because Elasticsearch is overloaded
+     * @param queueLoad the occupancy of the queue of bulk requests waiting to be sent, between 0 and 1
+     */
+    public synchronized void onBulk(int documents, long roundTrip, int rejected, double queueLoad) {
+        if (rejected > 0 || roundTrip > targetLatency) {
+            final long now = clock.getAsLong();
+            if (lastDecrease == Long.MIN_VALUE || now - lastDecrease >= TimeUnit.MILLISECONDS.toNanos(roundTrip)) {
+                lastDecrease = now;
+                actions = Math.max(minActions, actions / 2);
+                flushInterval = Math.min(maxFlushInterval, flushInterval * 2);
+            }
+            return;
+        }
+
+        flushInterval = Math.max(minFlushInterval, flushInterval - minFlushInterval);
+
+        if (documents >= actions || queueLoad > 0) {
+            actions = Math.min(maxActions, actions + minActions);
+        }
+    }
+
+    /**
+     * @return the number of actions of the next bulk requests
+     */
+    public int getActions() {
+        return actions;
+    }
+
+    /**
+     * @return the flush interval of the next bulk requests in milliseconds
+     */
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+}
@@ -69,12 +69,55 @@ public class ElasticConfiguration {
 	@Value("${reporters.elasticsearch.bulk.flush_interval:5}")
 	private Long flushInterval;
 	
+	/**
+	 * Bulk max size in megabytes, a negative or zero value disables the limit
+	 */
+	@Value("${reporters.elasticsearch.bulk.size:5}")
+	private Integer bulkSize;
+	
 	/**
 	 * Accepted concurrent request
 	 */
 	@Value("${reporters.elasticsearch.bulk.concurrent_requests:5}")
 	private Integer concurrentRequests;
 
+	/**
+	 * Adapt the number of actions and the flush interval of the bulk requests to the latency and the rejections
+	 * of Elasticsearch
+	 */
+	@Value("${reporters.elasticsearch.bulk.adaptive.enabled:false}")
+	private boolean bulkAdaptive;
+
+	/**
+	 * Minimum number of actions of an adaptive bulk request, also the step by which it grows
+	 */
+	@Value("${reporters.elasticsearch.bulk.adaptive.min_actions:100}")
+	private Integer bulkAdaptiveMinActions;
+
+	/**
+	 * Maximum number of actions of an adaptive bulk request
+	 */
+	@Value("${reporters.elasticsearch.bulk.adaptive.max_actions:10000}")
+	private Integer bulkAdaptiveMaxActions;
+
+	/**
+	 * Maximum flush interval of the adaptive bulk requests in seconds
+	 */
+	@Value("${reporters.elasticsearch.bulk.adaptive.max_flush_interval:30}")
+	private Long bulkAdaptiveMaxFlushInterval;
+
+	/**
+	 * Round-trip time of a bulk request above which the bulk requests are shrunk, in milliseconds
+	 */
+	@Value("${reporters.elasticsearch.bulk.adaptive.target_latency:1000}")
+	private Long bulkAdaptiveTargetLatency;
+
+	/**
+	 * Expose the metrics of the reporter over JMX
+	 */
+	@Value("${reporters.elasticsearch.metrics.jmx:true}")
+	private boolean metricsJmx;
+
 	/**
 	 * Elasticsearch hosts
 	 */
@@ -103,14 +146,104 @@ public class ElasticConfiguration {
 		return flushInterval;
 	}
 
+	public Integer getBulkSize() {
+		return bulkSize;
+	}
+
 	public Integer getConcurrentRequests() {
 		return concurrentRequests;
 	}
 
+	public boolean isBulkAdaptive() {
+		return bulkAdaptive;
+	}
+
+	public Integer getBulkAdaptiveMinActions() {
+		return bulkAdaptiveMinActions;
+	}
+
+	public Integer getBulkAdaptiveMaxActions() {
+		return bulkAdaptiveMaxActions;
+	}
+
+	public Long getBulkAdaptiveMaxFlushInterval() {
+		return bulkAdaptiveMaxFlushInterval;
+	}
+
+	public Long getBulkAdaptiveTargetLatency() {
+		return bulkAdaptiveTargetLatency;
+	}
+
+	/**
+	 * Get the fields of the documents of a type, read from
+	 * <code>reporters.elasticsearch.fields.&lt;type&gt;.{include,exclude,omit_nulls}</code>.
+	 *
+	 * @param type the document type
+	 * @return the fields of the documents of this type
+	 */
+	public FieldProfile getFieldProfile(String type) {
+		final String prefix = "reporters.elasticsearch.fields." + type + ".";
+
+		return new FieldProfile(
+				getList(prefix + "include"),
+				getList(prefix + "exclude"),
+				environment.getProperty(prefix + "omit_nulls", Boolean.class,
+						environment.getProperty("reporters.elasticsearch.fields.omit_nulls", Boolean.class, false)));
+	}
+
+	/**
+	 * Get the maximum size of the bodies of a section of the logs, read from
+	 * <code>reporters.elasticsearch.log.&lt;section&gt;.max_body_size</code>, or else from
+	 * <code>reporters.elasticsearch.log.max_body_size</code>.
+	 *
+	 * @param section the section of the logs, <code>client-request</code> for example
+	 * @return the maximum size in bytes, unlimited if zero or negative
+	 */
+	public int getLogMaxBodySize(String section) {
+		return getLogSize(section, "max_body_size");
+	}
+
+	/**
+	 * Get the maximum size of the headers of a section of the logs, read from
+	 * <code>reporters.elasticsearch.log.&lt;section&gt;.max_headers_size</code>, or else from
+	 * <code>reporters.elasticsearch.log.max_headers_size</code>.
+	 *
+	 * @param section the section of the logs, <code>client-request</code> for example
+	 * @return the maximum size in bytes, unlimited if zero or negative
+	 */
+	public int getLogMaxHeadersSize(String section) {
+		return getLogSize(section, "max_headers_size");
+	}
+
+	public boolean isLogHashTruncated() {
+		return environment.getProperty("reporters.elasticsearch.log.hash_truncated", Boolean.class, false);
+	}
+
+	private int getLogSize(String section, String size) {
+		return environment.getProperty("reporters.elasticsearch.log." + section + "." + size, Integer.class,
+				environment.getProperty("reporters.elasticsearch.log." + size, Integer.class, 0));
+	}
+
+	private List<String> getList(String property) {
+		final List<String> values = new ArrayList<>();
+
+		String key = String.format("%s[%s]", property, 0);
+		while (environment.containsProperty(key)) {
+			values.add(environment.getProperty(key));
+			key = String.format("%s[%s]", property, values.size());
+		}
+
+		return values;
+	}
+
 	public String getIndexName() {
 		return indexName;
 	}
 
+	public boolean isMetricsJmx() {
+		return metricsJmx;
+	}
+
 	private List<HostAddress> initializeHostsAddresses(){
 		String key = String.format("reporters.elasticsearch.hosts[%s]", 0);
 		List<HostAddress> res = new ArrayList<>();
@@ -24,16 +24,17 @@ import io.gravitee.reporter.api.log.Log;
 import io.gravitee.reporter.api.monitor.JvmInfo;
 import io.gravitee.reporter.api.monitor.Monitor;
 import io.gravitee.reporter.elastic.config.ElasticConfiguration;
+import io.gravitee.reporter.elastic.config.FieldProfile;
 import io.gravitee.reporter.elastic.config.PipelineConfiguration;
 import io.gravitee.reporter.elastic.engine.ReportEngine;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
-import org.elasticsearch.common.xcontent.XContentFactory;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
@@ -59,6 +60,18 @@ public abstract class AbstractElasticReportEngine implements ReportEngine {
 	/** Document simple date format **/
 	private DateTimeFormatter dtf;
 
+	/**
+	 * Fields written in the documents of each type.
+	 */
+	private FieldProfile requestProfile = FieldProfile.ALL;
+	private FieldProfile logProfile = FieldProfile.ALL;
+	private FieldProfile healthProfile = FieldProfile.ALL;
+
+	/**
+	 * Caps of the bodies and of the headers of the logs.
+	 */
+	private LogTruncator logTruncator = LogTruncator.NONE;
+
 	private static String hostname;
 
 	static {
@@ -74,74 +87,90 @@ public abstract class AbstractElasticReportEngine implements ReportEngine {
 		this.dtf = DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZZ");
 	}
 
+	@PostConstruct
+	void initFieldProfiles() {
+		this.requestProfile = configuration.getFieldProfile(ElasticReportEngine.TYPE_REQUEST);
+		this.logProfile = configuration.getFieldProfile(ElasticReportEngine.TYPE_LOG);
+		this.healthProfile = configuration.getFieldProfile(ElasticReportEngine.TYPE_HEALTH);
+		this.logTruncator = new LogTruncator(configuration::getLogMaxBodySize, configuration::getLogMaxHeadersSize,
+				configuration.isLogHashTruncated());
+	}
+
 	XContentBuilder getSource(Metrics metrics) throws IOException {
-		XContentBuilder builder = XContentFactory.jsonBuilder()
+		XContentBuilder builder = DocumentOutput.jsonBuilder()
 				.startObject()
 				.field(Fields.GATEWAY, node.id())
-				.field(Fields.SPECIAL_TIMESTAMP, Date.from(metrics.timestamp()), dtf)
-				.field("transaction", metrics.getTransactionId())
-				.field("method", metrics.getHttpMethod().code())
-				.field("uri", metrics.getUri())
-				.field("status", metrics.getStatus())
-				.field("response-time", metrics.getProxyResponseTimeMs())
-				.field("api-response-time", metrics.getApiResponseTimeMs() >= 0 ? metrics.getApiResponseTimeMs() : null)
-				.field("proxy-latency", metrics.getProxyLatencyMs() >= 0 ? metrics.getProxyLatencyMs() : null)
-				.field("request-content-length", metrics.getRequestContentLength() >= 0 ? metrics.getRequestContentLength() : null)
-				.field("response-content-length", metrics.getResponseContentLength() >= 0 ? metrics.getResponseContentLength() : null)
-				.field("api-key", metrics.getApiKey())
-				.field("plan", metrics.getPlan())
-				.field("api", metrics.getApi())
-				.field("application", metrics.getApplication())
-				.field("local-address", metrics.getLocalAddress())
-				.field("remote-address", metrics.getRemoteAddress())
-				.field("endpoint", metrics.getEndpoint());
+				.field(Fields.SPECIAL_TIMESTAMP, Date.from(metrics.timestamp()), dtf);
+
+		field(builder, requestProfile, "transaction", metrics.getTransactionId());
+		field(builder, requestProfile, "method", metrics.getHttpMethod() != null ? metrics.getHttpMethod().code() : null);
+		field(builder, requestProfile, "uri", metrics.getUri());
+		field(builder, requestProfile, "status", metrics.getStatus());
+		field(builder, requestProfile, "response-time", metrics.getProxyResponseTimeMs());
+		field(builder, requestProfile, "api-response-time", metrics.getApiResponseTimeMs() >= 0 ? metrics.getApiResponseTimeMs() : null);
+		field(builder, requestProfile, "proxy-latency", metrics.getProxyLatencyMs() >= 0 ? metrics.getProxyLatencyMs() : null);
+		field(builder, requestProfile, "request-content-length", metrics.getRequestContentLength() >= 0 ? metrics.getRequestContentLength() : null);
+		field(builder, requestProfile, "response-content-length", metrics.getResponseContentLength() >= 0 ? metrics.getResponseContentLength() : null);
+		field(builder, requestProfile, "api-key", metrics.getApiKey());
+		field(builder, requestProfile, "plan", metrics.getPlan());
+		field(builder, requestProfile, "api", metrics.getApi());
+		field(builder, requestProfile, "application", metrics.getApplication());
+		field(builder, requestProfile, "local-address", metrics.getLocalAddress());
+		field(builder, requestProfile, "remote-address", metrics.getRemoteAddress());
+		field(builder, requestProfile, "endpoint", metrics.getEndpoint());
 
 		if (metrics.getMessage() != null) {
-			builder.field("message", metrics.getMessage());
+			field(builder, requestProfile, "message", metrics.getMessage());
 		}
 
 		if (metrics.getTenant() != null) {
-			builder.field("tenant", metrics.getTenant());
+			field(builder, requestProfile, "tenant", metrics.getTenant());
 		}
 
 		return builder.endObject();
 	}
 
-	XContentBuilder getSource(Log log) throws IOException {
-		XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+	XContentBuilder getSource(Log original) throws IOException {
+		final LogTruncator.TruncatedLog truncated = logTruncator.truncate(original);
+		final Log log = truncated.getLog();
+		XContentBuilder builder = DocumentOutput.jsonBuilder().startObject();
 
-		if (log.getClientRequest() != null) {
+		if (log.getClientRequest() != null && logProfile.accepts("client-request")) {
 			builder.startObject("client-request")
 					.field("method", log.getClientRequest().getMethod())
 					.field("uri", log.getClientRequest().getUri())
 					.field("headers", log.getClientRequest().getHeaders())
-					.field("body", log.getClientRequest().getBody())
-					.endObject();
+					.field("body", log.getClientRequest().getBody());
+			truncation(builder, truncated.getTruncation(LogTruncator.CLIENT_REQUEST));
+			builder.endObject();
 		}
 
-		if (log.getProxyRequest() != null) {
+		if (log.getProxyRequest() != null && logProfile.accepts("proxy-request")) {
 			builder.startObject("proxy-request")
 					.field("method", log.getProxyRequest().getMethod())
 					.field("uri", log.getProxyRequest().getUri())
 					.field("headers", log.getProxyRequest().getHeaders())
-					.field("body", log.getProxyRequest().getBody())
-					.endObject();
+					.field("body", log.getProxyRequest().getBody());
+			truncation(builder, truncated.getTruncation(LogTruncator.PROXY_REQUEST));
+			builder.endObject();
 		}
 
-		if (log.getClientResponse() != null) {
+		if (log.getClientResponse() != null && logProfile.accepts("client-response")) {
 			builder.startObject("client-response")
 					.field("status", log.getClientResponse().getStatus())
 					.field("headers", log.getClientResponse().getHeaders())
-					.field("body", log.getClientResponse().getBody())
-					.endObject();
+					.field("body", log.getClientResponse().getBody());
+			truncation(builder, truncated.getTruncation(LogTruncator.CLIENT_RESPONSE));
+			builder.endObject();
 		}
 
-		if (log.getProxyResponse() != null) {
+		if (log.getProxyResponse() != null && logProfile.accepts("proxy-response")) {
 			builder.startObject("proxy-response")
 					.field("status", log.getProxyResponse().getStatus())
 					.field("headers", log.getProxyResponse().getHeaders())
-					.field("body", log.getProxyResponse().getBody())
-					.endObject();
+					.field("body", log.getProxyResponse().getBody());
+			truncation(builder, truncated.getTruncation(LogTruncator.PROXY_RESPONSE));
+			builder.endObject();
 		}
 
 		return builder
@@ -150,38 +179,41 @@ public abstract class AbstractElasticReportEngine implements ReportEngine {
 	}
 
 	XContentBuilder getSource(EndpointStatus endpointStatus) throws IOException {
-		XContentBuilder builder = XContentFactory.jsonBuilder()
+		XContentBuilder builder = DocumentOutput.jsonBuilder()
 				.startObject()
-				.field(Fields.GATEWAY, node.id())
-				.field("api", endpointStatus.getApi())
-				.field("endpoint", endpointStatus.getEndpoint())
-				.field("response-time", endpointStatus.getResponseTime())
-				.field("available", endpointStatus.isAvailable())
-				.field("success", endpointStatus.isSuccess())
-				.field("state", endpointStatus.getState());
+				.field(Fields.GATEWAY, node.id());
+
+		field(builder, healthProfile, "api", endpointStatus.getApi());
+		field(builder, healthProfile, "endpoint", endpointStatus.getEndpoint());
+		field(builder, healthProfile, "response-time", endpointStatus.getResponseTime());
+		field(builder, healthProfile, "available", endpointStatus.isAvailable());
+		field(builder, healthProfile, "success", endpointStatus.isSuccess());
+		field(builder, healthProfile, "state", endpointStatus.getState());
 
 		// Add steps result
-		builder.startArray("steps");
-		for (Step step : endpointStatus.getSteps()) {
-			builder.startObject()
-					.field("name", step.getName())
-					.field("success", step.isSuccess())
-					.startObject("request")
-						.field("method", step.getRequest().getMethod())
-						.field("uri", step.getRequest().getUri())
-						.field("headers", step.getRequest().getHeaders())
-						.field("body", step.getRequest().getBody())
-					.endObject()
-					.startObject("response")
-						.field("status", step.getResponse().getStatus())
-						.field("headers", step.getResponse().getHeaders())
-						.field("body", step.getResponse().getBody())
-					.endObject()
-					.field("response-time", step.getResponseTime())
-					.field("message", step.getMessage())
-					.endObject();
+		if (healthProfile.accepts("steps")) {
+			builder.startArray("steps");
+			for (Step step : endpointStatus.getSteps()) {
+				builder.startObject()
+						.field("name", step.getName())
+						.field("success", step.isSuccess())
+						.startObject("request")
+							.field("method", step.getRequest().getMethod())
+							.field("uri", step.getRequest().getUri())
+							.field("headers", step.getRequest().getHeaders())
+							.field("body", step.getRequest().getBody())
+						.endObject()
+						.startObject("response")
+							.field("status", step.getResponse().getStatus())
+							.field("headers", step.getResponse().getHeaders())
+							.field("body", step.getResponse().getBody())
+						.endObject()
+						.field("response-time", step.getResponseTime())
+						.field("message", step.getMessage())
+						.endObject();
+			}
+			builder.endArray();
 		}
-		builder.endArray();
 
 		return builder
 				.field(Fields.SPECIAL_TIMESTAMP, Date.from(endpointStatus.timestamp()), dtf)
@@ -189,7 +221,7 @@ public abstract class AbstractElasticReportEngine implements ReportEngine {
 	}
 
 	protected XContentBuilder getSource(Monitor monitor) throws IOException {
-		XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+		XContentBuilder builder = DocumentOutput.jsonBuilder().startObject();
 
 		if (monitor.getOs() != null) {
 			builder.startObject(Fields.OS);
@@ -307,6 +339,32 @@ public abstract class AbstractElasticReportEngine implements ReportEngine {
 		return builder;
 	}
 
+	/**
+	 * Write a top-level field of a document, unless the profile excludes it.
+	 */
+	private static void field(XContentBuilder builder, FieldProfile profile, String name, Object value) throws IOException {
+		if (profile.accepts(name, value)) {
+			builder.field(name, value);
+		}
+	}
+
+	/**
+	 * Write what has been truncated in a section of a log, if anything has been.
+	 */
+	private static void truncation(XContentBuilder builder, LogTruncator.Truncation truncation) throws IOException {
+		if (truncation == null) {
+			return;
+		}
+
+		builder.field("truncated", true);
+		if (truncation.isBody()) {
+			builder.field("body-size", truncation.getBodySize());
+		}
+		if (truncation.getTailHash() != null) {
+			builder.field("body-tail-sha256", truncation.getTailHash());
+		}
+	}
+
 	static final class Fields {
 		static final String GATEWAY = "gateway";
 		static final String HOSTNAME = "hostname";
@@ -21,6 +21,10 @@ import io.gravitee.reporter.api.http.Metrics;
 import io.gravitee.reporter.api.log.Log;
 import io.gravitee.reporter.api.monitor.Monitor;
 import io.gravitee.reporter.elastic.config.ElasticConfiguration;
+import io.gravitee.reporter.elastic.metrics.BulkMetrics;
+import io.gravitee.reporter.elastic.metrics.HistogramMetric;
+import io.gravitee.reporter.elastic.metrics.JmxMetricsExporter;
+import io.gravitee.reporter.elastic.metrics.ReporterMetrics;
 import io.gravitee.reporter.elastic.model.Protocol;
 import org.elasticsearch.action.bulk.BulkProcessor;
 import org.elasticsearch.action.index.IndexRequest;
@@ -29,7 +33,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Elasticsearch report engine. 
@@ -55,6 +62,24 @@ public final class ElasticReportEngine extends AbstractElasticReportEngine {
 	@Autowired
 	private BulkProcessor bulkProcessor;
 
+	@Autowired
+	private ElasticConfiguration configuration;
+
+	/**
+	 * Metrics of the reporter.
+	 */
+	@Autowired
+	private ReporterMetrics reporterMetrics;
+
+	/**
+	 * Time taken to encode each type of document, in microseconds.
+	 */
+	private final Map<String, HistogramMetric> encodingTimes = new HashMap<>();
+
+	private LongAdder reportedDocuments;
+
+	private JmxMetricsExporter jmxExporter;
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -63,25 +88,31 @@ public final class ElasticReportEngine extends AbstractElasticReportEngine {
 		try {
 			String indexName = getIndexName(reportable);
 
+			final long start = System.nanoTime();
             IndexRequest indexRequest = null;
 
 			if (reportable instanceof Metrics) {
 				Metrics metrics = (Metrics) reportable;
                 indexRequest =new IndexRequest(indexName, TYPE_REQUEST, metrics.getRequestId())
-						.source(getSource(metrics));
+						.source(DocumentOutput.toBytes(getSource(metrics)));
 				if(this.isPipelineEnable()) {
 					indexRequest.setPipeline(this.getPipeline());
 				}
 			} else if (reportable instanceof EndpointStatus) {
                 indexRequest= new IndexRequest(indexName, TYPE_HEALTH, ((EndpointStatus)reportable).getId())
-						.source(getSource((EndpointStatus) reportable));
+						.source(DocumentOutput.toBytes(getSource((EndpointStatus) reportable)));
 			} else if (reportable instanceof Monitor) {
                 indexRequest = new IndexRequest(indexName, TYPE_MONITOR)
-						.source(getSource((Monitor) reportable));
+						.source(DocumentOutput.toBytes(getSource((Monitor) reportable)));
 			} else if (reportable instanceof Log) {
 				Log log = (Log) reportable;
                 indexRequest = new IndexRequest(indexName, TYPE_LOG, log.getRequestId())
-						.source(getSource(log));
+						.source(DocumentOutput.toBytes(getSource(log)));
+			}
+
+			if (indexRequest != null) {
+				encodingTimes.get(indexRequest.type()).record((System.nanoTime() - start) / 1000);
+				reportedDocuments.increment();
 			}
 
 			bulkProcessor.add(indexRequest);
@@ -99,7 +130,17 @@ public final class ElasticReportEngine extends AbstractElasticReportEngine {
 		LOGGER.info("Starting Elastic reporter engine...");
 		
 		//TODO connectivity check
-		
+
+		for (String type : new String[] { TYPE_REQUEST, TYPE_HEALTH, TYPE_MONITOR, TYPE_LOG }) {
+			encodingTimes.put(type, reporterMetrics.histogram("encoder." + type + ".time_us"));
+		}
+		reportedDocuments = reporterMetrics.counter(BulkMetrics.DOCUMENTS_REPORTED);
+
+		if (configuration.isMetricsJmx()) {
+			jmxExporter = new JmxMetricsExporter(reporterMetrics, "transport-5x");
+			jmxExporter.register();
+		}
+
 		LOGGER.info("Starting Elastic reporter engine... DONE");
 	}
 
@@ -116,6 +157,10 @@ public final class ElasticReportEngine extends AbstractElasticReportEngine {
 			LOGGER.error("Error while closing processor", e);
 		}
 
+		if (jmxExporter != null) {
+			jmxExporter.unregister();
+		}
+
 		LOGGER.info("Stopping Elastic reporter engine... DONE");
 	}
 }
@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.metrics;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Record the activity of the bulk processor in the {@link ReporterMetrics}: documents waiting for a bulk
+ * request, bulk requests in flight, round-trip time and size of the bulk requests, and failures.
+ *
+ * @author GraviteeSource Team
+ */
+public class BulkMetrics {
+
+    /**
+     * Counter of the documents given to the bulk processor.
+     */
+    public static final String DOCUMENTS_REPORTED = "documents.reported";
+
+    private final ReporterMetrics metrics;
+
+    private final LongAdder reportedDocuments;
+
+    private final LongAdder sentDocuments = new LongAdder();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Map<Long, Long> startTimes = new ConcurrentHashMap<>();
+
+    private final HistogramMetric bulkRoundTrip;
+
+    private final HistogramMetric bulkDocuments;
+
+    private final HistogramMetric bulkBytes;
+
+    public BulkMetrics(ReporterMetrics metrics) {
+        this.metrics = metrics;
+        this.bulkRoundTrip = metrics.histogram("bulk.round_trip_ms");
+        this.bulkDocuments = metrics.histogram("bulk.documents");
+        this.bulkBytes = metrics.histogram("bulk.bytes");
+
+        this.reportedDocuments = metrics.counter(DOCUMENTS_REPORTED);
+        metrics.gauge("documents.buffered", this::getBuffered);
+        metrics.gauge("bulk.in_flight", inFlight::get);
+    }
+
+    public void beforeBulk(long executionId, BulkRequest request) {
+        sentDocuments.add(request.numberOfActions());
+        inFlight.incrementAndGet();
+        bulkDocuments.record(request.numberOfActions());
+        bulkBytes.record(request.estimatedSizeInBytes());
+        startTimes.put(executionId, System.nanoTime());
+    }
+
+    /**
+     * @return the round-trip time of the bulk request in milliseconds
+     */
+    public long afterBulk(long executionId, BulkResponse response) {
+        final long roundTrip = completed(executionId);
+
+        if (response.hasFailures()) {
+            for (BulkItemResponse item : response.getItems()) {
+                if (item.isFailed()) {
+                    metrics.counter("bulk.items.failed." +
+                            ElasticsearchException.getExceptionName(item.getFailure().getCause())).increment();
+                }
+            }
+        }
+
+        return roundTrip;
+    }
+
+    /**
+     * @return the round-trip time of the bulk request in milliseconds
+     */
+    public long afterBulk(long executionId, BulkRequest request, Throwable failure) {
+        final long roundTrip = completed(executionId);
+
+        metrics.counter("bulk.failures." + ElasticsearchException.getExceptionName(failure)).increment();
+        metrics.counter("documents.dropped.retries").add(request.numberOfActions());
+
+        return roundTrip;
+    }
+
+    /**
+     * @return the number of documents given to the bulk processor and not sent yet
+     */
+    public long getBuffered() {
+        return reportedDocuments.sum() - sentDocuments.sum();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private long completed(long executionId) {
+        inFlight.decrementAndGet();
+
+        final Long start = startTimes.remove(executionId);
+        if (start == null) {
+            return 0;
+        }
+
+        final long roundTrip = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        bulkRoundTrip.record(roundTrip);
+        return roundTrip;
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+/**
+ * Expose the {@link ReporterMetrics} as the read-only attributes of an MBean, named
+ * <code>io.gravitee.reporter.elasticsearch:type=Metrics,engine=&lt;engine&gt;</code>.
+ *
+ * @author GraviteeSource Team
+ */
+public class JmxMetricsExporter implements DynamicMBean {
+
+    private static final String DOMAIN = "io.gravitee.reporter.elasticsearch";
+
+    private final Logger logger = LoggerFactory.getLogger(JmxMetricsExporter.class);
+
+    private final ReporterMetrics metrics;
+
+    private final ObjectName name;
+
+    private final MBeanServer server;
+
+    /**
+     * @param metrics the metrics to expose
+     * @param engine the name of the engine, to tell the reporters apart
+     */
+    public JmxMetricsExporter(ReporterMetrics metrics, String engine) {
+        this(metrics, engine, ManagementFactory.getPlatformMBeanServer());
+    }
+
+    JmxMetricsExporter(ReporterMetrics metrics, String engine, MBeanServer server) {
+        this.metrics = metrics;
+        this.server = server;
+        try {
+            this.name = new ObjectName(DOMAIN + ":type=Metrics,engine=" + engine);
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Invalid engine name " + engine, ex);
+        }
+    }
+
+    /**
+     * Register the MBean, replacing the one left by a previous instance of the reporter.
+     */
+    public void register() {
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (Exception ex) {
+            logger.warn("Unable to register the reporter metrics MBean {}", name, ex);
+        }
+    }
+
+    public void unregister() {
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception ex) {
+            logger.warn("Unable to unregister the reporter metrics MBean {}", name, ex);
+        }
+    }
+
+    public ObjectName getName() {
+        return name;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        final Number value = metrics.snapshot().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        final Map<String, Number> snapshot = metrics.snapshot();
+        final AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            final Number value = snapshot.get(attribute);
+            if (value != null) {
+                list.add(new Attribute(attribute, value));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) {
+        throw new UnsupportedOperationException("Reporter metrics are read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        throw new UnsupportedOperationException("Reporter metrics have no operation");
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        final Map<String, Number> snapshot = metrics.snapshot();
+        final MBeanAttributeInfo[] attributes = snapshot.entrySet().stream()
+                .map(entry -> new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(),
+                        entry.getKey(), true, false, false))
+                .toArray(MBeanAttributeInfo[]::new);
+
+        return new MBeanInfo(JmxMetricsExporter.class.getName(), "Elasticsearch reporter metrics",
+                attributes, null, null, null);
+    }
+}
@@ -19,6 +19,7 @@ import io.gravitee.reporter.elastic.config.ElasticConfiguration;
 import io.gravitee.reporter.elastic.config.PipelineConfiguration;
 import io.gravitee.reporter.elastic.engine.ReportEngine;
 import io.gravitee.reporter.elastic.engine.impl.ElasticReportEngine;
+import io.gravitee.reporter.elastic.metrics.ReporterMetrics;
 import io.gravitee.reporter.elastic.spring.conditional.ElasticClientTransportCondition;
 import io.gravitee.reporter.elastic.spring.factory.ElasticBulkProcessorFactory;
 import io.gravitee.reporter.elastic.spring.factory.ElasticClientFactory;
@@ -50,6 +51,11 @@ public class ReporterConfiguration {
     	return new ElasticConfiguration();
     }
 
+    @Bean
+    public ReporterMetrics reporterMetrics() {
+        return new ReporterMetrics();
+    }
+
     @Bean
     public PipelineConfiguration processorConfiguration() {return new PipelineConfiguration();}
 }
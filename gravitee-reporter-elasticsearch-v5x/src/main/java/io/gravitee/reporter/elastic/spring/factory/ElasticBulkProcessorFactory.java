@@ -15,21 +15,27 @@
  */
 package io.gravitee.reporter.elastic.spring.factory;
 
+import io.gravitee.reporter.elastic.bulk.AdaptiveBulkSizer;
 import io.gravitee.reporter.elastic.config.ElasticConfiguration;
 import io.gravitee.reporter.elastic.config.PipelineConfiguration;
 import io.gravitee.reporter.elastic.engine.impl.ElasticReportEngine;
+import io.gravitee.reporter.elastic.metrics.BulkMetrics;
+import io.gravitee.reporter.elastic.metrics.ReporterMetrics;
 import org.elasticsearch.ResourceAlreadyExistsException;
 import org.elasticsearch.action.IndicesRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkProcessor;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.RestStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +44,10 @@ import org.springframework.beans.factory.config.AbstractFactoryBean;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -50,6 +60,8 @@ public class ElasticBulkProcessorFactory extends AbstractFactoryBean<BulkProcess
 
     private final Logger LOGGER = LoggerFactory.getLogger(ElasticBulkProcessorFactory.class);
 
+    private final static long ADAPTIVE_FLUSH_CHECK_INTERVAL = 100;
+
     private final static String FIELD_TYPE = "type";
     private final static String FIELD_TYPE_KEYWORD = "keyword";
     private final static String FIELD_TYPE_SHORT = "short";
@@ -68,6 +80,14 @@ public class ElasticBulkProcessorFactory extends AbstractFactoryBean<BulkProcess
     @Autowired
     private ElasticConfiguration config;
 
+    @Autowired
+    private ReporterMetrics metrics;
+
+    /**
+     * Flush the bulk processor according to the adaptive bulk size, if enabled.
+     */
+    private ScheduledExecutorService adaptiveFlusher;
+
     @Autowired
     private PipelineConfiguration pipelineConfig;
 
@@ -78,11 +98,17 @@ public class ElasticBulkProcessorFactory extends AbstractFactoryBean<BulkProcess
 
     @Override
     protected BulkProcessor createInstance() throws Exception {
-        return BulkProcessor.builder(
+        final BulkMetrics bulkMetrics = new BulkMetrics(metrics);
+        final AdaptiveBulkSizer sizer = config.isBulkAdaptive() ? createBulkSizer() : null;
+        final AtomicLong lastFlush = new AtomicLong(System.nanoTime());
+
+        final BulkProcessor.Builder builder = BulkProcessor.builder(
                 client,
                 new BulkProcessor.Listener() {
                     @Override
                     public void beforeBulk(long executionId, BulkRequest request) {
+                        bulkMetrics.beforeBulk(executionId, request);
+                        lastFlush.set(System.nanoTime());
                         if (request.numberOfActions() > 0) {
                             initializeIndices(request);
                             initializePipeline();
@@ -91,18 +117,107 @@ public class ElasticBulkProcessorFactory extends AbstractFactoryBean<BulkProcess
 
                     @Override
                     public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+                        final long roundTrip = bulkMetrics.afterBulk(executionId, response);
+                        if (sizer != null) {
+                            sizer.onBulk(request.numberOfActions(), roundTrip, countRejected(response),
+                                    getQueueLoad(bulkMetrics));
+                        }
                     }
 
                     @Override
                     public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+                        final long roundTrip = bulkMetrics.afterBulk(executionId, request, failure);
+                        if (sizer != null) {
+                            sizer.onBulk(request.numberOfActions(), roundTrip, request.numberOfActions(),
+                                    getQueueLoad(bulkMetrics));
+                        }
                         LOGGER.error("Unexpected error while bulk-indexing data.", failure);
                     }
                 })
-                .setBulkActions(config.getBulkActions())
-                .setBulkSize(new ByteSizeValue(-1))
-                .setFlushInterval(TimeValue.timeValueSeconds(config.getFlushInterval()))
-                .setConcurrentRequests(config.getConcurrentRequests())
+                .setBulkSize(config.getBulkSize() > 0 ?
+                        new ByteSizeValue(config.getBulkSize(), ByteSizeUnit.MB) : new ByteSizeValue(-1))
+                .setConcurrentRequests(config.getConcurrentRequests());
+
+        if (sizer == null) {
+            return builder
+                    .setBulkActions(config.getBulkActions())
+                    .setFlushInterval(TimeValue.timeValueSeconds(config.getFlushInterval()))
+                    .build();
+        }
+
+        // The limits of a bulk processor can not change once built: the maximum number of actions is only a
+        // hard cap, the adaptive size and flush interval are enforced by flushing the processor.
+        final BulkProcessor processor = builder
+                .setBulkActions(config.getBulkAdaptiveMaxActions())
                 .build();
+        scheduleAdaptiveFlush(processor, bulkMetrics, sizer, lastFlush);
+        return processor;
+    }
+
+    @Override
+    protected void destroyInstance(BulkProcessor instance) throws Exception {
+        if (adaptiveFlusher != null) {
+            adaptiveFlusher.shutdownNow();
+        }
+        super.destroyInstance(instance);
+    }
+
+    private AdaptiveBulkSizer createBulkSizer() {
+        final AdaptiveBulkSizer sizer = new AdaptiveBulkSizer(
+                config.getBulkActions(),
+                config.getBulkAdaptiveMinActions(),
+                config.getBulkAdaptiveMaxActions(),
+                TimeUnit.SECONDS.toMillis(config.getFlushInterval()),
+                TimeUnit.SECONDS.toMillis(config.getBulkAdaptiveMaxFlushInterval()),
+                config.getBulkAdaptiveTargetLatency());
+
+        metrics.gauge("bulk.actions", sizer::getActions);
+        metrics.gauge("bulk.flush_interval_ms", sizer::getFlushInterval);
+        return sizer;
+    }
+
+    /**
+     * Check the buffered documents periodically, and flush them once there are enough of them or once they
+     * waited for the flush interval since the last bulk request, whether flushed by this check or by the
+     * bulk processor itself once full.
+     */
+    private void scheduleAdaptiveFlush(BulkProcessor processor, BulkMetrics bulkMetrics, AdaptiveBulkSizer sizer,
+                                       AtomicLong lastFlush) {
+        adaptiveFlusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "gio-reporter-bulk-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        adaptiveFlusher.scheduleWithFixedDelay(() -> {
+            try {
+                final long buffered = bulkMetrics.getBuffered();
+                final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastFlush.get());
+
+                if (buffered >= sizer.getActions() || (buffered > 0 && elapsed >= sizer.getFlushInterval())) {
+                    processor.flush();
+                }
+            } catch (Exception ex) {
+                LOGGER.error("Unexpected error while flushing the bulk processor", ex);
+            }
+        }, ADAPTIVE_FLUSH_CHECK_INTERVAL, ADAPTIVE_FLUSH_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    private static int countRejected(BulkResponse response) {
+        if (!response.hasFailures()) {
+            return 0;
+        }
+
+        int rejected = 0;
+        for (BulkItemResponse item : response.getItems()) {
+            if (item.isFailed() && item.getFailure().getStatus() == RestStatus.TOO_MANY_REQUESTS) {
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+
+    private double getQueueLoad(BulkMetrics bulkMetrics) {
+        return (double) bulkMetrics.getInFlight() / Math.max(1, config.getConcurrentRequests());
     }
 
 
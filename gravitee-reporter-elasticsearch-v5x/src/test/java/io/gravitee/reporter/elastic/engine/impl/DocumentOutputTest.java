@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.reporter.elastic.engine.impl;
+
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * @author GraviteeSource Team
+ */
+public class DocumentOutputTest {
+
+    @Test
+    public void shouldWriteTheSameDocumentAsAJsonBuilder() throws IOException {
+        final byte[] document = DocumentOutput.toBytes(fill(DocumentOutput.jsonBuilder(), "gateway"));
+
+        Assert.assertEquals(fill(XContentFactory.jsonBuilder(), "gateway").string(),
+                new String(document, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldNotKeepThePreviousDocument() throws IOException {
+        final char[] large = new char[128 * 1024];
+        Arrays.fill(large, 'a');
+
+        final byte[] first = DocumentOutput.toBytes(fill(DocumentOutput.jsonBuilder(), new String(large)));
+        final byte[] second = DocumentOutput.toBytes(fill(DocumentOutput.jsonBuilder(), "gateway"));
+        final byte[] third = DocumentOutput.toBytes(fill(DocumentOutput.jsonBuilder(), "gw"));
+
+        Assert.assertTrue(first.length > large.length);
+        Assert.assertEquals("{\"host\":\"gateway\",\"status\":200}", new String(second, StandardCharsets.UTF_8));
+        Assert.assertEquals("{\"host\":\"gw\",\"status\":200}", new String(third, StandardCharsets.UTF_8));
+    }
+
+    private static XContentBuilder fill(XContentBuilder builder, String host) throws IOException {
+        return builder.startObject()
+                .field("host", host)
+                .field("status", 200)
+                .endObject();
+    }
+}